@@ -0,0 +1,93 @@
+package com.example.reporting.benchmark;
+
+import com.example.reporting.service.PptxDownloadService;
+import com.example.reporting.service.PptxModificationService;
+import com.example.reporting.service.PptxReaderService;
+import com.example.reporting.service.admission.GenerationAdmissionController;
+import com.example.reporting.service.image.ImageCache;
+import com.example.reporting.service.image.ImagePreprocessor;
+import com.example.reporting.service.metrics.GenerationMetrics;
+import com.example.reporting.service.replacer.ChartPlaceholderReplacer;
+import com.example.reporting.service.replacer.ImagePlaceholderReplacer;
+import com.example.reporting.service.replacer.InsertPlaceholderReplacer;
+import com.example.reporting.service.replacer.SlideRepeatReplacer;
+import com.example.reporting.service.replacer.TablePlaceholderReplacer;
+import com.example.reporting.service.replacer.TextPlaceholderReplacer;
+import com.example.reporting.service.replacer.TextSubstitutionEngine;
+import com.example.reporting.service.streaming.IncrementalPackageWriter;
+import com.example.reporting.service.streaming.OoxmlStreamingRewriter;
+import com.example.reporting.service.template.PresentationPool;
+import com.example.reporting.service.template.TemplateBytesCache;
+import com.example.reporting.service.template.TemplateCompiler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сборка сервисов без Spring-контекста - единственное место, где бенчмарки
+ * зависят от конструкторов сервисов
+ */
+public final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    public static Path templateDirectory(String templateName, byte[] bytes) throws IOException {
+        Path directory = Files.createTempDirectory("reporting-bench");
+        Files.write(directory.resolve(templateName), bytes);
+        directory.toFile().deleteOnExit();
+        directory.resolve(templateName).toFile().deleteOnExit();
+        return directory;
+    }
+
+    public static TemplateBytesCache templateCache(Path directory) {
+        return new TemplateBytesCache(new DefaultResourceLoader(), directory.toString(),
+            Long.MAX_VALUE, false, Long.MAX_VALUE);
+    }
+
+    public static PptxReaderService readerService(Path directory) {
+        return new PptxReaderService(templateCache(directory), new TemplateCompiler());
+    }
+
+    public static GenerationMetrics metrics() {
+        return new GenerationMetrics(new SimpleMeterRegistry());
+    }
+
+    public static ImagePlaceholderReplacer imageReplacer(boolean preprocessing) {
+        ImageCache imageCache = new ImageCache(256L * 1024 * 1024);
+        return new ImagePlaceholderReplacer(
+            new ImagePreprocessor(imageCache, preprocessing, 150, true, 0.85f));
+    }
+
+    public static PptxModificationService modificationService(Path directory, boolean batchSubstitution,
+                                                              boolean parallelSlides, boolean streamingRewrite) {
+        TemplateBytesCache templateCache = templateCache(directory);
+        TextSubstitutionEngine substitutionEngine = new TextSubstitutionEngine();
+        return new PptxModificationService(
+            List.of(new TextPlaceholderReplacer(substitutionEngine), new InsertPlaceholderReplacer(substitutionEngine), imageReplacer(false),
+                new TablePlaceholderReplacer(), new SlideRepeatReplacer(substitutionEngine), new ChartPlaceholderReplacer()),
+            new PptxReaderService(templateCache, new TemplateCompiler()),
+            substitutionEngine,
+            metrics(),
+            new OoxmlStreamingRewriter(),
+            new IncrementalPackageWriter(true, -1, true),
+            // Без пула: бенчмарк измеряет разбор шаблона на потоке запроса
+            new PresentationPool(templateCache, metrics(), 0, Map.of(), 1),
+            new GenerationAdmissionController(false, 0, 8, Duration.ZERO, 0, Duration.ofSeconds(1)),
+            batchSubstitution,
+            streamingRewrite,
+            parallelSlides,
+            1,
+            0);
+    }
+
+    public static PptxDownloadService downloadService() {
+        return new PptxDownloadService(metrics());
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.reporting.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Запуск бенчмарков с профилированием аллокаций (gc.alloc.rate.norm в отчете).
+ * Аргументы - обычные аргументы командной строки JMH, например "Replacer -f 1 -wi 2".
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        String[] jmhArgs = args.length == 1 ? args[0].trim().split("\\s+") : args;
+
+        new Runner(new OptionsBuilder()
+            .parent(new CommandLineOptions(jmhArgs))
+            .addProfiler(GCProfiler.class)
+            .build())
+            .run();
+    }
+}
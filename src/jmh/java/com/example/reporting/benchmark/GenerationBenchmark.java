@@ -0,0 +1,107 @@
+package com.example.reporting.benchmark;
+
+import com.example.reporting.model.Placeholder;
+import com.example.reporting.model.TemplateData;
+import com.example.reporting.service.PptxDownloadService;
+import com.example.reporting.service.PptxModificationService;
+import com.example.reporting.service.RenderedPresentation;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Полный цикл генерации: modifyPresentation, запись в байты и оба шага вместе.
+ * parallelSlides сравнивает последовательную и параллельную по слайдам замену текста,
+ * streamingRewrite - render через POI DOM и потоковое переписывание шаблона.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GenerationBenchmark {
+
+    private static final String TEMPLATE = "synthetic.pptx";
+
+    @Param({"10", "50", "150"})
+    public int slides;
+
+    @Param({"true"})
+    public boolean batchSubstitution;
+
+    @Param({"false", "true"})
+    public boolean parallelSlides;
+
+    @Param({"false", "true"})
+    public boolean streamingRewrite;
+
+    private PptxModificationService modificationService;
+    private PptxDownloadService downloadService;
+    private TemplateData templateData;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws Exception {
+        byte[] bytes = SyntheticTemplates.create(slides, 6, 4, 0.3, 20, false);
+        Path directory = BenchmarkFixtures.templateDirectory(TEMPLATE, bytes);
+
+        modificationService = BenchmarkFixtures.modificationService(directory, batchSubstitution, parallelSlides, streamingRewrite);
+        downloadService = BenchmarkFixtures.downloadService();
+
+        List<Placeholder> placeholders = new ArrayList<>(SyntheticTemplates.textPlaceholders(20));
+        templateData = TemplateData.builder().templateName(TEMPLATE).placeholders(placeholders).build();
+    }
+
+    @Benchmark
+    public int modifyPresentation() throws Exception {
+        try (XMLSlideShow presentation = modificationService.modifyPresentation(templateData)) {
+            return presentation.getSlides().size();
+        }
+    }
+
+    @Benchmark
+    public byte[] convertToBytes(ModifiedPresentation modified) throws Exception {
+        return downloadService.convertToBytes(modified.presentation, TEMPLATE);
+    }
+
+    @Benchmark
+    public byte[] endToEnd() throws Exception {
+        try (RenderedPresentation presentation = modificationService.render(templateData)) {
+            return downloadService.convertToBytes(presentation, TEMPLATE);
+        }
+    }
+
+    /**
+     * Уже измененная презентация - чтобы convertToBytes измерял только запись
+     */
+    @State(Scope.Thread)
+    public static class ModifiedPresentation {
+        private XMLSlideShow presentation;
+
+        @Setup(Level.Invocation)
+        public void modify(GenerationBenchmark benchmark) throws Exception {
+            presentation = benchmark.modificationService.modifyPresentation(benchmark.templateData);
+        }
+
+        @TearDown(Level.Invocation)
+        public void close() throws Exception {
+            presentation.close();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.reporting.benchmark;
+
+import com.example.reporting.model.ImageData;
+import com.example.reporting.model.Placeholder;
+import com.example.reporting.model.PlaceholderType;
+import com.example.reporting.service.replacer.ImagePlaceholderReplacer;
+import com.example.reporting.service.template.CompiledTemplate;
+import com.example.reporting.service.template.TemplateBytesCache;
+import com.example.reporting.service.template.TemplateCompiler;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Замена плейсхолдера изображения на каждом слайде при разном размере изображения,
+ * с предобработкой под размер плейсхолдера и без нее
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageReplacerBenchmark {
+
+    private static final String TEMPLATE = "synthetic.pptx";
+
+    @Param({"256", "1024", "2048"})
+    public int imageSize;
+
+    @Param({"false", "true"})
+    public boolean preprocessing;
+
+    private ImagePlaceholderReplacer replacer;
+    private CompiledTemplate template;
+    private Placeholder placeholder;
+    private XMLSlideShow presentation;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws Exception {
+        byte[] bytes = SyntheticTemplates.create(20, 2, 2, 0.0, 1, true);
+        Path directory = BenchmarkFixtures.templateDirectory(TEMPLATE, bytes);
+
+        TemplateBytesCache cache = BenchmarkFixtures.templateCache(directory);
+        template = new TemplateCompiler().compile(TEMPLATE, cache.get(TEMPLATE));
+        replacer = BenchmarkFixtures.imageReplacer(preprocessing);
+
+        ImageData image = SyntheticTemplates.image(imageSize);
+        placeholder = Placeholder.builder().key("image").type(PlaceholderType.IMAGE).value(image).build();
+    }
+
+    @Setup(Level.Invocation)
+    public void openPresentation() throws Exception {
+        presentation = template.open();
+    }
+
+    @TearDown(Level.Invocation)
+    public void closePresentation() throws Exception {
+        presentation.close();
+    }
+
+    @Benchmark
+    public XMLSlideShow replaceImage() throws Exception {
+        replacer.replace(presentation, placeholder);
+        return presentation;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.reporting.benchmark;
+
+import com.example.reporting.model.Placeholder;
+import com.example.reporting.model.PlaceholderType;
+import com.example.reporting.service.replacer.InsertPlaceholderReplacer;
+import com.example.reporting.service.replacer.TextPlaceholderReplacer;
+import com.example.reporting.service.replacer.TextSubstitutionEngine;
+import com.example.reporting.service.template.CompiledTemplate;
+import com.example.reporting.service.template.TemplateBytesCache;
+import com.example.reporting.service.template.TemplateCompiler;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Замена текстовых плейсхолдеров: отдельные replacers против одного прохода
+ * {@link TextSubstitutionEngine} при разном числе плейсхолдеров.
+ * Презентация открывается заново перед каждым вызовом, время открытия не измеряется.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReplacerBenchmark {
+
+    private static final String TEMPLATE = "synthetic.pptx";
+
+    @Param({"1", "10", "40", "100"})
+    public int placeholderCount;
+
+    private final TextSubstitutionEngine substitutionEngine = new TextSubstitutionEngine();
+    private final TextPlaceholderReplacer textReplacer = new TextPlaceholderReplacer(substitutionEngine);
+    private final InsertPlaceholderReplacer insertReplacer = new InsertPlaceholderReplacer(substitutionEngine);
+
+    private CompiledTemplate template;
+    private List<Placeholder> placeholders;
+    private XMLSlideShow presentation;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws Exception {
+        // placeholderCount - общее число плейсхолдеров, поровну TEXT и INSERT
+        int keys = Math.max(1, placeholderCount / 2);
+        byte[] bytes = SyntheticTemplates.create(30, 6, 4, 0.3, keys, false);
+        Path directory = BenchmarkFixtures.templateDirectory(TEMPLATE, bytes);
+
+        TemplateBytesCache cache = BenchmarkFixtures.templateCache(directory);
+        template = new TemplateCompiler().compile(TEMPLATE, cache.get(TEMPLATE));
+        placeholders = SyntheticTemplates.textPlaceholders(keys).subList(0, Math.min(placeholderCount, keys * 2));
+    }
+
+    @Setup(Level.Invocation)
+    public void openPresentation() throws Exception {
+        presentation = template.open();
+    }
+
+    @TearDown(Level.Invocation)
+    public void closePresentation() throws Exception {
+        presentation.close();
+    }
+
+    @Benchmark
+    public XMLSlideShow sequentialReplacers() throws Exception {
+        for (Placeholder placeholder : placeholders) {
+            if (placeholder.getType() == PlaceholderType.TEXT) {
+                textReplacer.replace(presentation, placeholder);
+            } else {
+                insertReplacer.replace(presentation, placeholder);
+            }
+        }
+        return presentation;
+    }
+
+    @Benchmark
+    public int batchSubstitution() {
+        return substitutionEngine.substitute(presentation, placeholders);
+    }
+
+    @Benchmark
+    public int indexedBatchSubstitution() {
+        return substitutionEngine.substitute(template.resolveSpans(presentation), placeholders);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.reporting.benchmark;
+
+import com.example.reporting.model.ImageData;
+import com.example.reporting.model.Placeholder;
+import com.example.reporting.model.PlaceholderType;
+import com.example.reporting.util.ImageUtils;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+import org.apache.poi.xslf.usermodel.XSLFTextBox;
+import org.apache.poi.xslf.usermodel.XSLFTextParagraph;
+
+import javax.imageio.ImageIO;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Генерация синтетических шаблонов и данных для бенчмарков
+ */
+public final class SyntheticTemplates {
+
+    private SyntheticTemplates() {
+    }
+
+    /**
+     * @param placeholderDensity доля text run, содержащих плейсхолдеры (0..1)
+     * @param keys               число различных ключей TEXT и INSERT
+     * @param imagePlaceholders  добавить на каждый слайд плейсхолдер {{image}}
+     */
+    public static byte[] create(int slides, int shapesPerSlide, int runsPerShape,
+                                double placeholderDensity, int keys, boolean imagePlaceholders) throws IOException {
+        Random random = new Random(42);
+        try (XMLSlideShow presentation = new XMLSlideShow()) {
+            for (int s = 0; s < slides; s++) {
+                XSLFSlide slide = presentation.createSlide();
+                for (int sh = 0; sh < shapesPerSlide; sh++) {
+                    XSLFTextBox textBox = slide.createTextBox();
+                    textBox.setAnchor(new Rectangle2D.Double(20, 20 + sh * 40, 600, 36));
+                    XSLFTextParagraph paragraph = textBox.addNewTextParagraph();
+                    for (int r = 0; r < runsPerShape; r++) {
+                        String text = random.nextDouble() < placeholderDensity
+                            ? "Значение {{text" + random.nextInt(keys) + "}} и $ins" + random.nextInt(keys) + " "
+                            : "Статический текст шаблона " + r + " ";
+                        paragraph.addNewTextRun().setText(text);
+                    }
+                }
+                if (imagePlaceholders) {
+                    XSLFTextBox imageBox = slide.createTextBox();
+                    imageBox.setAnchor(new Rectangle2D.Double(400, 300, 240, 180));
+                    imageBox.setText("{{image}}");
+                }
+            }
+
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            presentation.write(outputStream);
+            return outputStream.toByteArray();
+        }
+    }
+
+    /**
+     * По keys плейсхолдеров каждого из типов TEXT и INSERT
+     */
+    public static List<Placeholder> textPlaceholders(int keys) {
+        List<Placeholder> placeholders = new ArrayList<>();
+        for (int i = 0; i < keys; i++) {
+            placeholders.add(Placeholder.builder().key("text" + i).type(PlaceholderType.TEXT).value("Текст " + i).build());
+            placeholders.add(Placeholder.builder().key("ins" + i).type(PlaceholderType.INSERT).value("Вставка " + i).build());
+        }
+        return placeholders;
+    }
+
+    public static ImageData image(int size) throws IOException {
+        Random random = new Random(7);
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                // Плавный градиент с шумом - похоже на график, сжимается не идеально
+                image.setRGB(x, y, ((x * 255 / size) << 16) | ((y * 255 / size) << 8) | random.nextInt(32));
+            }
+        }
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", outputStream);
+        return ImageUtils.createImageData(outputStream.toByteArray(), "image/png");
+    }
+}
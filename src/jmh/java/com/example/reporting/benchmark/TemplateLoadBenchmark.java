@@ -0,0 +1,66 @@
+package com.example.reporting.benchmark;
+
+import com.example.reporting.service.PptxReaderService;
+import com.example.reporting.service.template.CompiledTemplate;
+import com.example.reporting.service.template.TemplateBytes;
+import com.example.reporting.service.template.TemplateBytesCache;
+import com.example.reporting.service.template.TemplateCompiler;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Загрузка шаблона: разбор PPTX из кешированных байтов и построение индекса плейсхолдеров
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TemplateLoadBenchmark {
+
+    private static final String TEMPLATE = "synthetic.pptx";
+
+    @Param({"10", "50", "150"})
+    public int slides;
+
+    private PptxReaderService readerService;
+    private TemplateCompiler compiler;
+    private TemplateBytes templateBytes;
+
+    @Setup
+    public void setUp() throws Exception {
+        byte[] bytes = SyntheticTemplates.create(slides, 6, 4, 0.3, 20, false);
+        Path directory = BenchmarkFixtures.templateDirectory(TEMPLATE, bytes);
+
+        TemplateBytesCache cache = BenchmarkFixtures.templateCache(directory);
+        templateBytes = cache.get(TEMPLATE);
+        compiler = new TemplateCompiler();
+        readerService = BenchmarkFixtures.readerService(directory);
+    }
+
+    @Benchmark
+    public int loadTemplate() throws Exception {
+        try (XMLSlideShow presentation = readerService.loadTemplate(TEMPLATE)) {
+            return presentation.getSlides().size();
+        }
+    }
+
+    @Benchmark
+    public CompiledTemplate compileTemplate() throws Exception {
+        return compiler.compile(TEMPLATE, templateBytes);
+    }
+}
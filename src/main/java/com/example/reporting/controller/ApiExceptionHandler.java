@@ -0,0 +1,53 @@
+package com.example.reporting.controller;
+
+import com.example.reporting.exception.GenerationRejectedException;
+import com.example.reporting.exception.InvalidRequestException;
+import com.example.reporting.exception.JobRejectedException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Общие ответы контроллеров на ошибки генерации и заданий.
+ * Остальные исключения обрабатываются Spring по умолчанию (500 с записью в лог).
+ */
+@Slf4j
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    /**
+     * Генерация не допущена по бюджету памяти: 503 с Retry-After
+     */
+    @ExceptionHandler(GenerationRejectedException.class)
+    public ResponseEntity<Void> handleGenerationRejected(GenerationRejectedException e) {
+        log.warn("Generation rejected: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+            .build();
+    }
+
+    /**
+     * Очередь заданий заполнена: 503 с Retry-After
+     */
+    @ExceptionHandler(JobRejectedException.class)
+    public ResponseEntity<Void> handleJobRejected(JobRejectedException e) {
+        log.warn("Report job rejected: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+            .build();
+    }
+
+    /**
+     * Некорректные данные запроса (значения плейсхолдеров, номера слайдов и т.п.): 400 с описанием ошибки
+     */
+    @ExceptionHandler(InvalidRequestException.class)
+    public ResponseEntity<ProblemDetail> handleInvalidRequest(InvalidRequestException e) {
+        log.warn("Invalid request: {}", e.getMessage());
+        return ResponseEntity.badRequest()
+            .body(ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage()));
+    }
+}
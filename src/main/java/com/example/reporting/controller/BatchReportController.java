@@ -0,0 +1,69 @@
+package com.example.reporting.controller;
+
+import com.example.reporting.model.BatchDocument;
+import com.example.reporting.service.report.BatchReportService;
+import com.example.reporting.service.report.InvoiceReportService;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/reports/batch")
+@RequiredArgsConstructor
+public class BatchReportController {
+
+    private final BatchReportService batchReportService;
+    private final InvoiceReportService invoiceReportService;
+
+    @PostMapping("/generate")
+    public ResponseEntity<StreamingResponseBody> generateBatch(@RequestBody List<BatchDocument> documents) {
+        return zipResponse(documents, "reports.zip");
+    }
+
+    @PostMapping("/invoices")
+    public ResponseEntity<StreamingResponseBody> generateInvoices(@RequestBody List<InvoiceRequest> invoices) {
+        List<BatchDocument> documents = invoices.stream()
+            .map(invoice -> invoiceReportService.buildInvoice(
+                invoice.getInvoiceNumber(),
+                invoice.getClientName(),
+                invoice.getClientAddress(),
+                invoice.getDate(),
+                invoice.getProductName(),
+                invoice.getQuantity(),
+                invoice.getPrice(),
+                invoice.getTotal()))
+            .toList();
+        return zipResponse(documents, "invoices.zip");
+    }
+
+    private ResponseEntity<StreamingResponseBody> zipResponse(List<BatchDocument> documents, String filename) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename);
+        headers.setContentType(MediaType.parseMediaType("application/zip"));
+
+        StreamingResponseBody body = outputStream -> batchReportService.writeZip(documents, outputStream);
+        return ResponseEntity.ok()
+            .headers(headers)
+            .body(body);
+    }
+
+    @Data
+    public static class InvoiceRequest {
+        private String invoiceNumber;
+        private String clientName;
+        private String clientAddress;
+        private String date;
+        private String productName;
+        private int quantity;
+        private double price;
+        private double total;
+    }
+}
@@ -1,16 +1,15 @@
 package com.example.reporting.controller;
 
+import com.example.reporting.model.ChartData;
 import com.example.reporting.service.report.MonthlyReportService;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.Resource;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.nio.file.Path;
 
-@Slf4j
 @RestController
 @RequestMapping("/api/reports/monthly")
 @RequiredArgsConstructor
@@ -19,23 +18,21 @@ public class MonthlyReportController {
     private final MonthlyReportService monthlyReportService;
 
     @PostMapping("/generate")
-    public ResponseEntity<Resource> generateMonthlyReport(@RequestBody MonthlyReportRequest request) {
-        try {
-            return monthlyReportService.generateMonthlyReport(
-                request.getMonth(),
-                request.getYear(),
-                request.getCompanyName(),
-                request.getRevenue(),
-                request.getExpenses(),
-                request.getProfit(),
-                request.getLogoPath() != null ? Path.of(request.getLogoPath()) : null,
-                request.getRevenueChartPath() != null ? Path.of(request.getRevenueChartPath()) : null,
-                request.getExpensesChartPath() != null ? Path.of(request.getExpensesChartPath()) : null
-            );
-        } catch (Exception e) {
-            log.error("Error generating monthly report", e);
-            return ResponseEntity.internalServerError().build();
-        }
+    public ResponseEntity<StreamingResponseBody> generateMonthlyReport(@RequestBody MonthlyReportRequest request)
+        throws Exception {
+        return monthlyReportService.generateMonthlyReport(
+            request.getMonth(),
+            request.getYear(),
+            request.getCompanyName(),
+            request.getRevenue(),
+            request.getExpenses(),
+            request.getProfit(),
+            request.getLogoPath() != null ? Path.of(request.getLogoPath()) : null,
+            request.getRevenueChartPath() != null ? Path.of(request.getRevenueChartPath()) : null,
+            request.getExpensesChartPath() != null ? Path.of(request.getExpensesChartPath()) : null,
+            request.getRevenueChart(),
+            request.getExpensesChart()
+        );
     }
 
     @Data
@@ -49,5 +46,8 @@ public class MonthlyReportController {
         private String logoPath;
         private String revenueChartPath;
         private String expensesChartPath;
+        // Данные нативных диаграмм; при их наличии путь к изображению графика не используется
+        private ChartData revenueChart;
+        private ChartData expensesChart;
     }
 }
\ No newline at end of file
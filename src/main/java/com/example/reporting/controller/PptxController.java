@@ -4,12 +4,17 @@ import com.example.reporting.model.TemplateData;
 import com.example.reporting.service.PptxDownloadService;
 import com.example.reporting.service.PptxModificationService;
 import com.example.reporting.service.PptxReaderService;
+import com.example.reporting.service.RenderedPresentation;
+import com.example.reporting.service.preview.SlidePreview;
+import com.example.reporting.service.preview.SlidePreviewService;
+import com.example.reporting.service.report.BaseReportService;
+import com.example.reporting.service.template.TemplateCacheStats;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.xslf.usermodel.XMLSlideShow;
-import org.springframework.core.io.Resource;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -22,6 +27,8 @@ public class PptxController {
     private final PptxReaderService pptxReaderService;
     private final PptxModificationService pptxModificationService;
     private final PptxDownloadService pptxDownloadService;
+    private final BaseReportService baseReportService;
+    private final SlidePreviewService slidePreviewService;
 
     @GetMapping("/placeholders")
     public ResponseEntity<List<String>> getPlaceholders(@RequestParam String templatePath) {
@@ -36,32 +43,40 @@ public class PptxController {
         }
     }
 
-    @PostMapping("/generate")
-    public ResponseEntity<Resource> generatePresentation(@RequestBody TemplateData templateData) {
-        try {
-            XMLSlideShow modifiedPresentation = pptxModificationService.modifyPresentation(templateData);
-
-            String filename = templateData.getTemplateName().replace(".pptx", "") + "_generated.pptx";
-            ResponseEntity<Resource> response = pptxDownloadService.prepareDownload(modifiedPresentation, filename);
+    @GetMapping("/templates/cache-stats")
+    public ResponseEntity<TemplateCacheStats> getTemplateCacheStats() {
+        return ResponseEntity.ok(pptxReaderService.getTemplateCacheStats());
+    }
 
-            modifiedPresentation.close();
-            return response;
-        } catch (Exception e) {
-            log.error("Error generating presentation from template: {}", templateData.getTemplateName(), e);
-            return ResponseEntity.internalServerError().build();
-        }
+    @PostMapping("/generate")
+    public ResponseEntity<StreamingResponseBody> generatePresentation(@RequestBody TemplateData templateData)
+        throws Exception {
+        String filename = templateData.getTemplateName().replace(".pptx", "") + "_generated.pptx";
+        // Через общий сервис отчетов: кеш результата и ETag
+        return baseReportService.generateReport(
+            templateData.getTemplateName(), templateData.getPlaceholders(), filename);
     }
 
     @PostMapping("/modify")
-    public ResponseEntity<byte[]> modifyPresentation(@RequestBody TemplateData templateData) {
-        try {
-            XMLSlideShow modifiedPresentation = pptxModificationService.modifyPresentation(templateData);
-            byte[] bytes = pptxDownloadService.convertToBytes(modifiedPresentation);
-            modifiedPresentation.close();
+    public ResponseEntity<byte[]> modifyPresentation(@RequestBody TemplateData templateData) throws Exception {
+        try (RenderedPresentation modifiedPresentation = pptxModificationService.render(templateData)) {
+            byte[] bytes = pptxDownloadService.convertToBytes(modifiedPresentation, templateData.getTemplateName());
             return ResponseEntity.ok(bytes);
-        } catch (Exception e) {
-            log.error("Error modifying presentation: {}", templateData.getTemplateName(), e);
-            return ResponseEntity.internalServerError().build();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * PNG миниатюры слайдов сгенерированной презентации (номера с 1, по умолчанию все слайды)
+     */
+    @PostMapping("/preview")
+    public ResponseEntity<List<SlidePreview>> previewPresentation(
+        @RequestBody TemplateData templateData,
+        @RequestParam(required = false) List<Integer> slides,
+        @RequestParam(defaultValue = "320") int width
+    ) throws Exception {
+        // Байты результата берутся из кеша готовых презентаций, если он включен
+        byte[] bytes = baseReportService.generateReportBytes(
+            templateData.getTemplateName(), templateData.getPlaceholders());
+        return ResponseEntity.ok(slidePreviewService.render(bytes, slides, width));
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.reporting.controller;
+
+import com.example.reporting.model.TemplateData;
+import com.example.reporting.service.job.JobStatus;
+import com.example.reporting.service.job.ReportJob;
+import com.example.reporting.service.job.ReportJobService;
+import com.example.reporting.service.job.ReportJobStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/jobs")
+@RequiredArgsConstructor
+public class ReportJobController {
+
+    private static final long MAX_WAIT_SECONDS = 60;
+
+    private final ReportJobService reportJobService;
+
+    @PostMapping
+    public ResponseEntity<ReportJobStatus> submitJob(
+        @RequestBody TemplateData templateData,
+        @RequestParam(defaultValue = "0") int priority,
+        @RequestParam(required = false) String filename
+    ) {
+        String outputFilename = filename != null
+            ? filename
+            : templateData.getTemplateName().replace(".pptx", "") + "_generated.pptx";
+        ReportJob job = reportJobService.submit(templateData, outputFilename, priority);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(ReportJobStatus.of(job));
+    }
+
+    /**
+     * Состояние задания. С параметром waitSeconds работает как long-poll:
+     * ответ придет при завершении задания или по истечении ожидания.
+     */
+    @GetMapping("/{jobId}")
+    public DeferredResult<ResponseEntity<ReportJobStatus>> getJob(
+        @PathVariable String jobId,
+        @RequestParam(defaultValue = "0") long waitSeconds
+    ) {
+        Optional<ReportJob> found = reportJobService.find(jobId);
+        if (found.isEmpty()) {
+            DeferredResult<ResponseEntity<ReportJobStatus>> result = new DeferredResult<>();
+            result.setResult(ResponseEntity.notFound().build());
+            return result;
+        }
+
+        ReportJob job = found.get();
+        long waitMillis = Math.min(Math.max(waitSeconds, 0), MAX_WAIT_SECONDS) * 1000;
+        DeferredResult<ResponseEntity<ReportJobStatus>> result = new DeferredResult<>(
+            waitMillis > 0 ? waitMillis : null,
+            () -> ResponseEntity.ok(ReportJobStatus.of(job)));
+
+        if (job.isDone() || waitMillis == 0) {
+            result.setResult(ResponseEntity.ok(ReportJobStatus.of(job)));
+        } else {
+            job.getCompletion().thenAccept(done -> result.setResult(ResponseEntity.ok(ReportJobStatus.of(done))));
+        }
+        return result;
+    }
+
+    @GetMapping("/{jobId}/result")
+    public ResponseEntity<Resource> getJobResult(@PathVariable String jobId) {
+        Optional<ReportJob> found = reportJobService.find(jobId);
+        if (found.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        ReportJob job = found.get();
+        if (job.getStatus() != JobStatus.COMPLETED) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + job.getFilename())
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .contentLength(job.getResultSize())
+            .body(new FileSystemResource(job.getResultPath()));
+    }
+}
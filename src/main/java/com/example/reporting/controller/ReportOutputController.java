@@ -0,0 +1,29 @@
+package com.example.reporting.controller;
+
+import com.example.reporting.service.report.BaseReportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Готовые документы из кеша результата. Генерация идет через POST, где If-None-Match
+ * не применим; ответ генерации ссылается сюда в Content-Location, и повторная загрузка
+ * того же отчета перепроверяется GET-запросом с ETag (304 без генерации и без тела).
+ */
+@RestController
+@RequestMapping(BaseReportService.OUTPUTS_PATH)
+@RequiredArgsConstructor
+public class ReportOutputController {
+
+    private final BaseReportService baseReportService;
+
+    @GetMapping("/{key}")
+    public ResponseEntity<StreamingResponseBody> getOutput(
+        @PathVariable String key,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        return baseReportService.getCachedReport(key, ifNoneMatch);
+    }
+}
@@ -2,14 +2,13 @@ package com.example.reporting.controller;
 
 import com.example.reporting.service.report.WeeklyReportService;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.Map;
 
-@Slf4j
 @RestController
 @RequestMapping("/api/reports/weekly")
 @RequiredArgsConstructor
@@ -18,12 +17,23 @@ public class WeeklyReportController {
     private final WeeklyReportService weeklyReportService;
 
     @PostMapping("/generate")
-    public ResponseEntity<Resource> generateWeeklyReport(@RequestBody Map<String, Object> data) {
-        try {
-            return weeklyReportService.generateWeeklyReport(data);
-        } catch (Exception e) {
-            log.error("Error generating weekly report", e);
-            return ResponseEntity.internalServerError().build();
-        }
+    public ResponseEntity<StreamingResponseBody> generateWeeklyReport(@RequestBody Map<String, Object> data)
+        throws Exception {
+        return weeklyReportService.generateWeeklyReport(data);
+    }
+
+    /**
+     * Безопасный вариант генерации: повторная загрузка с If-None-Match при включенном
+     * кеше результата получает 304 без генерации
+     */
+    @GetMapping("/generate")
+    public ResponseEntity<StreamingResponseBody> getWeeklyReport(
+        @RequestParam(defaultValue = "1") int weekNumber,
+        @RequestParam(defaultValue = "Unknown Project") String projectName,
+        @RequestParam(defaultValue = "0") int tasksCompleted,
+        @RequestParam(defaultValue = "0") int tasksInProgress,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) throws Exception {
+        return weeklyReportService.getWeeklyReport(weekNumber, projectName, tasksCompleted, tasksInProgress, ifNoneMatch);
     }
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.example.reporting.exception;
+
+import lombok.Getter;
+
+/**
+ * Генерация не допущена: лимит одновременных генераций исчерпан и очередь не освободилась вовремя
+ */
+@Getter
+public class GenerationRejectedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public GenerationRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.reporting.exception;
+
+/**
+ * Некорректные данные запроса (значения плейсхолдеров, параметры превью и т.п.).
+ * Контроллеры отвечают на него 400 с текстом сообщения.
+ */
+public class InvalidRequestException extends RuntimeException {
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+
+    public InvalidRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.reporting.exception;
+
+import lombok.Getter;
+
+/**
+ * Задание не принято: очередь заданий заполнена
+ */
+@Getter
+public class JobRejectedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public JobRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
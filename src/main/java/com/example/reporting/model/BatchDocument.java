@@ -0,0 +1,21 @@
+package com.example.reporting.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Один документ пакетной генерации
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchDocument {
+    private String filename;
+    private String templateName;
+    private List<Placeholder> placeholders;
+}
@@ -0,0 +1,32 @@
+package com.example.reporting.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Данные CHART плейсхолдера: категории и ряды значений для диаграммы шаблона.
+ * Значения записываются в XML диаграммы и во встроенную книгу Excel.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChartData {
+    // Заголовок диаграммы; null - оставить заголовок шаблона
+    private String title;
+    private List<String> categories;
+    private List<Series> series;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Series {
+        private String name;
+        private double[] values;
+    }
+}
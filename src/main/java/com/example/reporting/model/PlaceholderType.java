@@ -3,5 +3,8 @@ package com.example.reporting.model;
 public enum PlaceholderType {
     TEXT,      // Полная замена текста {{key}} -> value
     IMAGE,     // Замена на изображение
-    INSERT     // Вставка значения в существующий текст $key -> value
+    INSERT,    // Вставка значения в существующий текст $key -> value
+    TABLE,     // Строка таблицы {{key.column}} копируется на каждую запись
+    REPEAT,    // Слайд с маркером {{#key}} копируется на каждую итерацию
+    CHART      // Данные диаграммы шаблона с именем key или заголовком {{key}}
 }
\ No newline at end of file
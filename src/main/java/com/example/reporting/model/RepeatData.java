@@ -0,0 +1,20 @@
+package com.example.reporting.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Данные REPEAT плейсхолдера: слайд с маркером {{#key}} повторяется для каждой итерации,
+ * в копии подставляются TEXT и INSERT плейсхолдеры этой итерации
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepeatData {
+    private List<List<Placeholder>> iterations;
+}
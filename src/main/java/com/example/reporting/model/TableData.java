@@ -0,0 +1,23 @@
+package com.example.reporting.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Данные TABLE плейсхолдера: по строке таблицы на запись.
+ * Ключ записи - имя колонки из плейсхолдера строки-шаблона {{key.column}}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TableData {
+    private List<Map<String, Object>> rows;
+    // Строк на слайд; 0 - по высоте слайда под таблицей
+    private int rowsPerSlide;
+}
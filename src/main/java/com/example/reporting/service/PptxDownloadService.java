@@ -1,25 +1,33 @@
 package com.example.reporting.service;
 
+import com.example.reporting.service.metrics.GenerationMetrics;
+import com.example.reporting.util.CountingOutputStream;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.xslf.usermodel.XMLSlideShow;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class PptxDownloadService {
 
+    private final GenerationMetrics metrics;
+
     public ResponseEntity<Resource> prepareDownload(XMLSlideShow presentation, String filename) throws IOException {
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        presentation.write(outputStream);
-        byte[] bytes = outputStream.toByteArray();
+        byte[] bytes = convertToBytes(presentation);
 
         ByteArrayResource resource = new ByteArrayResource(bytes);
 
@@ -35,9 +43,104 @@ public class PptxDownloadService {
             .body(resource);
     }
 
+    /**
+     * Готовит ответ, который пишет презентацию прямо в выходной поток сервлета.
+     * Размер заранее неизвестен, поэтому ответ уходит с chunked transfer encoding,
+     * а в куче не создаются промежуточные копии файла.
+     * Презентация закрывается после записи.
+     */
+    public ResponseEntity<StreamingResponseBody> prepareStreamingDownload(
+        XMLSlideShow presentation,
+        String templateName,
+        String filename
+    ) {
+        return prepareStreamingDownload(RenderedPresentation.of(presentation), templateName, filename);
+    }
+
+    /**
+     * То же для презентации из {@link PptxModificationService#render}; закрывается после записи
+     */
+    public ResponseEntity<StreamingResponseBody> prepareStreamingDownload(
+        RenderedPresentation presentation,
+        String templateName,
+        String filename
+    ) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename);
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+
+        StreamingResponseBody body = outputStream -> {
+            try (presentation) {
+                write(presentation, templateName, outputStream);
+                outputStream.flush();
+                log.info("Streamed PPTX file: {}", filename);
+            } catch (IOException | RuntimeException e) {
+                log.error("Error streaming PPTX file: {}", filename, e);
+                throw e;
+            }
+        };
+
+        return ResponseEntity.ok()
+            .headers(headers)
+            .body(body);
+    }
+
+    /**
+     * Отдает уже сгенерированные байты (например, из кеша) с ETag
+     *
+     * @param location адрес, по которому документ можно перепроверить GET-запросом, или null
+     */
+    public ResponseEntity<StreamingResponseBody> prepareDownload(byte[] bytes, String filename, String etag,
+                                                                 String location) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename);
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        if (location != null) {
+            headers.add(HttpHeaders.CONTENT_LOCATION, location);
+        }
+
+        return ResponseEntity.ok()
+            .headers(headers)
+            .eTag(etag)
+            .contentLength(bytes.length)
+            .body(outputStream -> outputStream.write(bytes));
+    }
+
+    /**
+     * Ответ 304: у клиента уже есть документ с этим ETag
+     */
+    public ResponseEntity<StreamingResponseBody> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+            .eTag(etag)
+            .build();
+    }
+
     public byte[] convertToBytes(XMLSlideShow presentation) throws IOException {
+        return convertToBytes(presentation, GenerationMetrics.UNKNOWN_TEMPLATE);
+    }
+
+    public byte[] convertToBytes(XMLSlideShow presentation, String templateName) throws IOException {
+        return convertToBytes(RenderedPresentation.of(presentation), templateName);
+    }
+
+    public byte[] convertToBytes(RenderedPresentation presentation, String templateName) throws IOException {
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        presentation.write(outputStream);
+        write(presentation, templateName, outputStream);
         return outputStream.toByteArray();
     }
+
+    public void write(XMLSlideShow presentation, String templateName, OutputStream outputStream) throws IOException {
+        write(RenderedPresentation.of(presentation), templateName, outputStream);
+    }
+
+    /**
+     * Записывает презентацию в поток, учитывая время записи и размер результата в метриках
+     */
+    public void write(RenderedPresentation presentation, String templateName, OutputStream outputStream)
+        throws IOException {
+        Timer.Sample sample = metrics.start();
+        CountingOutputStream countingStream = new CountingOutputStream(outputStream);
+        presentation.writeTo(countingStream);
+        metrics.recordWrite(sample, templateName, countingStream.getCount());
+    }
 }
\ No newline at end of file
@@ -1,37 +1,197 @@
 package com.example.reporting.service;
 
 import com.example.reporting.model.Placeholder;
+import com.example.reporting.model.PlaceholderType;
 import com.example.reporting.model.TemplateData;
+import com.example.reporting.service.admission.GenerationAdmissionController;
+import com.example.reporting.service.metrics.GenerationMetrics;
 import com.example.reporting.service.replacer.PlaceholderReplacer;
+import com.example.reporting.service.replacer.ReplacerDispatcher;
+import com.example.reporting.service.replacer.TextSubstitutionEngine;
+import com.example.reporting.service.streaming.IncrementalPackageWriter;
+import com.example.reporting.service.streaming.OoxmlStreamingRewriter;
+import com.example.reporting.service.template.CompiledTemplate;
+import com.example.reporting.service.template.PresentationPool;
+import com.example.reporting.service.template.ShapeIndex;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 @Slf4j
 @Service
 public class PptxModificationService {
 
-    private final List<PlaceholderReplacer> replacers;
+    private final ReplacerDispatcher dispatcher;
     private final PptxReaderService pptxReaderService;
+    private final TextSubstitutionEngine substitutionEngine;
+    private final GenerationMetrics metrics;
+    private final OoxmlStreamingRewriter streamingRewriter;
+    private final IncrementalPackageWriter packageWriter;
+    private final PresentationPool presentationPool;
+    private final GenerationAdmissionController admissionController;
+    private final boolean batchSubstitution;
+    private final boolean streamingRewrite;
+    private final int parallelMinSlides;
+    private final ForkJoinPool slidePool;
 
-    public PptxModificationService(List<PlaceholderReplacer> replacers, PptxReaderService pptxReaderService) {
-        this.replacers = replacers;
+    public PptxModificationService(
+        List<PlaceholderReplacer> replacers,
+        PptxReaderService pptxReaderService,
+        TextSubstitutionEngine substitutionEngine,
+        GenerationMetrics metrics,
+        OoxmlStreamingRewriter streamingRewriter,
+        IncrementalPackageWriter packageWriter,
+        PresentationPool presentationPool,
+        GenerationAdmissionController admissionController,
+        @Value("${reporting.modification.batch-substitution:true}") boolean batchSubstitution,
+        @Value("${reporting.modification.streaming-rewrite:true}") boolean streamingRewrite,
+        @Value("${reporting.modification.parallel-slides:false}") boolean parallelSlides,
+        @Value("${reporting.modification.parallel-min-slides:50}") int parallelMinSlides,
+        @Value("${reporting.modification.parallelism:0}") int parallelism
+    ) {
+        this.dispatcher = new ReplacerDispatcher(replacers);
         this.pptxReaderService = pptxReaderService;
+        this.substitutionEngine = substitutionEngine;
+        this.metrics = metrics;
+        this.streamingRewriter = streamingRewriter;
+        this.packageWriter = packageWriter;
+        this.presentationPool = presentationPool;
+        this.admissionController = admissionController;
+        this.batchSubstitution = batchSubstitution;
+        this.streamingRewrite = streamingRewrite;
+        this.parallelMinSlides = parallelMinSlides;
+        this.slidePool = parallelSlides
+            ? new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors())
+            : null;
     }
 
+    @PreDestroy
+    public void shutdown() {
+        if (slidePool != null) {
+            slidePool.shutdownNow();
+        }
+    }
+
+    /**
+     * Готовит презентацию к записи. Если все плейсхолдеры текстовые, шаблон переписывается
+     * потоково при записи, без POI DOM; иначе (например, для IMAGE, которым нужны
+     * структурные изменения) используется {@link #modifyPresentation}.
+     * Шаблон загружается сразу, поэтому его ошибки возникают до начала записи ответа.
+     * Генерация допускается {@link GenerationAdmissionController} по оценке памяти.
+     */
+    public RenderedPresentation render(TemplateData templateData) throws Exception {
+        return render(templateData, false);
+    }
+
+    /**
+     * Как {@link #render(TemplateData)}, но бюджет памяти ожидается без таймаута:
+     * для фоновых заданий, которые при всплеске нагрузки должны дождаться очереди, а не упасть
+     */
+    public RenderedPresentation renderWhenAdmitted(TemplateData templateData) throws Exception {
+        return render(templateData, true);
+    }
+
+    private RenderedPresentation render(TemplateData templateData, boolean waitForCapacity) throws Exception {
+        String templateName = templateData.getTemplateName();
+        Timer.Sample loadSample = metrics.start();
+        CompiledTemplate template = pptxReaderService.getCompiledTemplate(templateName);
+
+        // Бюджет памяти занят до закрытия результата, то есть до конца записи
+        long estimate = admissionController.estimate(template.getBytes().size(), templateData.getPlaceholders());
+        GenerationAdmissionController.Permit permit = waitForCapacity
+            ? admissionController.acquireWaiting(estimate)
+            : admissionController.acquire(estimate);
+        try {
+            return releasingOnClose(render(templateData, template, loadSample), permit);
+        } catch (Exception | Error e) {
+            permit.close();
+            throw e;
+        }
+    }
+
+    private RenderedPresentation render(TemplateData templateData, CompiledTemplate template, Timer.Sample loadSample)
+        throws Exception {
+        String templateName = templateData.getTemplateName();
+        if (streamingRewrite && templateData.getPlaceholders().stream().allMatch(this::isTextual)) {
+            metrics.recordLoad(loadSample, templateName);
+            metrics.recordPlaceholderCount(templateName, templateData.getPlaceholders().size());
+
+            log.info("Prepared streaming rewrite of {} with {} placeholders",
+                templateName, templateData.getPlaceholders().size());
+            return streamingRewriter.prepare(template, templateData.getPlaceholders());
+        }
+
+        // Неизмененные части пакета при записи копируются из шаблона
+        return packageWriter.prepare(modify(templateData, template, loadSample), template.getBytes());
+    }
+
+    /**
+     * Заполняет шаблон через POI DOM. Бюджет памяти {@link GenerationAdmissionController}
+     * занят только на время построения; дальше презентацией владеет вызывающий код и закрывает ее сам.
+     */
     public XMLSlideShow modifyPresentation(TemplateData templateData) throws Exception {
-        XMLSlideShow presentation = pptxReaderService.loadTemplate(templateData.getTemplateName());
-
-        for (Placeholder placeholder : templateData.getPlaceholders()) {
-            PlaceholderReplacer replacer = findReplacer(placeholder);
-            if (replacer != null) {
-                replacer.replace(presentation, placeholder);
-            } else {
-                log.warn("No replacer found for placeholder: {} of type: {}",
-                    placeholder.getKey(), placeholder.getType());
+        Timer.Sample loadSample = metrics.start();
+        CompiledTemplate template = pptxReaderService.getCompiledTemplate(templateData.getTemplateName());
+        try (GenerationAdmissionController.Permit ignored = admissionController.acquire(
+            admissionController.estimate(template.getBytes().size(), templateData.getPlaceholders()))) {
+            return modify(templateData, template, loadSample);
+        }
+    }
+
+    private XMLSlideShow modify(TemplateData templateData, CompiledTemplate template, Timer.Sample loadSample)
+        throws Exception {
+        String templateName = templateData.getTemplateName();
+        XMLSlideShow presentation = presentationPool.acquire(template);
+        // Метрики пишутся только для существующих шаблонов, чтобы не плодить теги
+        metrics.recordLoad(loadSample, templateName);
+        metrics.recordPlaceholderCount(templateName, templateData.getPlaceholders().size());
+
+        try {
+            // Индекс фигур строится один раз и переиспользуется индексом шаблона и всеми replacers
+            ShapeIndex.Scope scope = ShapeIndex.scope(presentation);
+            Map<PlaceholderType, List<Placeholder>> groups = dispatcher.groupByType(templateData.getPlaceholders());
+            if (batchSubstitution) {
+                // TEXT и INSERT заменяются одним проходом, остальные - через replacers
+                List<Placeholder> textual = new ArrayList<>();
+                textual.addAll(groups.getOrDefault(PlaceholderType.TEXT, List.of()));
+                textual.addAll(groups.getOrDefault(PlaceholderType.INSERT, List.of()));
+                groups.remove(PlaceholderType.TEXT);
+                groups.remove(PlaceholderType.INSERT);
+
+                // Индекс шаблона указывает, какие text run вообще содержат плейсхолдеры
+                Timer.Sample replaceSample = metrics.start();
+                if (slidePool != null && presentation.getSlides().size() >= parallelMinSlides) {
+                    substitutionEngine.substituteParallel(template.resolveSpans(scope), textual, slidePool);
+                } else {
+                    substitutionEngine.substitute(template.resolveSpans(scope), textual);
+                }
+                metrics.recordReplace(replaceSample, templateName, "TEXT_INSERT");
             }
+
+            // Каждый replacer получает все плейсхолдеры своего типа одним вызовом.
+            // Выполняется в текущем потоке: изображения регистрируются в общих частях пакета.
+            for (Map.Entry<PlaceholderType, List<Placeholder>> group : groups.entrySet()) {
+                for (Map.Entry<PlaceholderReplacer, List<Placeholder>> assignment
+                    : dispatcher.assign(group.getValue()).entrySet()) {
+                    Timer.Sample replaceSample = metrics.start();
+                    assignment.getKey().replaceAll(scope, assignment.getValue());
+                    metrics.recordReplace(replaceSample, templateName, group.getKey().name());
+                }
+            }
+        } catch (Exception | Error e) {
+            // Недозаполненная копия никому не отдается, поэтому закрывается сразу
+            presentation.close();
+            throw e;
         }
 
         log.info("Successfully modified presentation with {} placeholders",
@@ -39,10 +199,26 @@ public class PptxModificationService {
         return presentation;
     }
 
-    private PlaceholderReplacer findReplacer(Placeholder placeholder) {
-        return replacers.stream()
-            .filter(replacer -> replacer.canHandle(placeholder))
-            .findFirst()
-            .orElse(null);
+    private static RenderedPresentation releasingOnClose(RenderedPresentation presentation,
+                                                         GenerationAdmissionController.Permit permit) {
+        return new RenderedPresentation() {
+            @Override
+            public void writeTo(OutputStream outputStream) throws IOException {
+                presentation.writeTo(outputStream);
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    presentation.close();
+                } finally {
+                    permit.close();
+                }
+            }
+        };
+    }
+
+    private boolean isTextual(Placeholder placeholder) {
+        return placeholder.getType() == PlaceholderType.TEXT || placeholder.getType() == PlaceholderType.INSERT;
     }
-}
\ No newline at end of file
+}
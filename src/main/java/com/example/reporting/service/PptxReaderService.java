@@ -1,59 +1,98 @@
 package com.example.reporting.service;
 
+import com.example.reporting.service.template.CompiledTemplate;
+import com.example.reporting.service.template.ShapeIndex;
+import com.example.reporting.service.template.TemplateBytes;
+import com.example.reporting.service.template.TemplateBytesCache;
+import com.example.reporting.service.template.TemplateCacheStats;
+import com.example.reporting.service.template.TemplateCompiler;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.xslf.usermodel.XMLSlideShow;
-import org.apache.poi.xslf.usermodel.XSLFSlide;
-import org.apache.poi.xslf.usermodel.XSLFShape;
-import org.apache.poi.xslf.usermodel.XSLFTextShape;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.ResourceLoader;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 @Service
 public class PptxReaderService {
 
-    private final ResourceLoader resourceLoader;
+    private final TemplateBytesCache templateBytesCache;
+    private final TemplateCompiler templateCompiler;
+    private final Map<String, Compilation> compiledTemplates = new ConcurrentHashMap<>();
 
-    public PptxReaderService(ResourceLoader resourceLoader) {
-        this.resourceLoader = resourceLoader;
+    public PptxReaderService(TemplateBytesCache templateBytesCache, TemplateCompiler templateCompiler) {
+        this.templateBytesCache = templateBytesCache;
+        this.templateCompiler = templateCompiler;
+        // Вытесненный или измененный шаблон должен быть скомпилирован заново
+        templateBytesCache.addInvalidationListener(compiledTemplates::remove);
     }
 
     public XMLSlideShow loadTemplate(String templatePath) throws IOException {
-        Resource resource = resourceLoader.getResource("classpath:" + templatePath);
-        try (InputStream inputStream = resource.getInputStream()) {
-            return new XMLSlideShow(inputStream);
+        return getCompiledTemplate(templatePath).open();
+    }
+
+    /**
+     * Возвращает шаблон, разобранный и проиндексированный для текущей версии файла.
+     * Компиляция идет вне блокировок карты: в карту кладется незавершенная компиляция,
+     * и параллельные запросы той же версии ждут ее результата, не компилируя шаблон повторно
+     */
+    public CompiledTemplate getCompiledTemplate(String templatePath) throws IOException {
+        TemplateBytes bytes = templateBytesCache.get(templatePath);
+        while (true) {
+            Compilation current = compiledTemplates.get(templatePath);
+            if (current != null && current.version.equals(bytes.getVersion())) {
+                return current.await();
+            }
+
+            Compilation created = new Compilation(bytes.getVersion());
+            boolean owner = current == null
+                ? compiledTemplates.putIfAbsent(templatePath, created) == null
+                : compiledTemplates.replace(templatePath, current, created);
+            if (!owner) {
+                // Другой поток успел начать компиляцию; проверяем ее версию заново
+                continue;
+            }
+
+            try {
+                created.result.complete(templateCompiler.compile(templatePath, bytes));
+            } catch (IOException | RuntimeException e) {
+                // Ошибка не кешируется: следующий запрос попробует снова
+                compiledTemplates.remove(templatePath, created);
+                created.result.completeExceptionally(e);
+            }
+            return created.await();
         }
     }
 
+    public TemplateCacheStats getTemplateCacheStats() {
+        return templateBytesCache.getStats();
+    }
+
     public List<String> extractPlaceholders(XMLSlideShow presentation) {
         List<String> placeholders = new ArrayList<>();
 
-        for (XSLFSlide slide : presentation.getSlides()) {
-            for (XSLFShape shape : slide.getShapes()) {
-                if (shape instanceof XSLFTextShape) {
-                    XSLFTextShape textShape = (XSLFTextShape) shape;
-                    String text = textShape.getText();
-
-                    if (text != null && text.contains("{{") && text.contains("}}")) {
-                        int start = 0;
-                        while ((start = text.indexOf("{{", start)) != -1) {
-                            int end = text.indexOf("}}", start);
-                            if (end != -1) {
-                                String placeholder = text.substring(start + 2, end).trim();
-                                if (!placeholders.contains(placeholder)) {
-                                    placeholders.add(placeholder);
-                                }
-                                start = end + 2;
-                            } else {
-                                break;
-                            }
+        // Группы, ячейки таблиц, заметки и макеты тоже могут содержать плейсхолдеры
+        for (ShapeIndex.Entry entry : ShapeIndex.of(presentation).getEntries()) {
+            String text = entry.getShape().getText();
+
+            if (text != null && text.contains("{{") && text.contains("}}")) {
+                int start = 0;
+                while ((start = text.indexOf("{{", start)) != -1) {
+                    int end = text.indexOf("}}", start);
+                    if (end != -1) {
+                        String placeholder = text.substring(start + 2, end).trim();
+                        if (!placeholders.contains(placeholder)) {
+                            placeholders.add(placeholder);
                         }
+                        start = end + 2;
+                    } else {
+                        break;
                     }
                 }
             }
@@ -62,4 +101,30 @@ public class PptxReaderService {
         log.info("Found {} placeholders in template", placeholders.size());
         return placeholders;
     }
-}
\ No newline at end of file
+
+    /**
+     * Компиляция версии шаблона, завершенная или выполняющаяся в другом потоке
+     */
+    private static final class Compilation {
+        private final String version;
+        private final CompletableFuture<CompiledTemplate> result = new CompletableFuture<>();
+
+        private Compilation(String version) {
+            this.version = version;
+        }
+
+        private CompiledTemplate await() throws IOException {
+            try {
+                return result.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof IOException io) {
+                    throw io;
+                }
+                if (e.getCause() instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                throw e;
+            }
+        }
+    }
+}
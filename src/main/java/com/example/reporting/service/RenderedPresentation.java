@@ -0,0 +1,30 @@
+package com.example.reporting.service;
+
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Готовая к записи презентация: измененный POI DOM или шаблон, который
+ * переписывается потоково при записи (см. {@link PptxModificationService#render})
+ */
+public interface RenderedPresentation extends Closeable {
+
+    void writeTo(OutputStream outputStream) throws IOException;
+
+    static RenderedPresentation of(XMLSlideShow presentation) {
+        return new RenderedPresentation() {
+            @Override
+            public void writeTo(OutputStream outputStream) throws IOException {
+                presentation.write(outputStream);
+            }
+
+            @Override
+            public void close() throws IOException {
+                presentation.close();
+            }
+        };
+    }
+}
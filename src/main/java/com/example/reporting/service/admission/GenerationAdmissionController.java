@@ -0,0 +1,172 @@
+package com.example.reporting.service.admission;
+
+import com.example.reporting.exception.GenerationRejectedException;
+import com.example.reporting.model.ImageData;
+import com.example.reporting.model.Placeholder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ограничение одновременных генераций по оценке занимаемой памяти.
+ * Каждая генерация берет из общего бюджета (семафор в килобайтах) размер шаблона,
+ * умноженный на output-factor, плюс байты изображений. Если бюджета не хватает,
+ * запрос ждет в очереди не дольше queue-timeout; при переполнении очереди или по таймауту
+ * выбрасывается {@link GenerationRejectedException}, который контроллеры отдают как 503.
+ */
+@Slf4j
+@Component
+public class GenerationAdmissionController {
+
+    private static final Permit NO_PERMIT = new Permit(null, 0);
+
+    private final boolean enabled;
+    private final int capacityKb;
+    private final double outputFactor;
+    private final long queueTimeoutMillis;
+    private final int maxQueued;
+    private final long retryAfterSeconds;
+
+    private final Semaphore budget;
+    private final AtomicInteger queued = new AtomicInteger();
+
+    public GenerationAdmissionController(
+        @Value("${reporting.admission.enabled:true}") boolean enabled,
+        @Value("${reporting.admission.max-memory-bytes:0}") long maxMemoryBytes,
+        @Value("${reporting.admission.output-factor:8}") double outputFactor,
+        @Value("${reporting.admission.queue-timeout:PT10S}") Duration queueTimeout,
+        @Value("${reporting.admission.max-queued:50}") int maxQueued,
+        @Value("${reporting.admission.retry-after:PT5S}") Duration retryAfter
+    ) {
+        this.enabled = enabled;
+        long capacity = maxMemoryBytes > 0 ? maxMemoryBytes : Runtime.getRuntime().maxMemory() / 2;
+        this.capacityKb = (int) Math.min(Integer.MAX_VALUE, Math.max(1, capacity / 1024));
+        this.outputFactor = outputFactor;
+        this.queueTimeoutMillis = queueTimeout.toMillis();
+        this.maxQueued = maxQueued;
+        this.retryAfterSeconds = Math.max(1, retryAfter.toSeconds());
+        // Справедливый порядок: крупная генерация не голодает за потоком мелких
+        this.budget = new Semaphore(capacityKb, true);
+    }
+
+    /**
+     * Оценка памяти генерации: разобранный шаблон и результат плюс изображения
+     */
+    public long estimate(long templateBytes, List<Placeholder> placeholders) {
+        long estimate = (long) (templateBytes * outputFactor);
+        for (Placeholder placeholder : placeholders) {
+            if (placeholder.getValue() instanceof ImageData image && image.getImageBytes() != null) {
+                estimate += image.getImageBytes().length;
+            }
+        }
+        return estimate;
+    }
+
+    /**
+     * Оценка памяти рендеринга миниатюр: каждая одновременно разобранная копия презентации
+     * плюс растры, которые рисуются в памяти
+     */
+    public long estimatePreview(long presentationBytes, int copies, long rasterBytes) {
+        return (long) (presentationBytes * outputFactor) * copies + rasterBytes;
+    }
+
+    /**
+     * Занимает бюджет под генерацию; его нужно вернуть закрытием разрешения
+     *
+     * @throws GenerationRejectedException если бюджет не освободился за queue-timeout или очередь полна
+     */
+    public Permit acquire(long estimatedBytes) {
+        if (!enabled) {
+            return NO_PERMIT;
+        }
+
+        int cost = cost(estimatedBytes);
+        if (budget.tryAcquire(cost)) {
+            return new Permit(budget, cost);
+        }
+
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            throw reject("Generation queue is full (" + maxQueued + ")");
+        }
+        try {
+            if (budget.tryAcquire(cost, queueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                return new Permit(budget, cost);
+            }
+            throw reject("Timed out waiting for generation capacity");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw reject("Interrupted while waiting for generation capacity");
+        } finally {
+            queued.decrementAndGet();
+        }
+    }
+
+    /**
+     * Занимает бюджет, ожидая его без таймаута и вне лимита очереди. Для фоновых заданий:
+     * их число уже ограничено пулом, а отказ по таймауту терял бы принятое задание.
+     *
+     * @throws GenerationRejectedException только если поток прерван во время ожидания
+     */
+    public Permit acquireWaiting(long estimatedBytes) {
+        if (!enabled) {
+            return NO_PERMIT;
+        }
+
+        int cost = cost(estimatedBytes);
+        try {
+            budget.acquire(cost);
+            return new Permit(budget, cost);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw reject("Interrupted while waiting for generation capacity");
+        }
+    }
+
+    public int getAvailableKb() {
+        return budget.availablePermits();
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+
+    private int cost(long estimatedBytes) {
+        // Генерация больше всего бюджета выполняется, когда остальные завершатся
+        return (int) Math.min(capacityKb, Math.max(1, estimatedBytes / 1024));
+    }
+
+    private GenerationRejectedException reject(String message) {
+        log.warn("Generation rejected: {}", message);
+        return new GenerationRejectedException(message, retryAfterSeconds);
+    }
+
+    /**
+     * Занятая часть бюджета; повторное закрытие ничего не делает
+     */
+    public static final class Permit implements Closeable {
+        private final Semaphore budget;
+        private final int cost;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Semaphore budget, int cost) {
+            this.budget = budget;
+            this.cost = cost;
+        }
+
+        @Override
+        public void close() {
+            if (budget != null && released.compareAndSet(false, true)) {
+                budget.release(cost);
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.reporting.service.cache;
+
+import lombok.Value;
+
+/**
+ * Готовый документ и его ETag (хеш содержимого)
+ */
+@Value
+public class CachedOutput {
+    byte[] bytes;
+    String etag;
+}
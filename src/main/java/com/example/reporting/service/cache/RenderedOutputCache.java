@@ -0,0 +1,275 @@
+package com.example.reporting.service.cache;
+
+import com.example.reporting.model.ImageData;
+import com.example.reporting.model.Placeholder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Кеш готовых презентаций. Ключ - хеш версии шаблона и содержимого плейсхолдеров
+ * (включая байты изображений), поэтому одинаковый запрос к неизменному шаблону
+ * не генерируется повторно. В памяти хранятся последние использованные результаты
+ * (LRU по суммарному размеру), вытесненные сбрасываются на локальный диск,
+ * который ограничен отдельным лимитом.
+ * Для каждого результата хранится ETag - хеш содержимого; вывод детерминирован,
+ * поэтому ETag совпадает и для результата, сгенерированного заново.
+ */
+@Slf4j
+@Component
+public class RenderedOutputCache {
+
+    private static final String FILE_EXTENSION = ".pptx";
+    // Подкаталог, которым владеет кеш: при старте очищается только он, а не весь настроенный каталог
+    static final String OWNED_DIRECTORY = "rendered-outputs";
+    private static final Pattern KEY_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    private final boolean enabled;
+    private final long maxMemoryBytes;
+    private final long maxEntryBytes;
+    private final Path directory;
+    private final long maxDiskBytes;
+
+    private final LinkedHashMap<String, CachedOutput> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, DiskEntry> disk = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryBytes;
+    private long diskBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public RenderedOutputCache(
+        @Value("${reporting.output.cache.enabled:false}") boolean enabled,
+        @Value("${reporting.output.cache.max-bytes:67108864}") long maxMemoryBytes,
+        @Value("${reporting.output.cache.max-entry-bytes:4194304}") long maxEntryBytes,
+        @Value("${reporting.output.cache.directory:${java.io.tmpdir}/reporting-output-cache}") Path directory,
+        @Value("${reporting.output.cache.disk-max-bytes:536870912}") long maxDiskBytes
+    ) throws IOException {
+        this.enabled = enabled;
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.maxEntryBytes = maxEntryBytes;
+        this.directory = directory.resolve(OWNED_DIRECTORY);
+        this.maxDiskBytes = maxDiskBytes;
+
+        if (enabled && maxDiskBytes > 0) {
+            Files.createDirectories(this.directory);
+            // Файлы прошлого запуска не учтены в лимите, поэтому удаляются
+            try (Stream<Path> files = Files.list(this.directory)) {
+                files.filter(file -> file.toString().endsWith(FILE_EXTENSION)).forEach(this::deleteQuietly);
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Документы больше этого размера не кешируются
+     */
+    public long getMaxEntryBytes() {
+        return maxEntryBytes;
+    }
+
+    /**
+     * Стабильный ключ результата: одинаков для одинаковых шаблона и данных
+     * независимо от экземпляров объектов
+     */
+    public String key(String templatePath, String templateVersion, List<Placeholder> placeholders) {
+        MessageDigest digest = sha256();
+        update(digest, templatePath.getBytes(StandardCharsets.UTF_8));
+        update(digest, templateVersion.getBytes(StandardCharsets.UTF_8));
+        for (Placeholder placeholder : placeholders) {
+            update(digest, String.valueOf(placeholder.getKey()).getBytes(StandardCharsets.UTF_8));
+            update(digest, String.valueOf(placeholder.getType()).getBytes(StandardCharsets.UTF_8));
+            if (placeholder.getValue() instanceof ImageData image) {
+                update(digest, String.valueOf(image.getPictureType()).getBytes(StandardCharsets.UTF_8));
+                update(digest, image.getImageBytes() != null ? image.getImageBytes() : new byte[0]);
+            } else {
+                update(digest, String.valueOf(placeholder.getValue()).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Ключи - hex SHA-256; другие строки, например из URL, не могут быть ключом кеша
+     */
+    public static boolean isKey(String key) {
+        return key != null && KEY_PATTERN.matcher(key).matches();
+    }
+
+    /**
+     * ETag закешированного результата без чтения его содержимого
+     */
+    public synchronized Optional<String> etag(String key) {
+        CachedOutput output = memory.get(key);
+        if (output != null) {
+            return Optional.of(output.getEtag());
+        }
+        DiskEntry entry = disk.get(key);
+        return entry != null ? Optional.of(entry.etag) : Optional.empty();
+    }
+
+    public Optional<CachedOutput> get(String key) {
+        DiskEntry entry;
+        synchronized (this) {
+            CachedOutput output = memory.get(key);
+            if (output != null) {
+                hits.incrementAndGet();
+                return Optional.of(output);
+            }
+            entry = disk.get(key);
+        }
+
+        if (entry != null) {
+            try {
+                byte[] bytes = Files.readAllBytes(file(key));
+                hits.incrementAndGet();
+                return Optional.of(new CachedOutput(bytes, entry.etag));
+            } catch (IOException e) {
+                log.warn("Could not read cached output {}", key, e);
+                synchronized (this) {
+                    if (disk.remove(key) != null) {
+                        diskBytes -= entry.size;
+                    }
+                }
+            }
+        }
+        misses.incrementAndGet();
+        return Optional.empty();
+    }
+
+    /**
+     * Сохраняет результат и возвращает его вместе с ETag; результат больше max-entry-bytes не сохраняется
+     */
+    public CachedOutput put(String key, byte[] bytes) {
+        CachedOutput output = new CachedOutput(bytes, etagOf(bytes));
+        if (bytes.length > maxEntryBytes) {
+            return output;
+        }
+        List<Map.Entry<String, CachedOutput>> spilled = new ArrayList<>();
+        synchronized (this) {
+            if (bytes.length <= maxMemoryBytes) {
+                CachedOutput previous = memory.put(key, output);
+                memoryBytes += bytes.length - (previous != null ? previous.getBytes().length : 0);
+                Iterator<Map.Entry<String, CachedOutput>> iterator = memory.entrySet().iterator();
+                while (memoryBytes > maxMemoryBytes && iterator.hasNext()) {
+                    Map.Entry<String, CachedOutput> eldest = iterator.next();
+                    iterator.remove();
+                    memoryBytes -= eldest.getValue().getBytes().length;
+                    spilled.add(eldest);
+                }
+            } else {
+                spilled.add(Map.entry(key, output));
+            }
+        }
+
+        // Запись на диск - вне блокировки
+        for (Map.Entry<String, CachedOutput> entry : spilled) {
+            spill(entry.getKey(), entry.getValue());
+        }
+        return output;
+    }
+
+    /**
+     * Сильный ETag по содержимому документа
+     */
+    public static String etagOf(byte[] bytes) {
+        return "\"" + HexFormat.of().formatHex(sha256().digest(bytes)) + "\"";
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    private void spill(String key, CachedOutput output) {
+        byte[] bytes = output.getBytes();
+        if (maxDiskBytes <= 0 || bytes.length > maxDiskBytes) {
+            return;
+        }
+        try {
+            Files.write(file(key), bytes);
+        } catch (IOException e) {
+            log.warn("Could not spill cached output {} to disk", key, e);
+            return;
+        }
+
+        List<String> evicted = new ArrayList<>();
+        synchronized (this) {
+            DiskEntry previous = disk.put(key, new DiskEntry(bytes.length, output.getEtag()));
+            diskBytes += bytes.length - (previous != null ? previous.size : 0);
+            Iterator<Map.Entry<String, DiskEntry>> iterator = disk.entrySet().iterator();
+            while (diskBytes > maxDiskBytes && iterator.hasNext()) {
+                Map.Entry<String, DiskEntry> eldest = iterator.next();
+                if (eldest.getKey().equals(key)) {
+                    continue;
+                }
+                iterator.remove();
+                diskBytes -= eldest.getValue().size;
+                evicted.add(eldest.getKey());
+            }
+        }
+        for (String evictedKey : evicted) {
+            deleteQuietly(file(evictedKey));
+        }
+    }
+
+    private Path file(String key) {
+        return directory.resolve(key + FILE_EXTENSION);
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete cached output: {}", path, e);
+        }
+    }
+
+    private static void update(MessageDigest digest, byte[] bytes) {
+        // Длина перед значением: границы полей не могут совпасть у разных наборов данных
+        digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+        digest.update(bytes);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class DiskEntry {
+        private final long size;
+        private final String etag;
+
+        private DiskEntry(long size, String etag) {
+            this.size = size;
+            this.etag = etag;
+        }
+    }
+}
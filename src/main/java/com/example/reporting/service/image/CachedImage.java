@@ -0,0 +1,33 @@
+package com.example.reporting.service.image;
+
+import com.example.reporting.model.ImageData;
+import com.example.reporting.util.ImageUtils;
+import lombok.Value;
+import org.apache.poi.sl.usermodel.PictureData;
+
+/**
+ * Изображение и хеш его содержимого.
+ * Хеш считается один раз и служит ключом и для дедупликации в презентации, и для {@link ImageCache}.
+ */
+@Value
+public class CachedImage {
+    String hash;
+    ImageData image;
+
+    /**
+     * Изображение запроса с форматом, определенным по сигнатуре файла
+     * (content type запроса может не соответствовать содержимому)
+     */
+    public static CachedImage of(ImageData imageData) {
+        String hash = ImageUtils.contentHash(imageData.getImageBytes());
+        PictureData.PictureType detected = ImageUtils.detectPictureType(imageData.getImageBytes());
+        if (detected == null || detected == imageData.getPictureType()) {
+            return new CachedImage(hash, imageData);
+        }
+        return new CachedImage(hash, ImageData.builder()
+            .imageBytes(imageData.getImageBytes())
+            .contentType(imageData.getContentType())
+            .pictureType(detected)
+            .build());
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.reporting.service.image;
+
+import com.example.reporting.model.ImageData;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Общий для всех запросов LRU-кеш изображений, подогнанных {@link ImagePreprocessor} под плейсхолдер.
+ * Ключ - хеш исходного содержимого и параметры подгонки, поэтому один и тот же логотип
+ * или график, пришедший в разных запросах, масштабируется и перекодируется один раз.
+ * Исходные изображения запросов здесь не хранятся.
+ */
+@Component
+public class ImageCache {
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, ImageData> images = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    public ImageCache(@Value("${reporting.images.cache.max-bytes:33554432}") long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public synchronized ImageData get(String key) {
+        return images.get(key);
+    }
+
+    /**
+     * Кладет изображение в кеш; изображения больше лимита не кешируются
+     */
+    public synchronized ImageData put(String key, ImageData imageData) {
+        int size = imageData.getImageBytes().length;
+        if (size > maxBytes) {
+            return imageData;
+        }
+
+        ImageData previous = images.put(key, imageData);
+        if (previous != null) {
+            totalBytes -= previous.getImageBytes().length;
+        }
+        totalBytes += size;
+
+        Iterator<Map.Entry<String, ImageData>> iterator = images.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, ImageData> eldest = iterator.next();
+            iterator.remove();
+            totalBytes -= eldest.getValue().getImageBytes().length;
+        }
+        return imageData;
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.reporting.service.image;
+
+import com.example.reporting.model.ImageData;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.sl.usermodel.PictureData;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Подготовка изображения под размер плейсхолдера.
+ * Изображение уменьшается до размера anchor при заданном DPI и при возможности
+ * перекодируется в JPEG. Результат кешируется в {@link ImageCache}.
+ */
+@Slf4j
+@Component
+public class ImagePreprocessor {
+
+    private static final double POINTS_PER_INCH = 72.0;
+
+    /**
+     * Отметка в кеше "подгонка не уменьшает файл": исходные байты запроса в кеше не удерживаются
+     */
+    private static final ImageData UNCHANGED = ImageData.builder().imageBytes(new byte[0]).build();
+
+    private final ImageCache imageCache;
+    private final boolean enabled;
+    private final int dpi;
+    private final boolean jpegAllowed;
+    private final float jpegQuality;
+
+    public ImagePreprocessor(
+        ImageCache imageCache,
+        @Value("${reporting.images.preprocessing.enabled:false}") boolean enabled,
+        @Value("${reporting.images.preprocessing.dpi:150}") int dpi,
+        @Value("${reporting.images.preprocessing.jpeg-allowed:true}") boolean jpegAllowed,
+        @Value("${reporting.images.preprocessing.jpeg-quality:0.85}") float jpegQuality
+    ) {
+        this.imageCache = imageCache;
+        this.enabled = enabled;
+        this.dpi = dpi;
+        this.jpegAllowed = jpegAllowed;
+        this.jpegQuality = jpegQuality;
+    }
+
+    /**
+     * Возвращает изображение, подогнанное под anchor (в пунктах), или исходное,
+     * если обработка выключена или не уменьшает файл
+     */
+    public CachedImage fit(CachedImage image, Rectangle2D anchor) {
+        if (!enabled || anchor == null || anchor.getWidth() <= 0 || anchor.getHeight() <= 0) {
+            return image;
+        }
+
+        int targetWidth = (int) Math.ceil(anchor.getWidth() / POINTS_PER_INCH * dpi);
+        int targetHeight = (int) Math.ceil(anchor.getHeight() / POINTS_PER_INCH * dpi);
+        String key = String.format("%s:%dx%d:%s:%.2f", image.getHash(), targetWidth, targetHeight, jpegAllowed, jpegQuality);
+
+        ImageData cached = imageCache.get(key);
+        if (cached == null) {
+            ImageData processed = process(image.getImage(), targetWidth, targetHeight);
+            cached = imageCache.put(key, processed == image.getImage() ? UNCHANGED : processed);
+        }
+
+        if (cached == UNCHANGED) {
+            return image;
+        }
+        return new CachedImage(key, cached);
+    }
+
+    private ImageData process(ImageData imageData, int targetWidth, int targetHeight) {
+        try {
+            BufferedImage source = ImageIO.read(new ByteArrayInputStream(imageData.getImageBytes()));
+            if (source == null) {
+                return imageData;
+            }
+
+            // Масштаб выбирается так, чтобы по обеим осям сохранить не меньше заданного DPI
+            double scale = Math.min(1.0, Math.max(
+                (double) targetWidth / source.getWidth(),
+                (double) targetHeight / source.getHeight()));
+            BufferedImage scaled = scale < 1.0
+                ? scale(source, (int) Math.ceil(source.getWidth() * scale), (int) Math.ceil(source.getHeight() * scale))
+                : source;
+
+            boolean asJpeg = jpegAllowed && !scaled.getColorModel().hasAlpha();
+            byte[] encoded = asJpeg ? encodeJpeg(scaled) : encodePng(scaled);
+            if (encoded.length >= imageData.getImageBytes().length) {
+                return imageData;
+            }
+
+            log.info("Preprocessed image {}x{} -> {}x{} ({}), {} -> {} bytes",
+                source.getWidth(), source.getHeight(), scaled.getWidth(), scaled.getHeight(),
+                asJpeg ? "jpeg" : "png", imageData.getImageBytes().length, encoded.length);
+
+            return ImageData.builder()
+                .imageBytes(encoded)
+                .contentType(asJpeg ? "image/jpeg" : "image/png")
+                .pictureType(asJpeg ? PictureData.PictureType.JPEG : PictureData.PictureType.PNG)
+                .build();
+        } catch (IOException e) {
+            log.warn("Image preprocessing failed, using original image", e);
+            return imageData;
+        }
+    }
+
+    /**
+     * Уменьшение в несколько шагов (не больше чем вдвое за шаг) - билинейная
+     * интерполяция за один шаг сильно теряет качество на больших коэффициентах
+     */
+    private BufferedImage scale(BufferedImage source, int width, int height) {
+        int type = source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = source;
+        int currentWidth = source.getWidth();
+        int currentHeight = source.getHeight();
+
+        do {
+            currentWidth = Math.max(width, currentWidth / 2);
+            currentHeight = Math.max(height, currentHeight / 2);
+
+            BufferedImage step = new BufferedImage(currentWidth, currentHeight, type);
+            Graphics2D graphics = step.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = step;
+        } while (currentWidth > width || currentHeight > height);
+
+        return current;
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ImageOutputStream imageOutput = ImageIO.createImageOutputStream(outputStream)) {
+            writer.setOutput(imageOutput);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return outputStream.toByteArray();
+    }
+
+    private byte[] encodePng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", outputStream);
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.reporting.service.job;
+
+public enum JobStatus {
+    QUEUED,     // Ожидает в очереди
+    RUNNING,    // Генерируется
+    COMPLETED,  // Результат готов к скачиванию
+    FAILED      // Генерация завершилась ошибкой
+}
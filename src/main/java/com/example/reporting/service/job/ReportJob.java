@@ -0,0 +1,62 @@
+package com.example.reporting.service.job;
+
+import com.example.reporting.model.TemplateData;
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Задание на асинхронную генерацию отчета
+ */
+@Getter
+public class ReportJob {
+
+    private final String id;
+    private final TemplateData templateData;
+    private final String filename;
+    private final int priority;
+    private final long sequence;
+    private final Instant submittedAt = Instant.now();
+    private final CompletableFuture<ReportJob> completion = new CompletableFuture<>();
+
+    private volatile JobStatus status = JobStatus.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant completedAt;
+    private volatile Path resultPath;
+    private volatile long resultSize;
+    private volatile String error;
+
+    ReportJob(String id, TemplateData templateData, String filename, int priority, long sequence) {
+        this.id = id;
+        this.templateData = templateData;
+        this.filename = filename;
+        this.priority = priority;
+        this.sequence = sequence;
+    }
+
+    void markRunning() {
+        startedAt = Instant.now();
+        status = JobStatus.RUNNING;
+    }
+
+    void markCompleted(Path resultPath, long resultSize) {
+        this.resultPath = resultPath;
+        this.resultSize = resultSize;
+        completedAt = Instant.now();
+        status = JobStatus.COMPLETED;
+        completion.complete(this);
+    }
+
+    void markFailed(String error) {
+        this.error = error;
+        completedAt = Instant.now();
+        status = JobStatus.FAILED;
+        completion.complete(this);
+    }
+
+    public boolean isDone() {
+        return status == JobStatus.COMPLETED || status == JobStatus.FAILED;
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.reporting.service.job;
+
+import com.example.reporting.exception.JobRejectedException;
+import com.example.reporting.model.TemplateData;
+import com.example.reporting.service.PptxDownloadService;
+import com.example.reporting.service.PptxModificationService;
+import com.example.reporting.service.RenderedPresentation;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Асинхронная генерация отчетов.
+ * Задания ждут в ограниченной очереди с приоритетами и выполняются на отдельном пуле,
+ * результаты сохраняются на локальный диск и удаляются по истечении TTL.
+ */
+@Slf4j
+@Service
+public class ReportJobService {
+
+    private static final Pattern RESULT_FILE = Pattern.compile(
+        "[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}\\.pptx");
+
+    private final PptxModificationService modificationService;
+    private final PptxDownloadService downloadService;
+    private final Path resultDirectory;
+    private final int queueCapacity;
+    private final Duration resultTtl;
+    private final long retryAfterSeconds;
+    // Места в очереди: занимаются при постановке и освобождаются, когда задание начинает выполняться
+    private final Semaphore queueSlots;
+
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService cleaner;
+    private final Map<String, ReportJob> jobs = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    public ReportJobService(
+        PptxModificationService modificationService,
+        PptxDownloadService downloadService,
+        @Value("${reporting.jobs.directory:${java.io.tmpdir}/reporting-jobs}") Path resultDirectory,
+        @Value("${reporting.jobs.threads:2}") int threads,
+        @Value("${reporting.jobs.queue-capacity:100}") int queueCapacity,
+        @Value("${reporting.jobs.result-ttl:PT1H}") Duration resultTtl,
+        @Value("${reporting.jobs.retry-after-seconds:5}") long retryAfterSeconds
+    ) throws IOException {
+        this.modificationService = modificationService;
+        this.downloadService = downloadService;
+        this.resultDirectory = Files.createDirectories(resultDirectory);
+        // Результаты прошлого запуска недоступны (задания жили в памяти), поэтому удаляются;
+        // трогаем только файлы с именами заданий, а не весь настроенный каталог
+        try (Stream<Path> files = Files.list(this.resultDirectory)) {
+            files.filter(file -> RESULT_FILE.matcher(file.getFileName().toString()).matches())
+                .forEach(this::deleteQuietly);
+        }
+        this.queueCapacity = queueCapacity;
+        this.resultTtl = resultTtl;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.queueSlots = new Semaphore(queueCapacity);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new PriorityBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "report-job-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+        this.cleaner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "report-job-cleaner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long cleanupPeriod = Math.max(1, Math.min(resultTtl.toSeconds(), 60));
+        cleaner.scheduleWithFixedDelay(this::removeExpired, cleanupPeriod, cleanupPeriod, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Ставит задание в очередь
+     *
+     * @param priority чем больше, тем раньше задание будет выполнено
+     * @throws JobRejectedException если очередь заполнена
+     */
+    public ReportJob submit(TemplateData templateData, String filename, int priority) {
+        // Проверка и занятие места атомарны, поэтому параллельные вызовы не превышают лимит очереди
+        if (!queueSlots.tryAcquire()) {
+            throw new JobRejectedException("Report job queue is full (" + queueCapacity + ")", retryAfterSeconds);
+        }
+
+        ReportJob job = new ReportJob(UUID.randomUUID().toString(), templateData, filename,
+            priority, sequence.incrementAndGet());
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(new PrioritizedTask(job));
+        } catch (RejectedExecutionException e) {
+            queueSlots.release();
+            jobs.remove(job.getId());
+            throw new JobRejectedException("Report job service is shut down", retryAfterSeconds);
+        }
+
+        log.info("Submitted report job {} for template: {}, priority: {}",
+            job.getId(), templateData.getTemplateName(), priority);
+        return job;
+    }
+
+    public Optional<ReportJob> find(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        cleaner.shutdownNow();
+    }
+
+    private void run(ReportJob job) {
+        job.markRunning();
+        Path resultPath = resultDirectory.resolve(job.getId() + ".pptx");
+
+        // Принятое задание ждет бюджет памяти, а не падает по таймауту допуска при всплеске запросов
+        try (RenderedPresentation presentation = modificationService.renderWhenAdmitted(job.getTemplateData());
+             OutputStream outputStream = Files.newOutputStream(resultPath)) {
+            downloadService.write(presentation, job.getTemplateData().getTemplateName(), outputStream);
+        } catch (Exception e) {
+            log.error("Report job {} failed", job.getId(), e);
+            deleteQuietly(resultPath);
+            job.markFailed(e.getMessage());
+            return;
+        }
+
+        try {
+            job.markCompleted(resultPath, Files.size(resultPath));
+            log.info("Report job {} completed, size: {} bytes", job.getId(), job.getResultSize());
+        } catch (IOException e) {
+            job.markFailed(e.getMessage());
+        }
+    }
+
+    private void removeExpired() {
+        Instant threshold = Instant.now().minus(resultTtl);
+        jobs.values().removeIf(job -> {
+            if (!job.isDone() || job.getCompletedAt().isAfter(threshold)) {
+                return false;
+            }
+            if (job.getResultPath() != null) {
+                deleteQuietly(job.getResultPath());
+            }
+            log.debug("Removed expired report job {}", job.getId());
+            return true;
+        });
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete job result: {}", path, e);
+        }
+    }
+
+    /**
+     * Задача пула: сначала более высокий приоритет, при равном - порядок постановки
+     */
+    private final class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+        private final ReportJob job;
+
+        private PrioritizedTask(ReportJob job) {
+            this.job = job;
+        }
+
+        @Override
+        public void run() {
+            queueSlots.release();
+            ReportJobService.this.run(job);
+        }
+
+        @Override
+        public int compareTo(PrioritizedTask other) {
+            int byPriority = Integer.compare(other.job.getPriority(), job.getPriority());
+            return byPriority != 0 ? byPriority : Long.compare(job.getSequence(), other.job.getSequence());
+        }
+    }
+}
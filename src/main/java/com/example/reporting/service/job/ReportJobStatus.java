@@ -0,0 +1,39 @@
+package com.example.reporting.service.job;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Состояние задания для клиента
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportJobStatus {
+    private String id;
+    private JobStatus status;
+    private int priority;
+    private Instant submittedAt;
+    private Instant startedAt;
+    private Instant completedAt;
+    private Long resultSize;
+    private String error;
+
+    public static ReportJobStatus of(ReportJob job) {
+        return ReportJobStatus.builder()
+            .id(job.getId())
+            .status(job.getStatus())
+            .priority(job.getPriority())
+            .submittedAt(job.getSubmittedAt())
+            .startedAt(job.getStartedAt())
+            .completedAt(job.getCompletedAt())
+            .resultSize(job.getStatus() == JobStatus.COMPLETED ? job.getResultSize() : null)
+            .error(job.getError())
+            .build();
+    }
+}
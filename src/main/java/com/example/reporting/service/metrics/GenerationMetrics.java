@@ -0,0 +1,89 @@
+package com.example.reporting.service.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Метрики конвейера генерации: время фаз загрузки, замены и записи по шаблонам
+ * и типам плейсхолдеров, распределения размера результата и числа плейсхолдеров.
+ * Доступны через actuator (/actuator/metrics, /actuator/prometheus).
+ */
+@Component
+public class GenerationMetrics {
+
+    public static final String UNKNOWN_TEMPLATE = "unknown";
+
+    private final MeterRegistry registry;
+
+    public GenerationMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    public void recordLoad(Timer.Sample sample, String template) {
+        sample.stop(timer("reporting.generation.load", "Template load and parse", template)
+            .register(registry));
+    }
+
+    /**
+     * @param type тип плейсхолдеров (или группа типов, обработанных одним проходом)
+     */
+    public void recordReplace(Timer.Sample sample, String template, String type) {
+        sample.stop(timer("reporting.generation.replace", "Placeholder replacement", template)
+            .tag("type", type)
+            .register(registry));
+    }
+
+    public void recordWrite(Timer.Sample sample, String template, long outputBytes) {
+        sample.stop(timer("reporting.generation.write", "Presentation serialization", template)
+            .register(registry));
+        DistributionSummary.builder("reporting.generation.output.size")
+            .description("Generated presentation size")
+            .baseUnit("bytes")
+            .tag("template", template)
+            .publishPercentileHistogram()
+            .register(registry)
+            .record(outputBytes);
+    }
+
+    /**
+     * @param hit копия взята из пула, а не разобрана на потоке запроса
+     */
+    public void recordPoolAcquire(Timer.Sample sample, String template, boolean hit) {
+        sample.stop(timer("reporting.template.pool.acquire", "Wait for a pooled presentation instance", template)
+            .tag("result", hit ? "hit" : "miss")
+            .register(registry));
+    }
+
+    /**
+     * Время от запроса на пополнение пула до появления в нем готовой копии
+     */
+    public void recordPoolRefill(long lagNanos, String template) {
+        timer("reporting.template.pool.refill.lag", "Presentation pool refill lag", template)
+            .register(registry)
+            .record(lagNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordPlaceholderCount(String template, int count) {
+        DistributionSummary.builder("reporting.generation.placeholders")
+            .description("Placeholders per generation request")
+            .tag("template", template)
+            .publishPercentileHistogram()
+            .register(registry)
+            .record(count);
+    }
+
+    private Timer.Builder timer(String name, String description, String template) {
+        return Timer.builder(name)
+            .description(description)
+            .tag("template", template)
+            .publishPercentileHistogram();
+    }
+}
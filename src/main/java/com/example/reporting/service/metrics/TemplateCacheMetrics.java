@@ -0,0 +1,49 @@
+package com.example.reporting.service.metrics;
+
+import com.example.reporting.service.preview.SlideThumbnailCache;
+import com.example.reporting.service.template.TemplateBytesCache;
+import com.example.reporting.service.template.TemplateCacheStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Счетчики кеша шаблонов и кеша миниатюр слайдов в Micrometer
+ */
+@Component
+@RequiredArgsConstructor
+public class TemplateCacheMetrics implements MeterBinder {
+
+    private final TemplateBytesCache templateBytesCache;
+    private final SlideThumbnailCache slideThumbnailCache;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        counter(registry, "hits", TemplateCacheStats::getHits);
+        counter(registry, "misses", TemplateCacheStats::getMisses);
+        counter(registry, "evictions", TemplateCacheStats::getEvictions);
+        counter(registry, "reloads", TemplateCacheStats::getReloads);
+        Gauge.builder("reporting.template.cache.size", templateBytesCache, cache -> cache.getStats().getTotalBytes())
+            .baseUnit("bytes")
+            .register(registry);
+
+        FunctionCounter.builder("reporting.preview.cache.hits", slideThumbnailCache, SlideThumbnailCache::getHits)
+            .register(registry);
+        FunctionCounter.builder("reporting.preview.cache.misses", slideThumbnailCache, SlideThumbnailCache::getMisses)
+            .register(registry);
+        Gauge.builder("reporting.preview.cache.size", slideThumbnailCache, SlideThumbnailCache::getTotalBytes)
+            .baseUnit("bytes")
+            .register(registry);
+    }
+
+    private void counter(MeterRegistry registry, String name, ToDoubleFunction<TemplateCacheStats> value) {
+        FunctionCounter.builder("reporting.template.cache." + name, templateBytesCache,
+                cache -> value.applyAsDouble(cache.getStats()))
+            .register(registry);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.reporting.service.preview;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * PNG миниатюра слайда; в JSON байты изображения передаются в base64
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlidePreview {
+    private int slideNumber;
+    private int width;
+    private int height;
+    private byte[] png;
+}
@@ -0,0 +1,236 @@
+package com.example.reporting.service.preview;
+
+import com.example.reporting.exception.GenerationRejectedException;
+import com.example.reporting.exception.InvalidRequestException;
+import com.example.reporting.service.admission.GenerationAdmissionController;
+import com.example.reporting.util.ImageUtils;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Рендеринг PNG миниатюр слайдов готовой презентации средствами POI (slide.draw на
+ * Graphics2D в памяти, без дисплея: Spring Boot запускает приложение в headless режиме).
+ * Рисуется по байтам результата, а не по объекту после замен, поэтому миниатюра совпадает
+ * с тем, что откроет PowerPoint. Слайды делятся между потоками пула; объекты POI
+ * не потокобезопасны, поэтому каждый поток открывает свою копию презентации.
+ * Готовые миниатюры кешируются в {@link SlideThumbnailCache}. Разбор и рисование занимают
+ * бюджет {@link GenerationAdmissionController} по числу одновременно открытых копий.
+ */
+@Slf4j
+@Service
+public class SlidePreviewService {
+
+    private final SlideThumbnailCache cache;
+    private final GenerationAdmissionController admissionController;
+    private final ExecutorService executor;
+    private final int parallelism;
+    private final int maxWidth;
+
+    public SlidePreviewService(
+        SlideThumbnailCache cache,
+        GenerationAdmissionController admissionController,
+        @Value("${reporting.preview.parallelism:0}") int parallelism,
+        @Value("${reporting.preview.max-width:1920}") int maxWidth
+    ) {
+        this.cache = cache;
+        this.admissionController = admissionController;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.maxWidth = maxWidth;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(this.parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "slide-preview-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Миниатюры выбранных слайдов шириной width пикселей (высота - по пропорциям слайда)
+     *
+     * @param presentationBytes готовая презентация
+     * @param slideNumbers номера слайдов с 1; пустой список или null - все слайды
+     * @param width ширина миниатюры, от 1 до reporting.preview.max-width
+     * @throws InvalidRequestException если ширина вне допустимого диапазона или слайда нет
+     * @throws GenerationRejectedException если бюджет памяти не освободился вовремя
+     */
+    public List<SlidePreview> render(byte[] presentationBytes, List<Integer> slideNumbers, int width)
+        throws IOException {
+        if (width < 1 || width > maxWidth) {
+            throw new InvalidRequestException("Preview width must be between 1 and " + maxWidth + ", got: " + width);
+        }
+
+        String outputHash = ImageUtils.contentHash(presentationBytes);
+        List<Integer> requested = slideNumbers;
+        if (requested == null || requested.isEmpty()) {
+            try (GenerationAdmissionController.Permit ignored =
+                     admissionController.acquire(estimate(presentationBytes, 1, 0))) {
+                requested = allSlides(presentationBytes);
+            }
+        }
+
+        Map<Integer, SlidePreview> previews = new HashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        for (int slideNumber : requested) {
+            SlidePreview cached = cache.get(SlideThumbnailCache.key(outputHash, slideNumber, width));
+            if (cached != null) {
+                previews.put(slideNumber, cached);
+            } else if (!missing.contains(slideNumber)) {
+                missing.add(slideNumber);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            // Каждая часть держит свою копию презентации и один растр; высота оценивается по ширине
+            int chunks = Math.min(parallelism, missing.size());
+            List<SlidePreview> rendered;
+            try (GenerationAdmissionController.Permit ignored =
+                     admissionController.acquire(estimate(presentationBytes, chunks, 4L * width * width))) {
+                rendered = renderMissing(presentationBytes, missing, width);
+            }
+            for (SlidePreview preview : rendered) {
+                cache.put(SlideThumbnailCache.key(outputHash, preview.getSlideNumber(), width), preview);
+                previews.put(preview.getSlideNumber(), preview);
+            }
+            log.info("Rendered {} slide previews at width {}, {} served from cache",
+                missing.size(), width, requested.size() - missing.size());
+        }
+
+        List<SlidePreview> result = new ArrayList<>(requested.size());
+        for (int slideNumber : requested) {
+            result.add(previews.get(slideNumber));
+        }
+        return result;
+    }
+
+    private long estimate(byte[] presentationBytes, int copies, long rasterBytesPerCopy) {
+        return admissionController.estimatePreview(presentationBytes.length, copies, rasterBytesPerCopy * copies);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private List<Integer> allSlides(byte[] presentationBytes) throws IOException {
+        try (XMLSlideShow presentation = open(presentationBytes)) {
+            List<Integer> slides = new ArrayList<>();
+            for (int slideNumber = 1; slideNumber <= presentation.getSlides().size(); slideNumber++) {
+                slides.add(slideNumber);
+            }
+            return slides;
+        }
+    }
+
+    /**
+     * Слайды делятся на части по числу потоков; каждая часть рисуется на своей копии презентации
+     */
+    private List<SlidePreview> renderMissing(byte[] presentationBytes, List<Integer> slideNumbers, int width)
+        throws IOException {
+        int chunks = Math.min(parallelism, slideNumbers.size());
+        if (chunks == 1) {
+            return renderChunk(presentationBytes, slideNumbers, width);
+        }
+
+        List<Future<List<SlidePreview>>> futures = new ArrayList<>(chunks);
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            List<Integer> part = new ArrayList<>();
+            for (int i = chunk; i < slideNumbers.size(); i += chunks) {
+                part.add(slideNumbers.get(i));
+            }
+            futures.add(executor.submit(() -> renderChunk(presentationBytes, part, width)));
+        }
+
+        List<SlidePreview> previews = new ArrayList<>(slideNumbers.size());
+        try {
+            for (Future<List<SlidePreview>> future : futures) {
+                previews.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Slide preview interrupted", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException("Slide preview failed", e.getCause());
+        }
+        return previews;
+    }
+
+    private List<SlidePreview> renderChunk(byte[] presentationBytes, List<Integer> slideNumbers, int width)
+        throws IOException {
+        try (XMLSlideShow presentation = open(presentationBytes)) {
+            List<XSLFSlide> slides = presentation.getSlides();
+            Dimension pageSize = presentation.getPageSize();
+            List<SlidePreview> previews = new ArrayList<>(slideNumbers.size());
+            for (int slideNumber : slideNumbers) {
+                if (slideNumber < 1 || slideNumber > slides.size()) {
+                    throw new InvalidRequestException("Slide " + slideNumber + " does not exist, presentation has "
+                        + slides.size() + " slides");
+                }
+                previews.add(draw(slides.get(slideNumber - 1), slideNumber, pageSize, width));
+            }
+            return previews;
+        }
+    }
+
+    private SlidePreview draw(XSLFSlide slide, int slideNumber, Dimension pageSize, int width) throws IOException {
+        double scale = (double) width / pageSize.getWidth();
+        int height = Math.max(1, (int) Math.round(pageSize.getHeight() * scale));
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+            // Слайд без заливки фона не должен получиться черным
+            graphics.setPaint(Color.WHITE);
+            graphics.fill(new Rectangle2D.Double(0, 0, width, height));
+            graphics.scale(scale, scale);
+            slide.draw(graphics);
+        } finally {
+            graphics.dispose();
+        }
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", outputStream);
+        return SlidePreview.builder()
+            .slideNumber(slideNumber)
+            .width(width)
+            .height(height)
+            .png(outputStream.toByteArray())
+            .build();
+    }
+
+    private XMLSlideShow open(byte[] presentationBytes) throws IOException {
+        return new XMLSlideShow(new ByteArrayInputStream(presentationBytes));
+    }
+}
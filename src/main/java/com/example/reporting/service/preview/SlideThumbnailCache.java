@@ -0,0 +1,74 @@
+package com.example.reporting.service.preview;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LRU-кеш PNG миниатюр слайдов, ограниченный суммарным размером.
+ * Ключ - хеш содержимого готовой презентации, номер слайда и ширина: вывод генерации
+ * детерминирован, поэтому одинаковый запрос дает тот же хеш и миниатюры не рисуются заново.
+ */
+@Component
+public class SlideThumbnailCache {
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, SlidePreview> thumbnails = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public SlideThumbnailCache(@Value("${reporting.preview.cache.max-bytes:16777216}") long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public static String key(String outputHash, int slideNumber, int width) {
+        return outputHash + "/" + slideNumber + "/" + width;
+    }
+
+    public synchronized SlidePreview get(String key) {
+        SlidePreview preview = thumbnails.get(key);
+        (preview != null ? hits : misses).incrementAndGet();
+        return preview;
+    }
+
+    /**
+     * Кладет миниатюру в кеш; миниатюры больше лимита не кешируются
+     */
+    public synchronized void put(String key, SlidePreview preview) {
+        int size = preview.getPng().length;
+        if (size > maxBytes) {
+            return;
+        }
+
+        SlidePreview previous = thumbnails.put(key, preview);
+        if (previous != null) {
+            totalBytes -= previous.getPng().length;
+        }
+        totalBytes += size;
+
+        Iterator<Map.Entry<String, SlidePreview>> iterator = thumbnails.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, SlidePreview> eldest = iterator.next();
+            iterator.remove();
+            totalBytes -= eldest.getValue().getPng().length;
+        }
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+}
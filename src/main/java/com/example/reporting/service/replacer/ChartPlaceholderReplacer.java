@@ -0,0 +1,235 @@
+package com.example.reporting.service.replacer;
+
+import com.example.reporting.exception.InvalidRequestException;
+import com.example.reporting.model.ChartData;
+import com.example.reporting.model.Placeholder;
+import com.example.reporting.model.PlaceholderType;
+import com.example.reporting.service.template.ShapeIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xddf.usermodel.chart.XDDFChartData;
+import org.apache.poi.xddf.usermodel.chart.XDDFDataSource;
+import org.apache.poi.xddf.usermodel.chart.XDDFDataSourcesFactory;
+import org.apache.poi.xddf.usermodel.chart.XDDFNumericalDataSource;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFChart;
+import org.apache.poi.xslf.usermodel.XSLFGraphicFrame;
+import org.apache.poi.xslf.usermodel.XSLFGroupShape;
+import org.apache.poi.xslf.usermodel.XSLFShape;
+import org.apache.poi.xslf.usermodel.XSLFShapeContainer;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Замена CHART плейсхолдеров: данные нативной диаграммы шаблона заменяются числами
+ * из {@link ChartData} вместо вставки готового изображения графика.
+ * Диаграмма находится по имени фигуры (область выделения PowerPoint), равному ключу,
+ * или по заголовку {{key}}. Обновляются ряды первой группы диаграммы: кеш значений в XML
+ * и встроенная книга Excel, чтобы данные открывались в PowerPoint для редактирования.
+ */
+@Slf4j
+@Component
+public class ChartPlaceholderReplacer implements PlaceholderReplacer {
+
+    @Override
+    public boolean canHandle(Placeholder placeholder) {
+        return placeholder.getType() == PlaceholderType.CHART;
+    }
+
+    @Override
+    public void replace(XMLSlideShow presentation, Placeholder placeholder) throws Exception {
+        replaceAll(presentation, List.of(placeholder));
+    }
+
+    /**
+     * Меняются только части диаграмм, текстовые фигуры остаются прежними - индекс области не сбрасывается
+     */
+    @Override
+    public void replaceAll(ShapeIndex.Scope scope, List<Placeholder> placeholders) throws Exception {
+        replaceAll(scope.getPresentation(), placeholders);
+    }
+
+    /**
+     * Диаграммы всех слайдов собираются один раз для всей группы плейсхолдеров
+     */
+    @Override
+    public void replaceAll(XMLSlideShow presentation, List<Placeholder> placeholders) throws Exception {
+        List<XSLFGraphicFrame> frames = new ArrayList<>();
+        for (XSLFSlide slide : presentation.getSlides()) {
+            collectCharts(slide, frames);
+        }
+
+        for (Placeholder placeholder : placeholders) {
+            ChartData data = chartData(placeholder);
+            int bound = 0;
+            for (XSLFGraphicFrame frame : frames) {
+                XSLFChart chart = frame.getChart();
+                boolean titleMarker = hasTitle(chart, "{{" + placeholder.getKey() + "}}");
+                if (placeholder.getKey().equals(frame.getShapeName()) || titleMarker) {
+                    bind(chart, data, titleMarker);
+                    bound++;
+                }
+            }
+
+            if (bound == 0) {
+                log.warn("Chart placeholder not found in template: {}", placeholder.getKey());
+            } else {
+                log.info("Replaced chart placeholder: {} in {} charts", placeholder.getKey(), bound);
+            }
+        }
+    }
+
+    private ChartData chartData(Placeholder placeholder) {
+        if (placeholder.getValue() instanceof ChartData data) {
+            return data;
+        }
+        // Значение из JSON приходит объектом {"title", "categories", "series": [{"name", "values"}]}
+        if (placeholder.getValue() instanceof Map<?, ?> map) {
+            List<String> categories = new ArrayList<>();
+            for (Object category : list(placeholder.getKey(), "categories", map.get("categories"))) {
+                categories.add(String.valueOf(category));
+            }
+            List<ChartData.Series> series = new ArrayList<>();
+            for (Object item : list(placeholder.getKey(), "series", map.get("series"))) {
+                if (!(item instanceof Map<?, ?> seriesMap)) {
+                    throw new InvalidRequestException("CHART placeholder " + placeholder.getKey()
+                        + " series must be an object with name and values, got: " + item);
+                }
+                List<?> values = list(placeholder.getKey(), "values", seriesMap.get("values"));
+                double[] points = new double[values.size()];
+                for (int p = 0; p < points.length; p++) {
+                    points[p] = number(placeholder.getKey(), values.get(p));
+                }
+                Object name = seriesMap.get("name");
+                series.add(new ChartData.Series(name != null ? String.valueOf(name) : null, points));
+            }
+            Object title = map.get("title");
+            return new ChartData(title != null ? String.valueOf(title) : null, categories, series);
+        }
+        throw new InvalidRequestException("CHART placeholder " + placeholder.getKey()
+            + " requires ChartData value, got: " + placeholder.getValue());
+    }
+
+    private List<?> list(String key, String field, Object value) {
+        if (value == null) {
+            return List.of();
+        }
+        if (value instanceof List<?> list) {
+            return list;
+        }
+        throw new InvalidRequestException("CHART placeholder " + key + " field " + field
+            + " must be a list, got: " + value);
+    }
+
+    private double number(String key, Object value) {
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        throw new InvalidRequestException("CHART placeholder " + key + " values must be numbers, got: " + value);
+    }
+
+    private void collectCharts(XSLFShapeContainer container, List<XSLFGraphicFrame> frames) {
+        for (XSLFShape shape : container.getShapes()) {
+            if (shape instanceof XSLFGraphicFrame frame && frame.hasChart()) {
+                frames.add(frame);
+            } else if (shape instanceof XSLFGroupShape group) {
+                collectCharts(group, frames);
+            }
+        }
+    }
+
+    private boolean hasTitle(XSLFChart chart, String text) {
+        // getTitleShape() создает заголовок, если его нет, поэтому сначала проверяется XML
+        return chart.getCTChart().isSetTitle() && chart.getCTChart().getTitle().isSetTx()
+            && text.equals(chart.getTitleShape().getText());
+    }
+
+    private void bind(XSLFChart chart, ChartData data, boolean titleMarker) throws Exception {
+        if (data.getTitle() != null) {
+            chart.setTitleText(data.getTitle());
+        } else if (titleMarker) {
+            chart.removeTitle();
+            chart.setAutoTitleDeleted(true);
+        }
+
+        List<XDDFChartData> plots = chart.getChartSeries();
+        List<String> categories = data.getCategories() != null ? data.getCategories() : List.of();
+        if (plots.isEmpty() || categories.isEmpty()) {
+            log.warn("Chart has no series or no categories given, data not replaced");
+            return;
+        }
+        XDDFChartData plot = plots.get(0);
+        List<ChartData.Series> series = data.getSeries() != null ? data.getSeries() : List.of();
+
+        // Строка 0 книги - имена рядов, колонка 0 - категории, ряд i - колонка i + 1
+        int points = categories.size();
+        XDDFDataSource<String> categoryData = XDDFDataSourcesFactory.fromArray(categories.toArray(new String[0]),
+            chart.formatRange(new CellRangeAddress(1, points, 0, 0)), 0);
+        for (int i = 0; i < series.size(); i++) {
+            int column = i + 1;
+            XDDFNumericalDataSource<Double> valueData = XDDFDataSourcesFactory.fromArray(
+                values(series.get(i), points), chart.formatRange(new CellRangeAddress(1, points, column, column)),
+                column);
+
+            XDDFChartData.Series target = i < plot.getSeriesCount()
+                ? plot.getSeries(i)
+                : plot.addSeries(categoryData, valueData);
+            target.replaceData(categoryData, valueData);
+            target.setTitle(series.get(i).getName(), chart.setSheetTitle(series.get(i).getName(), column));
+        }
+        while (plot.getSeriesCount() > series.size()) {
+            plot.removeSeries(plot.getSeriesCount() - 1);
+        }
+
+        // Пишет значения в кеш XML диаграммы и в книгу
+        chart.plot(plot);
+        XSSFSheet sheet = chart.getWorkbook().getSheetAt(0);
+        removeRowsAfter(sheet, points);
+        removeColumnsAfter(sheet, series.size());
+    }
+
+    /**
+     * Недостающие значения ряда остаются пустыми точками
+     */
+    private Double[] values(ChartData.Series series, int points) {
+        Double[] values = new Double[points];
+        double[] source = series.getValues() != null ? series.getValues() : new double[0];
+        for (int p = 0; p < Math.min(points, source.length); p++) {
+            values[p] = source[p];
+        }
+        return values;
+    }
+
+    /**
+     * Удаляет из книги строки прежних данных, если категорий стало меньше
+     */
+    private void removeRowsAfter(XSSFSheet sheet, int lastRow) {
+        for (int r = sheet.getLastRowNum(); r > lastRow; r--) {
+            Row row = sheet.getRow(r);
+            if (row != null) {
+                sheet.removeRow(row);
+            }
+        }
+    }
+
+    /**
+     * Удаляет из книги колонки прежних рядов, если рядов стало меньше
+     */
+    private void removeColumnsAfter(XSSFSheet sheet, int lastColumn) {
+        for (Row row : sheet) {
+            for (int c = row.getLastCellNum() - 1; c > lastColumn; c--) {
+                Cell cell = row.getCell(c);
+                if (cell != null) {
+                    row.removeCell(cell);
+                }
+            }
+        }
+    }
+}
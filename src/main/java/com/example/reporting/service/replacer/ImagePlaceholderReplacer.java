@@ -3,21 +3,35 @@ package com.example.reporting.service.replacer;
 import com.example.reporting.model.ImageData;
 import com.example.reporting.model.Placeholder;
 import com.example.reporting.model.PlaceholderType;
+import com.example.reporting.service.image.CachedImage;
+import com.example.reporting.service.image.ImagePreprocessor;
+import com.example.reporting.service.template.ShapeIndex;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.sl.usermodel.PictureData;
 import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFPictureData;
 import org.apache.poi.xslf.usermodel.XSLFPictureShape;
-import org.apache.poi.xslf.usermodel.XSLFSlide;
-import org.apache.poi.xslf.usermodel.XSLFShape;
+import org.apache.poi.xslf.usermodel.XSLFShapeContainer;
 import org.apache.poi.xslf.usermodel.XSLFTextShape;
 import org.springframework.stereotype.Component;
 
 import java.awt.geom.Rectangle2D;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Slf4j
 @Component
 public class ImagePlaceholderReplacer implements PlaceholderReplacer {
 
+    private final ImagePreprocessor imagePreprocessor;
+
+    public ImagePlaceholderReplacer(ImagePreprocessor imagePreprocessor) {
+        this.imagePreprocessor = imagePreprocessor;
+    }
+
     @Override
     public boolean canHandle(Placeholder placeholder) {
         return placeholder.getType() == PlaceholderType.IMAGE;
@@ -25,33 +39,88 @@ public class ImagePlaceholderReplacer implements PlaceholderReplacer {
 
     @Override
     public void replace(XMLSlideShow presentation, Placeholder placeholder) throws Exception {
-        String searchPattern = "{{" + placeholder.getKey() + "}}";
-        ImageData imageData = (ImageData) placeholder.getValue();
-
-        for (XSLFSlide slide : presentation.getSlides()) {
-            for (XSLFShape shape : slide.getShapes()) {
-                if (shape instanceof XSLFTextShape) {
-                    XSLFTextShape textShape = (XSLFTextShape) shape;
-                    String text = textShape.getText();
-
-                    if (text != null && text.contains(searchPattern)) {
-                        Rectangle2D anchor = shape.getAnchor();
+        replaceAll(presentation, List.of(placeholder));
+    }
 
-                        PictureData pictureData = presentation.addPicture(
-                            imageData.getImageBytes(),
-                            imageData.getPictureType()
-                        );
+    /**
+     * Все изображения группы подставляются за один проход по {@link ShapeIndex}.
+     * Как и раньше, на каждом слайде заменяется первая фигура с плейсхолдером ключа.
+     */
+    @Override
+    public void replaceAll(XMLSlideShow presentation, List<Placeholder> placeholders) {
+        replaceAll(ShapeIndex.scope(presentation), placeholders);
+    }
 
-                        XSLFPictureShape picture = slide.createPicture(pictureData);
-                        picture.setAnchor(anchor);
+    @Override
+    public void replaceAll(ShapeIndex.Scope scope, List<Placeholder> placeholders) {
+        XMLSlideShow presentation = scope.getPresentation();
+        Map<String, Placeholder> byPattern = new LinkedHashMap<>();
+        for (Placeholder placeholder : placeholders) {
+            byPattern.putIfAbsent("{{" + placeholder.getKey() + "}}", placeholder);
+        }
+        Map<String, CachedImage> images = new HashMap<>();
+        // Уже встроенные изображения по хешу содержимого: одинаковые байты встраиваются один раз
+        // и используются всеми слайдами. Карта живет только в пределах вызова: XSLFPictureData
+        // ссылается на презентацию, поэтому хранить ее в поле бина значит удерживать презентацию
+        Map<String, XSLFPictureData> embedded = new HashMap<>();
 
-                        slide.removeShape(shape);
+        // Фигуры удаляются после обхода, чтобы не менять индекс во время итерации.
+        // Изображение может заменить фигуру слайда или группы, но не ячейку таблицы или заметки.
+        Map<ShapeIndex.Entry, Placeholder> targets = new LinkedHashMap<>();
+        Set<String> replacedOnSlide = new HashSet<>();
+        int currentSlide = ShapeIndex.NO_SLIDE;
 
-                        log.info("Replaced image placeholder: {} with image", placeholder.getKey());
-                        break;
-                    }
+        for (ShapeIndex.Entry shapeEntry : scope.index().getEntries()) {
+            if (!shapeEntry.isReplaceable()) {
+                continue;
+            }
+            if (shapeEntry.getSlideIndex() != currentSlide) {
+                currentSlide = shapeEntry.getSlideIndex();
+                replacedOnSlide.clear();
+            }
+            String text = shapeEntry.getShape().getText();
+            if (text == null || !text.contains("{{")) {
+                continue;
+            }
+            for (Map.Entry<String, Placeholder> entry : byPattern.entrySet()) {
+                if (!replacedOnSlide.contains(entry.getKey()) && text.contains(entry.getKey())) {
+                    replacedOnSlide.add(entry.getKey());
+                    targets.put(shapeEntry, entry.getValue());
+                    break;
                 }
             }
         }
+
+        for (Map.Entry<ShapeIndex.Entry, Placeholder> target : targets.entrySet()) {
+            Placeholder placeholder = target.getValue();
+            CachedImage image = images.computeIfAbsent(placeholder.getKey(),
+                key -> CachedImage.of((ImageData) placeholder.getValue()));
+            replaceShape(presentation, embedded, target.getKey().getContainer(), target.getKey().getShape(), image);
+            log.info("Replaced image placeholder: {} with image", placeholder.getKey());
+        }
+        if (!targets.isEmpty()) {
+            scope.invalidate();
+        }
+    }
+
+    private void replaceShape(XMLSlideShow presentation, Map<String, XSLFPictureData> embedded,
+                              XSLFShapeContainer container, XSLFTextShape shape, CachedImage image) {
+        Rectangle2D anchor = shape.getAnchor();
+
+        XSLFPictureData pictureData = embedPicture(presentation, embedded, imagePreprocessor.fit(image, anchor));
+
+        // Внутри группы якорь задан в ее координатах, поэтому изображение создается в той же группе
+        XSLFPictureShape picture = container.createPicture(pictureData);
+        picture.setAnchor(anchor);
+
+        container.removeShape(shape);
+    }
+
+    private XSLFPictureData embedPicture(XMLSlideShow presentation, Map<String, XSLFPictureData> embedded,
+                                         CachedImage image) {
+        return embedded.computeIfAbsent(image.getHash(), hash -> presentation.addPicture(
+            image.getImage().getImageBytes(),
+            image.getImage().getPictureType()
+        ));
     }
-}
\ No newline at end of file
+}
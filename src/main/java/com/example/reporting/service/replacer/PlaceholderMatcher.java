@@ -0,0 +1,234 @@
+package com.example.reporting.service.replacer;
+
+import com.example.reporting.model.Placeholder;
+import com.example.reporting.model.PlaceholderType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сопоставитель всех текстовых плейсхолдеров за один проход по строке.
+ * Шаблоны {{key}} (TEXT) и $key (INSERT) собираются в префиксное дерево,
+ * поэтому стоимость замены зависит от длины текста, а не от числа ключей.
+ * При пересечении ключей выбирается самое длинное совпадение
+ * ($priceTotal не будет испорчен ключом $price).
+ */
+public class PlaceholderMatcher {
+
+    private final Node root = new Node();
+    private int size;
+
+    public static PlaceholderMatcher of(List<Placeholder> placeholders) {
+        PlaceholderMatcher matcher = new PlaceholderMatcher();
+        for (Placeholder placeholder : placeholders) {
+            String pattern = patternOf(placeholder);
+            if (pattern != null) {
+                matcher.add(pattern, String.valueOf(placeholder.getValue()));
+            }
+        }
+        return matcher;
+    }
+
+    /**
+     * Возвращает строку поиска для плейсхолдера или null, если тип не текстовый
+     */
+    public static String patternOf(Placeholder placeholder) {
+        if (placeholder.getType() == PlaceholderType.TEXT) {
+            return "{{" + placeholder.getKey() + "}}";
+        }
+        if (placeholder.getType() == PlaceholderType.INSERT) {
+            return "$" + placeholder.getKey();
+        }
+        return null;
+    }
+
+    /**
+     * Добавляет шаблон. Повторный ключ игнорируется - как и при последовательной
+     * замене, выигрывает первый плейсхолдер в списке.
+     */
+    public void add(String pattern, String replacement) {
+        Node node = root;
+        for (int i = 0; i < pattern.length(); i++) {
+            node = node.children.computeIfAbsent(pattern.charAt(i), c -> new Node());
+        }
+        if (node.replacement == null) {
+            node.replacement = replacement;
+            size++;
+        }
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Заменяет все вхождения за один проход.
+     *
+     * @return исходный экземпляр строки, если совпадений нет
+     */
+    public String apply(String text) {
+        if (text == null || size == 0) {
+            return text;
+        }
+
+        StringBuilder result = null;
+        int copied = 0;
+        int i = 0;
+        while (i < text.length()) {
+            Match match = matchAt(text, i);
+            if (match == null) {
+                i++;
+                continue;
+            }
+
+            if (result == null) {
+                result = new StringBuilder(text.length() + 16);
+            }
+            result.append(text, copied, i).append(match.replacement);
+            copied = match.end;
+            i = match.end;
+        }
+
+        if (result == null) {
+            return text;
+        }
+        return result.append(text, copied, text.length()).toString();
+    }
+
+    /**
+     * Заменяет плейсхолдеры в последовательности фрагментов (text run одного абзаца),
+     * включая разбитые между фрагментами. Значение записывается во фрагмент, где
+     * начинается плейсхолдер, остальные его символы удаляются из следующих фрагментов.
+     *
+     * @return исходный экземпляр списка, если совпадений нет
+     */
+    public List<String> applyAcross(List<String> texts) {
+        if (size == 0 || texts.isEmpty()) {
+            return texts;
+        }
+        if (texts.size() == 1) {
+            String text = texts.get(0);
+            String replaced = apply(text);
+            return replaced == text ? texts : List.of(replaced);
+        }
+
+        StringBuilder joined = new StringBuilder();
+        int[] ends = new int[texts.size()];
+        for (int k = 0; k < texts.size(); k++) {
+            if (texts.get(k) != null) {
+                joined.append(texts.get(k));
+            }
+            ends[k] = joined.length();
+        }
+        String text = joined.toString();
+
+        StringBuilder[] parts = null;
+        int fragment = 0;
+        int copied = 0;
+        int i = 0;
+        while (i < text.length()) {
+            Match match = matchAt(text, i);
+            if (match == null) {
+                i++;
+                continue;
+            }
+
+            if (parts == null) {
+                parts = new StringBuilder[texts.size()];
+                for (int k = 0; k < parts.length; k++) {
+                    parts[k] = new StringBuilder();
+                }
+            }
+            fragment = copyFragments(text, ends, parts, fragment, copied, i);
+            parts[fragment].append(match.replacement);
+            copied = match.end;
+            i = match.end;
+        }
+
+        if (parts == null) {
+            return texts;
+        }
+        copyFragments(text, ends, parts, fragment, copied, text.length());
+
+        List<String> result = new ArrayList<>(parts.length);
+        for (StringBuilder part : parts) {
+            result.add(part.toString());
+        }
+        return result;
+    }
+
+    /**
+     * Копирует text[from, to) по фрагментам с учетом их границ
+     *
+     * @return индекс фрагмента, которому принадлежит позиция to
+     */
+    private int copyFragments(String text, int[] ends, StringBuilder[] parts, int fragment, int from, int to) {
+        int position = from;
+        while (fragment < ends.length - 1 && ends[fragment] <= position) {
+            fragment++;
+        }
+        while (position < to) {
+            int end = Math.min(to, ends[fragment]);
+            parts[fragment].append(text, position, end);
+            position = end;
+            if (position < to) {
+                fragment++;
+            }
+        }
+        while (fragment < ends.length - 1 && ends[fragment] <= to) {
+            fragment++;
+        }
+        return fragment;
+    }
+
+    /**
+     * Самое длинное совпадение, начинающееся в позиции i, или null
+     */
+    private Match matchAt(String text, int i) {
+        Node node = root.children.get(text.charAt(i));
+        if (node == null) {
+            return null;
+        }
+
+        String replacement = null;
+        int matchEnd = -1;
+        int j = i + 1;
+        while (true) {
+            if (node.replacement != null) {
+                replacement = node.replacement;
+                matchEnd = j;
+            }
+            if (j >= text.length()) {
+                break;
+            }
+            node = node.children.get(text.charAt(j));
+            if (node == null) {
+                break;
+            }
+            j++;
+        }
+
+        return replacement == null ? null : new Match(matchEnd, replacement);
+    }
+
+    private static final class Match {
+        private final int end;
+        private final String replacement;
+
+        private Match(int end, String replacement) {
+            this.end = end;
+            this.replacement = replacement;
+        }
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> children = new HashMap<>(4);
+        private String replacement;
+    }
+}
@@ -1,9 +1,40 @@
 package com.example.reporting.service.replacer;
 
 import com.example.reporting.model.Placeholder;
+import com.example.reporting.model.PlaceholderType;
+import com.example.reporting.service.template.ShapeIndex;
 import org.apache.poi.xslf.usermodel.XMLSlideShow;
 
+import java.util.List;
+
 public interface PlaceholderReplacer {
     boolean canHandle(Placeholder placeholder);
     void replace(XMLSlideShow presentation, Placeholder placeholder) throws Exception;
-}
\ No newline at end of file
+
+    /**
+     * Обрабатывает ли replacer плейсхолдеры данного типа.
+     * Используется для построения таблицы диспетчеризации при старте.
+     */
+    default boolean supports(PlaceholderType type) {
+        return canHandle(Placeholder.builder().type(type).build());
+    }
+
+    /**
+     * Заменяет сразу все плейсхолдеры группы. Реализации могут переопределить метод,
+     * чтобы обойти презентацию один раз для всех ключей.
+     */
+    default void replaceAll(XMLSlideShow presentation, List<Placeholder> placeholders) throws Exception {
+        for (Placeholder placeholder : placeholders) {
+            replace(presentation, placeholder);
+        }
+    }
+
+    /**
+     * Заменяет все плейсхолдеры группы в области генерации, переиспользуя ее индекс фигур.
+     * Реализация по умолчанию не знает, меняет ли replacer состав фигур, поэтому сбрасывает индекс.
+     */
+    default void replaceAll(ShapeIndex.Scope scope, List<Placeholder> placeholders) throws Exception {
+        replaceAll(scope.getPresentation(), placeholders);
+        scope.invalidate();
+    }
+}
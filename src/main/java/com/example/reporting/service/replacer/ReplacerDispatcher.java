@@ -0,0 +1,95 @@
+package com.example.reporting.service.replacer;
+
+import com.example.reporting.model.Placeholder;
+import com.example.reporting.model.PlaceholderType;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Таблица диспетчеризации replacers по типу плейсхолдера.
+ * Для каждого типа заранее собирается цепочка подходящих replacers,
+ * поэтому поиск не перебирает все replacers для каждого плейсхолдера.
+ */
+@Slf4j
+public class ReplacerDispatcher {
+
+    private final Map<PlaceholderType, List<PlaceholderReplacer>> chains = new EnumMap<>(PlaceholderType.class);
+
+    public ReplacerDispatcher(List<PlaceholderReplacer> replacers) {
+        for (PlaceholderType type : PlaceholderType.values()) {
+            List<PlaceholderReplacer> chain = new ArrayList<>();
+            for (PlaceholderReplacer replacer : replacers) {
+                if (replacer.supports(type)) {
+                    chain.add(replacer);
+                }
+            }
+            chains.put(type, List.copyOf(chain));
+        }
+    }
+
+    /**
+     * Первый replacer цепочки, который может обработать плейсхолдер, или null
+     */
+    public PlaceholderReplacer find(Placeholder placeholder) {
+        if (placeholder.getType() == null) {
+            return null;
+        }
+        for (PlaceholderReplacer replacer : chains.get(placeholder.getType())) {
+            if (replacer.canHandle(placeholder)) {
+                return replacer;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Группирует плейсхолдеры по типу с сохранением порядка внутри группы.
+     * Группы идут в порядке обработки: типы по порядку объявления, REPEAT всегда последним,
+     * чтобы копии слайдов получали уже заполненные общие значения, таблицы и диаграммы.
+     */
+    public Map<PlaceholderType, List<Placeholder>> groupByType(List<Placeholder> placeholders) {
+        Map<PlaceholderType, List<Placeholder>> groups = new EnumMap<>(PlaceholderType.class);
+        for (Placeholder placeholder : placeholders) {
+            if (placeholder.getType() == null) {
+                log.warn("Placeholder without type skipped: {}", placeholder.getKey());
+                continue;
+            }
+            groups.computeIfAbsent(placeholder.getType(), type -> new ArrayList<>()).add(placeholder);
+        }
+
+        Map<PlaceholderType, List<Placeholder>> ordered = new LinkedHashMap<>();
+        groups.forEach((type, group) -> {
+            if (type != PlaceholderType.REPEAT) {
+                ordered.put(type, group);
+            }
+        });
+        if (groups.containsKey(PlaceholderType.REPEAT)) {
+            ordered.put(PlaceholderType.REPEAT, groups.get(PlaceholderType.REPEAT));
+        }
+        return ordered;
+    }
+
+    /**
+     * Распределяет группу плейсхолдеров по replacers, чтобы каждый получил
+     * свою часть одним вызовом {@link PlaceholderReplacer#replaceAll}.
+     * Плейсхолдеры без подходящего replacer пропускаются с предупреждением.
+     */
+    public Map<PlaceholderReplacer, List<Placeholder>> assign(List<Placeholder> placeholders) {
+        Map<PlaceholderReplacer, List<Placeholder>> assignments = new LinkedHashMap<>();
+        for (Placeholder placeholder : placeholders) {
+            PlaceholderReplacer replacer = find(placeholder);
+            if (replacer != null) {
+                assignments.computeIfAbsent(replacer, key -> new ArrayList<>()).add(placeholder);
+            } else {
+                log.warn("No replacer found for placeholder: {} of type: {}",
+                    placeholder.getKey(), placeholder.getType());
+            }
+        }
+        return assignments;
+    }
+}
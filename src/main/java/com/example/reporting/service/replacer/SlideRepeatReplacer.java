@@ -0,0 +1,253 @@
+package com.example.reporting.service.replacer;
+
+import com.example.reporting.exception.InvalidRequestException;
+import com.example.reporting.model.Placeholder;
+import com.example.reporting.model.PlaceholderType;
+import com.example.reporting.model.RepeatData;
+import com.example.reporting.service.template.ShapeIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+import org.apache.poi.xslf.usermodel.XSLFTextShape;
+import org.apache.xmlbeans.XmlCursor;
+import org.springframework.stereotype.Component;
+
+import javax.xml.namespace.QName;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Замена REPEAT плейсхолдеров: слайд с маркером {{#key}} повторяется для каждой итерации
+ * {@link RepeatData}. Копии создаются из уже разобранного слайда (без повторного чтения
+ * шаблона) и вставляются сразу за ним; изображения, макет и образец остаются общими частями
+ * пакета, копируются только XML слайда и заметок. {@link ReplacerDispatcher#groupByType}
+ * ставит REPEAT после остальных типов, поэтому общие для всех копий значения, таблицы
+ * и диаграммы заполняются один раз в исходном слайде. В каждой копии затем подставляются
+ * TEXT и INSERT плейсхолдеры ее итерации.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SlideRepeatReplacer implements PlaceholderReplacer {
+
+    /**
+     * Элементы слайда, атрибут которых содержит идентификатор фигуры или ссылку на нее
+     */
+    private static final Map<String, QName> SHAPE_ID_ATTRIBUTES = Map.of(
+        "cNvPr", new QName("", "id"),
+        "stCxn", new QName("", "id"),
+        "endCxn", new QName("", "id"),
+        "spTgt", new QName("", "spid"),
+        "bldP", new QName("", "spid"),
+        "bldGraphic", new QName("", "spid"),
+        "bldDgm", new QName("", "spid"),
+        "bldOleChart", new QName("", "spid"));
+
+    private final TextSubstitutionEngine substitutionEngine;
+
+    @Override
+    public boolean canHandle(Placeholder placeholder) {
+        return placeholder.getType() == PlaceholderType.REPEAT;
+    }
+
+    @Override
+    public void replace(XMLSlideShow presentation, Placeholder placeholder) {
+        replaceAll(presentation, List.of(placeholder));
+    }
+
+    @Override
+    public void replaceAll(XMLSlideShow presentation, List<Placeholder> placeholders) {
+        replaceAll(ShapeIndex.scope(presentation), placeholders);
+    }
+
+    @Override
+    public void replaceAll(ShapeIndex.Scope scope, List<Placeholder> placeholders) {
+        for (Placeholder placeholder : placeholders) {
+            List<List<Placeholder>> iterations = iterations(placeholder);
+            String marker = "{{#" + placeholder.getKey() + "}}";
+
+            TreeSet<Integer> marked = markedSlides(scope, marker);
+            if (marked.isEmpty()) {
+                log.warn("Repeat marker not found in template: {}", marker);
+                continue;
+            }
+
+            // С конца, чтобы копии не сдвигали еще не обработанные слайды
+            for (int slideIndex : marked.descendingSet()) {
+                repeat(scope, slideIndex, marker, iterations);
+            }
+
+            log.info("Repeated {} slides for placeholder {} with {} iterations",
+                marked.size(), placeholder.getKey(), iterations.size());
+        }
+    }
+
+    private List<List<Placeholder>> iterations(Placeholder placeholder) {
+        Object value = placeholder.getValue();
+        if (value instanceof RepeatData data) {
+            return data.getIterations() != null ? data.getIterations() : List.of();
+        }
+        // Значение из JSON приходит объектом {"iterations": [...]} или сразу списком итераций
+        if (value instanceof Map<?, ?> map) {
+            value = map.get("iterations");
+        }
+        if (value instanceof List<?> iterations) {
+            List<List<Placeholder>> converted = new ArrayList<>(iterations.size());
+            for (Object iteration : iterations) {
+                converted.add(iteration(placeholder.getKey(), iteration));
+            }
+            return converted;
+        }
+        throw new InvalidRequestException("REPEAT placeholder " + placeholder.getKey()
+            + " requires RepeatData value, got: " + placeholder.getValue());
+    }
+
+    private List<Placeholder> iteration(String key, Object iteration) {
+        if (!(iteration instanceof List<?> items)) {
+            throw new InvalidRequestException("REPEAT placeholder " + key
+                + " iteration must be a list of placeholders, got: " + iteration);
+        }
+        List<Placeholder> placeholders = new ArrayList<>(items.size());
+        for (Object item : items) {
+            if (item instanceof Placeholder placeholder) {
+                placeholders.add(placeholder);
+            } else if (item instanceof Map<?, ?> map) {
+                Object type = map.get("type");
+                placeholders.add(Placeholder.builder()
+                    .key(map.get("key") != null ? String.valueOf(map.get("key")) : null)
+                    .type(type != null ? type(key, type) : null)
+                    .value(map.get("value"))
+                    .build());
+            } else {
+                throw new InvalidRequestException("REPEAT placeholder " + key
+                    + " iteration item must be a placeholder, got: " + item);
+            }
+        }
+        return placeholders;
+    }
+
+    private static PlaceholderType type(String key, Object type) {
+        try {
+            return PlaceholderType.valueOf(String.valueOf(type));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("REPEAT placeholder " + key + " has unknown item type: " + type, e);
+        }
+    }
+
+    private TreeSet<Integer> markedSlides(ShapeIndex.Scope scope, String marker) {
+        TreeSet<Integer> marked = new TreeSet<>();
+        for (ShapeIndex.Entry entry : scope.index().getEntries()) {
+            String text = entry.getShape().getText();
+            if (entry.getSheet() instanceof XSLFSlide && text != null && text.contains(marker)) {
+                marked.add(entry.getSlideIndex());
+            }
+        }
+        return marked;
+    }
+
+    private void repeat(ShapeIndex.Scope scope, int slideIndex, String marker,
+                        List<List<Placeholder>> iterations) {
+        XMLSlideShow presentation = scope.getPresentation();
+        removeMarker(scope, slideIndex, marker);
+        if (iterations.isEmpty()) {
+            presentation.removeSlide(slideIndex);
+            scope.invalidate();
+            return;
+        }
+
+        XSLFSlide template = presentation.getSlides().get(slideIndex);
+        long idSpan = maxShapeId(template);
+        for (int i = 1; i < iterations.size(); i++) {
+            XSLFSlide copy = presentation.createSlide(template.getSlideLayout());
+            copy.importContent(template);
+            shiftShapeIds(copy, idSpan * i);
+            presentation.setSlideOrder(copy, slideIndex + i);
+        }
+        scope.invalidate();
+
+        // Фигуры копий (вместе с заметками) раскладываются по итерациям за один проход индекса
+        List<List<XSLFTextShape>> shapes = new ArrayList<>(iterations.size());
+        for (int i = 0; i < iterations.size(); i++) {
+            shapes.add(new ArrayList<>());
+        }
+        for (ShapeIndex.Entry entry : scope.index().getEntries()) {
+            int iteration = entry.getSlideIndex() - slideIndex;
+            if (iteration >= 0 && iteration < iterations.size()) {
+                shapes.get(iteration).add(entry.getShape());
+            }
+        }
+
+        for (int i = 0; i < iterations.size(); i++) {
+            List<Placeholder> iteration = iterations.get(i);
+            for (Placeholder placeholder : iteration) {
+                if (PlaceholderMatcher.patternOf(placeholder) == null) {
+                    log.warn("Only TEXT and INSERT placeholders are substituted per repeated slide, skipped: {}",
+                        placeholder.getKey());
+                }
+            }
+            substitutionEngine.substituteInShapes(shapes.get(i), iteration);
+        }
+    }
+
+    private long maxShapeId(XSLFSlide slide) {
+        long max = 0;
+        try (XmlCursor cursor = slide.getXmlObject().newCursor()) {
+            while (cursor.toNextToken() != XmlCursor.TokenType.NONE) {
+                if (cursor.isStart() && cursor.getName().getLocalPart().equals("cNvPr")) {
+                    max = Math.max(max, shapeId(cursor.getAttributeText(SHAPE_ID_ATTRIBUTES.get("cNvPr"))));
+                }
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Копия получает идентификаторы фигур, не занятые исходным слайдом и другими копиями;
+     * ссылки анимаций и соединителей на фигуры сдвигаются вместе с ними
+     */
+    private void shiftShapeIds(XSLFSlide copy, long offset) {
+        try (XmlCursor cursor = copy.getXmlObject().newCursor()) {
+            while (cursor.toNextToken() != XmlCursor.TokenType.NONE) {
+                QName attribute = cursor.isStart() ? SHAPE_ID_ATTRIBUTES.get(cursor.getName().getLocalPart()) : null;
+                String id = attribute != null ? cursor.getAttributeText(attribute) : null;
+                if (id != null && shapeId(id) > 0) {
+                    cursor.setAttributeText(attribute, String.valueOf(shapeId(id) + offset));
+                }
+            }
+        }
+    }
+
+    private long shapeId(String id) {
+        try {
+            return id != null ? Long.parseLong(id.trim()) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Фигура, содержащая только маркер, удаляется; иначе из текста удаляется сам маркер
+     */
+    private void removeMarker(ShapeIndex.Scope scope, int slideIndex, String marker) {
+        List<XSLFTextShape> withText = new ArrayList<>();
+        for (ShapeIndex.Entry entry : scope.index().getEntries()) {
+            if (entry.getSlideIndex() != slideIndex || !entry.getShape().getText().contains(marker)) {
+                continue;
+            }
+            if (entry.isReplaceable() && entry.getShape().getText().trim().equals(marker)) {
+                entry.getContainer().removeShape(entry.getShape());
+            } else {
+                withText.add(entry.getShape());
+            }
+        }
+        substitutionEngine.substituteInShapes(withText, List.of(Placeholder.builder()
+            .key(marker.substring(2, marker.length() - 2))
+            .type(PlaceholderType.TEXT)
+            .value("")
+            .build()));
+        scope.invalidate();
+    }
+}
@@ -0,0 +1,309 @@
+package com.example.reporting.service.replacer;
+
+import com.example.reporting.exception.InvalidRequestException;
+import com.example.reporting.model.Placeholder;
+import com.example.reporting.model.PlaceholderType;
+import com.example.reporting.model.TableData;
+import com.example.reporting.service.template.ShapeIndex;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFGroupShape;
+import org.apache.poi.xslf.usermodel.XSLFShape;
+import org.apache.poi.xslf.usermodel.XSLFShapeContainer;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+import org.apache.poi.xslf.usermodel.XSLFTable;
+import org.apache.poi.xslf.usermodel.XSLFTableRow;
+import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlObject;
+import org.openxmlformats.schemas.drawingml.x2006.main.CTRegularTextRun;
+import org.openxmlformats.schemas.drawingml.x2006.main.CTTable;
+import org.openxmlformats.schemas.drawingml.x2006.main.CTTableCell;
+import org.openxmlformats.schemas.drawingml.x2006.main.CTTableRow;
+import org.openxmlformats.schemas.drawingml.x2006.main.CTTextLineBreak;
+import org.openxmlformats.schemas.drawingml.x2006.main.CTTextParagraph;
+import org.springframework.stereotype.Component;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Замена TABLE плейсхолдеров.
+ * Строка таблицы, в ячейках которой есть {{key.column}}, служит шаблоном: она копируется
+ * на каждую запись {@link TableData} на уровне XML за один проход, поэтому время растет
+ * линейно с числом записей. Если записи не помещаются на слайд, слайд дублируется сразу
+ * за исходным вместе с остальными строками таблицы, и записи делятся между копиями.
+ * Объекты POI для скопированных строк не создаются: в {@link XSLFTable#getRows()} они
+ * появляются только после повторного открытия результата, XML при записи уже полный.
+ * Несколько строк-шаблонов одной таблицы заполняются снизу вверх, чтобы индексы строк POI
+ * оставались верными.
+ */
+@Slf4j
+@Component
+public class TablePlaceholderReplacer implements PlaceholderReplacer {
+
+    @Override
+    public boolean canHandle(Placeholder placeholder) {
+        return placeholder.getType() == PlaceholderType.TABLE;
+    }
+
+    @Override
+    public void replace(XMLSlideShow presentation, Placeholder placeholder) {
+        replaceAll(presentation, List.of(placeholder));
+    }
+
+    @Override
+    public void replaceAll(XMLSlideShow presentation, List<Placeholder> placeholders) {
+        replaceAll(ShapeIndex.scope(presentation), placeholders);
+    }
+
+    @Override
+    public void replaceAll(ShapeIndex.Scope scope, List<Placeholder> placeholders) {
+        XMLSlideShow presentation = scope.getPresentation();
+        Map<String, TableData> tables = new LinkedHashMap<>();
+        for (Placeholder placeholder : placeholders) {
+            tables.put(placeholder.getKey(), tableData(placeholder));
+        }
+
+        // Таблицы, в которых ключ уже заполнен (включая копии слайдов при разбиении)
+        Map<XSLFTable, Set<String>> filled = new HashMap<>();
+        Set<String> found = new HashSet<>();
+        List<TemplateRow> targets;
+        while (!(targets = findTemplateRows(scope, tables.keySet(), filled)).isEmpty()) {
+            // Снизу вверх: копии вставляются только в XML ниже шаблона, поэтому индексы строк POI
+            // выше него по-прежнему совпадают с индексами строк XML
+            targets.sort(Comparator.comparingInt(TemplateRow::getRowIndex).reversed());
+            for (TemplateRow target : targets) {
+                String key = target.getKey();
+                List<XSLFTable> expanded =
+                    expand(presentation, target.getTable(), target.getRowIndex(), key, tables.get(key));
+                for (XSLFTable table : expanded) {
+                    filled.computeIfAbsent(table, ignored -> new HashSet<>()).add(key);
+                }
+                found.add(key);
+            }
+            // Строки и слайды добавлены, индекс фигур больше не соответствует презентации.
+            // Копии слайдов с еще не заполненными ключами находятся следующим проходом
+            scope.invalidate();
+        }
+
+        for (Map.Entry<String, TableData> table : tables.entrySet()) {
+            if (found.contains(table.getKey())) {
+                log.info("Replaced table placeholder: {} with {} rows", table.getKey(), table.getValue().getRows().size());
+            } else {
+                log.warn("Table placeholder not found in template: {}", table.getKey());
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private TableData tableData(Placeholder placeholder) {
+        if (placeholder.getValue() instanceof TableData data) {
+            return data.getRows() != null ? data : new TableData(List.of(), data.getRowsPerSlide());
+        }
+        // Значение из JSON приходит списком объектов
+        if (placeholder.getValue() instanceof List<?> rows) {
+            return new TableData((List<Map<String, Object>>) rows, 0);
+        }
+        throw new InvalidRequestException("TABLE placeholder " + placeholder.getKey()
+            + " requires TableData value, got: " + placeholder.getValue());
+    }
+
+    /**
+     * Строки-шаблоны ключей в таблицах слайдов, где ключ еще не заполнен
+     */
+    private List<TemplateRow> findTemplateRows(ShapeIndex.Scope scope, Set<String> keys,
+                                               Map<XSLFTable, Set<String>> filled) {
+        List<TemplateRow> targets = new ArrayList<>();
+        Map<XSLFTable, Set<String>> targeted = new HashMap<>();
+        for (ShapeIndex.Entry entry : scope.index().getEntries()) {
+            XSLFTable table = entry.getTable();
+            if (table == null || !(entry.getSheet() instanceof XSLFSlide)) {
+                continue;
+            }
+            String text = entry.getShape().getText();
+            if (text == null) {
+                continue;
+            }
+            for (String key : keys) {
+                if (!text.contains("{{" + key + ".")
+                    || filled.getOrDefault(table, Set.of()).contains(key)
+                    || !targeted.computeIfAbsent(table, ignored -> new HashSet<>()).add(key)) {
+                    continue;
+                }
+                List<XSLFTableRow> rows = table.getRows();
+                for (int r = 0; r < rows.size(); r++) {
+                    if (rows.get(r).getCells().contains(entry.getShape())) {
+                        targets.add(new TemplateRow(table, r, key));
+                        break;
+                    }
+                }
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Заполняет строку-шаблон и возвращает таблицы, в которых ключ теперь заполнен:
+     * исходную и ее копии на добавленных слайдах
+     */
+    private List<XSLFTable> expand(XMLSlideShow presentation, XSLFTable table, int rowIndex, String key, TableData data) {
+        List<Map<String, Object>> records = data.getRows();
+        int capacity = data.getRowsPerSlide() > 0
+            ? data.getRowsPerSlide()
+            : capacity(presentation, table, rowIndex);
+        int pages = Math.max(1, (records.size() + capacity - 1) / capacity);
+
+        // Копии слайда создаются до заполнения, поэтому содержат нетронутую строку-шаблон
+        List<XSLFTable> tables = new ArrayList<>(pages);
+        tables.add(table);
+        if (pages > 1) {
+            XSLFSlide slide = (XSLFSlide) table.getSheet();
+            int position = tablesOf(slide).indexOf(table);
+            int slideIndex = presentation.getSlides().indexOf(slide);
+            for (int page = 1; page < pages; page++) {
+                XSLFSlide copy = presentation.createSlide(slide.getSlideLayout());
+                copy.importContent(slide);
+                presentation.setSlideOrder(copy, slideIndex + page);
+                tables.add(tablesOf(copy).get(position));
+            }
+            log.info("Table placeholder {} paginated onto {} slides, {} rows per slide", key, pages, capacity);
+        }
+
+        for (int page = 0; page < pages; page++) {
+            int from = page * capacity;
+            fill(tables.get(page), rowIndex, key, records.subList(from, Math.min(records.size(), from + capacity)));
+        }
+        return tables;
+    }
+
+    /**
+     * Сколько копий строки-шаблона помещается между верхом таблицы и низом слайда
+     */
+    private int capacity(XMLSlideShow presentation, XSLFTable table, int rowIndex) {
+        double rowHeight = table.getRowHeight(rowIndex);
+        if (rowHeight <= 0) {
+            return Integer.MAX_VALUE;
+        }
+        double otherRows = 0;
+        for (int r = 0; r < table.getNumberOfRows(); r++) {
+            if (r != rowIndex) {
+                otherRows += table.getRowHeight(r);
+            }
+        }
+        double available = presentation.getPageSize().getHeight() - table.getAnchor().getY() - otherRows;
+        return Math.max(1, (int) (available / rowHeight));
+    }
+
+    private void fill(XSLFTable table, int rowIndex, String key, List<Map<String, Object>> records) {
+        double rowHeight = table.getRowHeight(rowIndex);
+        if (records.isEmpty()) {
+            table.removeRow(rowIndex);
+            resize(table, -rowHeight);
+            return;
+        }
+
+        CTTable ctTable = table.getCTTable();
+        CTTableRow templateRow = ctTable.getTrArray(rowIndex);
+        // Копии вставляются в обратном порядке сразу за шаблоном: позиция вставки не сдвигается,
+        // а строки, для которых POI уже создал объекты, не пересоздаются
+        for (int r = records.size() - 1; r > 0; r--) {
+            CTTableRow row = ctTable.insertNewTr(rowIndex + 1);
+            row.set(templateRow);
+            fillRow(row, matcherOf(key, records.get(r)));
+        }
+        fillRow(templateRow, matcherOf(key, records.get(0)));
+        resize(table, rowHeight * (records.size() - 1));
+    }
+
+    private void resize(XSLFTable table, double deltaHeight) {
+        Rectangle2D anchor = table.getAnchor();
+        anchor.setRect(anchor.getX(), anchor.getY(), anchor.getWidth(), Math.max(0, anchor.getHeight() + deltaHeight));
+        table.setAnchor(anchor);
+    }
+
+    private PlaceholderMatcher matcherOf(String key, Map<String, Object> record) {
+        PlaceholderMatcher matcher = new PlaceholderMatcher();
+        for (Map.Entry<String, Object> column : record.entrySet()) {
+            matcher.add("{{" + key + "." + column.getKey() + "}}",
+                column.getValue() != null ? String.valueOf(column.getValue()) : "");
+        }
+        return matcher;
+    }
+
+    private void fillRow(CTTableRow row, PlaceholderMatcher matcher) {
+        for (CTTableCell cell : row.getTcArray()) {
+            if (cell.isSetTxBody()) {
+                for (CTTextParagraph paragraph : cell.getTxBody().getPArray()) {
+                    fillParagraph(paragraph, matcher);
+                }
+            }
+        }
+    }
+
+    /**
+     * Как и в {@link TextSubstitutionEngine}, плейсхолдер может быть разбит на несколько run,
+     * но не продолжается через перенос строки
+     */
+    private void fillParagraph(CTTextParagraph paragraph, PlaceholderMatcher matcher) {
+        List<CTRegularTextRun> segment = new ArrayList<>();
+        try (XmlCursor cursor = paragraph.newCursor()) {
+            for (boolean more = cursor.toFirstChild(); more; more = cursor.toNextSibling()) {
+                XmlObject child = cursor.getObject();
+                if (child instanceof CTRegularTextRun run) {
+                    segment.add(run);
+                } else if (child instanceof CTTextLineBreak) {
+                    fillSegment(segment, matcher);
+                    segment.clear();
+                }
+            }
+        }
+        fillSegment(segment, matcher);
+    }
+
+    private void fillSegment(List<CTRegularTextRun> runs, PlaceholderMatcher matcher) {
+        if (runs.isEmpty()) {
+            return;
+        }
+        List<String> texts = new ArrayList<>(runs.size());
+        for (CTRegularTextRun run : runs) {
+            texts.add(run.getT());
+        }
+        List<String> replaced = runs.size() == 1 ? List.of(matcher.apply(texts.get(0))) : matcher.applyAcross(texts);
+        for (int r = 0; r < runs.size(); r++) {
+            if (!replaced.get(r).equals(texts.get(r))) {
+                runs.get(r).setT(replaced.get(r));
+            }
+        }
+    }
+
+    /**
+     * Таблицы слайда в порядке обхода, включая вложенные в группы: по позиции в этом списке
+     * таблица находится в копии слайда
+     */
+    private List<XSLFTable> tablesOf(XSLFShapeContainer container) {
+        List<XSLFTable> tables = new ArrayList<>();
+        for (XSLFShape shape : container.getShapes()) {
+            if (shape instanceof XSLFTable table) {
+                tables.add(table);
+            } else if (shape instanceof XSLFGroupShape group) {
+                tables.addAll(tablesOf(group));
+            }
+        }
+        return tables;
+    }
+
+    @Value
+    private static class TemplateRow {
+        XSLFTable table;
+        int rowIndex;
+        String key;
+    }
+}
@@ -2,50 +2,49 @@ package com.example.reporting.service.replacer;
 
 import com.example.reporting.model.Placeholder;
 import com.example.reporting.model.PlaceholderType;
+import com.example.reporting.service.template.ShapeIndex;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.xslf.usermodel.XMLSlideShow;
-import org.apache.poi.xslf.usermodel.XSLFSlide;
-import org.apache.poi.xslf.usermodel.XSLFShape;
-import org.apache.poi.xslf.usermodel.XSLFTextShape;
-import org.apache.poi.xslf.usermodel.XSLFTextParagraph;
-import org.apache.poi.xslf.usermodel.XSLFTextRun;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class TextPlaceholderReplacer implements PlaceholderReplacer {
 
+    private final TextSubstitutionEngine substitutionEngine;
+
     @Override
     public boolean canHandle(Placeholder placeholder) {
         return placeholder.getType() == PlaceholderType.TEXT;
     }
 
+    /**
+     * Все ключи группы заменяются за один проход по text run
+     */
     @Override
-    public void replace(XMLSlideShow presentation, Placeholder placeholder) {
-        String searchPattern = "{{" + placeholder.getKey() + "}}";
-        String replacement = String.valueOf(placeholder.getValue());
-
-        for (XSLFSlide slide : presentation.getSlides()) {
-            for (XSLFShape shape : slide.getShapes()) {
-                if (shape instanceof XSLFTextShape) {
-                    XSLFTextShape textShape = (XSLFTextShape) shape;
-                    replaceTextInShape(textShape, searchPattern, replacement);
-                }
-            }
-        }
-
-        log.info("Replaced text placeholder: {} with value: {}", placeholder.getKey(), replacement);
+    public void replaceAll(XMLSlideShow presentation, List<Placeholder> placeholders) {
+        substitutionEngine.substitute(presentation, placeholders);
     }
 
-    private void replaceTextInShape(XSLFTextShape textShape, String searchPattern, String replacement) {
-        for (XSLFTextParagraph paragraph : textShape.getTextParagraphs()) {
-            for (XSLFTextRun run : paragraph.getTextRuns()) {
-                String text = run.getRawText();
-                if (text != null && text.contains(searchPattern)) {
-                    String newText = text.replace(searchPattern, replacement);
-                    run.setText(newText);
-                }
-            }
-        }
+    /**
+     * Текст меняется внутри существующих фигур, поэтому индекс области остается верным
+     */
+    @Override
+    public void replaceAll(ShapeIndex.Scope scope, List<Placeholder> placeholders) {
+        substitutionEngine.substitute(scope.index(), placeholders);
+    }
+
+    /**
+     * Плейсхолдер находится и в том случае, если PowerPoint разбил его на несколько text run
+     */
+    @Override
+    public void replace(XMLSlideShow presentation, Placeholder placeholder) {
+        substitutionEngine.substitute(presentation, List.of(placeholder));
+
+        log.info("Replaced text placeholder: {} with value: {}", placeholder.getKey(), placeholder.getValue());
     }
 }
@@ -0,0 +1,175 @@
+package com.example.reporting.service.replacer;
+
+import com.example.reporting.model.Placeholder;
+import com.example.reporting.service.template.RunSpan;
+import com.example.reporting.service.template.ShapeIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFTextParagraph;
+import org.apache.poi.xslf.usermodel.XSLFTextRun;
+import org.apache.poi.xslf.usermodel.XSLFTextShape;
+import org.openxmlformats.schemas.drawingml.x2006.main.CTTextLineBreak;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Пакетная замена TEXT и INSERT плейсхолдеров.
+ * Вместо обхода презентации для каждого ключа строит один {@link PlaceholderMatcher}
+ * и переписывает текст за один проход. Плейсхолдеры, разбитые на несколько
+ * text run одного абзаца, тоже находятся (см. {@link PlaceholderMatcher#applyAcross}).
+ */
+@Slf4j
+@Component
+public class TextSubstitutionEngine {
+
+    public int substitute(XMLSlideShow presentation, List<Placeholder> placeholders) {
+        return substitute(ShapeIndex.of(presentation), placeholders);
+    }
+
+    /**
+     * Как {@link #substitute(XMLSlideShow, List)}, но по уже построенному индексу фигур
+     */
+    public int substitute(ShapeIndex index, List<Placeholder> placeholders) {
+        PlaceholderMatcher matcher = PlaceholderMatcher.of(placeholders);
+        if (matcher.isEmpty()) {
+            return 0;
+        }
+
+        int replacedSpans = 0;
+        for (ShapeIndex.Entry entry : index.getEntries()) {
+            replacedSpans += substituteInShape(entry.getShape(), matcher);
+        }
+
+        log.info("Substituted {} text placeholders in a single pass ({} spans changed)",
+            matcher.size(), replacedSpans);
+        return replacedSpans;
+    }
+
+    /**
+     * Заменяет плейсхолдеры только в указанных фигурах, например в фигурах одного слайда
+     * из {@link ShapeIndex}
+     */
+    public int substituteInShapes(List<XSLFTextShape> shapes, List<Placeholder> placeholders) {
+        PlaceholderMatcher matcher = PlaceholderMatcher.of(placeholders);
+        if (matcher.isEmpty()) {
+            return 0;
+        }
+
+        int replacedSpans = 0;
+        for (XSLFTextShape shape : shapes) {
+            replacedSpans += substituteInShape(shape, matcher);
+        }
+        return replacedSpans;
+    }
+
+    /**
+     * Заменяет плейсхолдеры только в заранее найденных группах text run
+     * (см. индекс {@link com.example.reporting.service.template.CompiledTemplate})
+     */
+    public int substitute(List<RunSpan> spans, List<Placeholder> placeholders) {
+        PlaceholderMatcher matcher = PlaceholderMatcher.of(placeholders);
+        if (matcher.isEmpty()) {
+            return 0;
+        }
+
+        int replacedSpans = substituteInSpans(spans, matcher);
+
+        log.info("Substituted {} text placeholders in {} indexed spans ({} spans changed)",
+            matcher.size(), spans.size(), replacedSpans);
+        return replacedSpans;
+    }
+
+    /**
+     * Параллельная замена по слайдам: группы text run одного слайда (отдельной части пакета)
+     * обрабатываются одной задачей, поэтому задачи не изменяют общие XML-документы.
+     * Общие части презентации (изображения, связи) здесь не затрагиваются.
+     */
+    public int substituteParallel(List<RunSpan> spans, List<Placeholder> placeholders, ForkJoinPool pool) {
+        PlaceholderMatcher matcher = PlaceholderMatcher.of(placeholders);
+        if (matcher.isEmpty()) {
+            return 0;
+        }
+
+        Map<Integer, List<RunSpan>> bySlide = new TreeMap<>();
+        for (RunSpan span : spans) {
+            bySlide.computeIfAbsent(span.getSlideIndex(), index -> new ArrayList<>()).add(span);
+        }
+        Collection<List<RunSpan>> slides = bySlide.values();
+
+        int replacedSpans = pool.submit(() -> slides.parallelStream()
+            .mapToInt(slideSpans -> substituteInSpans(slideSpans, matcher))
+            .sum()).join();
+
+        log.info("Substituted {} text placeholders on {} slides in parallel ({} spans changed)",
+            matcher.size(), slides.size(), replacedSpans);
+        return replacedSpans;
+    }
+
+    private int substituteInSpans(List<RunSpan> spans, PlaceholderMatcher matcher) {
+        int count = 0;
+        for (RunSpan span : spans) {
+            if (substituteInRuns(span.getRuns(), matcher)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private int substituteInShape(XSLFTextShape textShape, PlaceholderMatcher matcher) {
+        int count = 0;
+
+        for (XSLFTextParagraph paragraph : textShape.getTextParagraphs()) {
+            // Плейсхолдер не может продолжаться через перенос строки
+            List<XSLFTextRun> runs = paragraph.getTextRuns();
+            int segmentStart = 0;
+            for (int r = 0; r <= runs.size(); r++) {
+                if (r == runs.size() || runs.get(r).getXmlObject() instanceof CTTextLineBreak) {
+                    if (r > segmentStart && substituteInRuns(runs.subList(segmentStart, r), matcher)) {
+                        count++;
+                    }
+                    segmentStart = r + 1;
+                }
+            }
+        }
+
+        return count;
+    }
+
+    private boolean substituteInRuns(List<XSLFTextRun> runs, PlaceholderMatcher matcher) {
+        if (runs.size() == 1) {
+            return substituteInRun(runs.get(0), matcher);
+        }
+
+        List<String> texts = new ArrayList<>(runs.size());
+        for (XSLFTextRun run : runs) {
+            texts.add(run.getRawText());
+        }
+        List<String> replaced = matcher.applyAcross(texts);
+        if (replaced == texts) {
+            return false;
+        }
+
+        for (int r = 0; r < runs.size(); r++) {
+            if (!replaced.get(r).equals(texts.get(r))) {
+                runs.get(r).setText(replaced.get(r));
+            }
+        }
+        return true;
+    }
+
+    private boolean substituteInRun(XSLFTextRun run, PlaceholderMatcher matcher) {
+        String text = run.getRawText();
+        String newText = matcher.apply(text);
+        if (newText == text) {
+            return false;
+        }
+        run.setText(newText);
+        return true;
+    }
+}
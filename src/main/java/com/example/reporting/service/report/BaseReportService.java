@@ -4,14 +4,23 @@ import com.example.reporting.model.Placeholder;
 import com.example.reporting.model.TemplateData;
 import com.example.reporting.service.PptxDownloadService;
 import com.example.reporting.service.PptxModificationService;
+import com.example.reporting.service.PptxReaderService;
+import com.example.reporting.service.RenderedPresentation;
+import com.example.reporting.service.cache.CachedOutput;
+import com.example.reporting.service.cache.RenderedOutputCache;
+import com.example.reporting.service.template.CompiledTemplate;
+import com.example.reporting.util.CapturingOutputStream;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.xslf.usermodel.XMLSlideShow;
-import org.springframework.core.io.Resource;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Базовый сервис для всех типов отчетов
@@ -22,8 +31,15 @@ import java.util.List;
 @RequiredArgsConstructor
 public class BaseReportService {
 
+    /**
+     * Адрес документов кеша результата; ответы генерации ссылаются на него в Content-Location
+     */
+    public static final String OUTPUTS_PATH = "/api/reports/outputs";
+
     private final PptxModificationService modificationService;
     private final PptxDownloadService downloadService;
+    private final PptxReaderService pptxReaderService;
+    private final RenderedOutputCache outputCache;
 
     /**
      * Универсальный метод генерации отчета
@@ -32,13 +48,30 @@ public class BaseReportService {
      * @param templatePath путь к шаблону (например, "templates/weekly-report.pptx")
      * @param placeholders список плейсхолдеров с данными
      * @param outputFilename имя выходного файла
-     * @return ResponseEntity с PPTX файлом для скачивания
+     * @return ResponseEntity, потоково отдающий PPTX файл; при включенном кеше результата
+     * документ до max-entry-bytes отдается с ETag (хеш содержимого) и Content-Location,
+     * по которому его можно перепроверить GET-запросом с If-None-Match (см. {@link #getCachedReport})
      */
-    public ResponseEntity<Resource> generateReport(
+    public ResponseEntity<StreamingResponseBody> generateReport(
         String templatePath,
         List<Placeholder> placeholders,
         String outputFilename
     ) throws Exception {
+        return generateReport(templatePath, placeholders, outputFilename, null);
+    }
+
+    /**
+     * Генерация отчета для безопасного (GET) запроса: при включенном кеше результата
+     * и совпадении If-None-Match с ETag документа в кеше отдается 304 без генерации
+     *
+     * @param ifNoneMatch значение заголовка If-None-Match или null
+     */
+    public ResponseEntity<StreamingResponseBody> generateReport(
+        String templatePath,
+        List<Placeholder> placeholders,
+        String outputFilename,
+        String ifNoneMatch
+    ) throws Exception {
 
         log.info("Generating report from template: {}, placeholders count: {}",
             templatePath, placeholders.size());
@@ -48,17 +81,42 @@ public class BaseReportService {
             .placeholders(placeholders)
             .build();
 
-        XMLSlideShow presentation = modificationService.modifyPresentation(templateData);
-
-        ResponseEntity<Resource> response = downloadService.prepareDownload(
-            presentation,
-            outputFilename
-        );
-
-        presentation.close();
-
+        if (outputCache.isEnabled()) {
+            CompiledTemplate template = pptxReaderService.getCompiledTemplate(templatePath);
+            String key = outputCache.key(templatePath, template.getVersion(), placeholders);
+            Optional<String> etag = ifNoneMatch != null ? outputCache.etag(key) : Optional.empty();
+            if (etag.isPresent() && matchesIfNoneMatch(ifNoneMatch, etag.get())) {
+                log.info("Report {} is not modified", outputFilename);
+                return downloadService.notModified(etag.get());
+            }
+            Optional<CachedOutput> cached = outputCache.get(key);
+            if (cached.isPresent()) {
+                log.info("Serving report from output cache: {}", outputFilename);
+                CachedOutput output = cached.get();
+                return downloadService.prepareDownload(output.getBytes(), outputFilename, output.getEtag(),
+                    location(key));
+            }
+
+            // Промах: документ сначала пишется в память, чтобы ETag был известен до заголовков ответа.
+            // Документ больше max-entry-bytes (заведомо - при шаблоне больше лимита) отдается потоково без ETag
+            RenderedPresentation presentation = modificationService.render(templateData);
+            if (template.getBytes().size() <= outputCache.getMaxEntryBytes()) {
+                byte[] bytes = buffer(presentation, templatePath);
+                if (bytes != null) {
+                    presentation.close();
+                    CachedOutput output = outputCache.put(key, bytes);
+                    log.info("Generated and cached report: {}", outputFilename);
+                    return downloadService.prepareDownload(bytes, outputFilename, output.getEtag(), location(key));
+                }
+            }
+            return downloadService.prepareStreamingDownload(presentation, templatePath, outputFilename);
+        }
+
+        RenderedPresentation presentation = modificationService.render(templateData);
+
+        // Презентация будет записана в ответ и закрыта при отправке
         log.info("Successfully generated report: {}", outputFilename);
-        return response;
+        return downloadService.prepareStreamingDownload(presentation, templatePath, outputFilename);
     }
 
     /**
@@ -77,9 +135,9 @@ public class BaseReportService {
             .placeholders(placeholders)
             .build();
 
-        XMLSlideShow presentation = modificationService.modifyPresentation(templateData);
-        byte[] bytes = downloadService.convertToBytes(presentation);
-        presentation.close();
+        byte[] bytes = outputCache.isEnabled()
+            ? cachedOutput(cacheKey(templatePath, placeholders), templateData).getBytes()
+            : render(templateData);
 
         log.info("Successfully generated report bytes, size: {} bytes", bytes.length);
         return bytes;
@@ -103,4 +161,82 @@ public class BaseReportService {
 
         return modificationService.modifyPresentation(templateData);
     }
-}
\ No newline at end of file
+
+    /**
+     * Документ из кеша результата по ключу из Content-Location ответа генерации.
+     * Запрос безопасный (GET/HEAD), поэтому при совпадении If-None-Match с ETag
+     * отдается 304 без чтения документа; неизвестный или вытесненный ключ - 404.
+     */
+    public ResponseEntity<StreamingResponseBody> getCachedReport(String key, String ifNoneMatch) {
+        if (!outputCache.isEnabled() || !RenderedOutputCache.isKey(key)) {
+            return ResponseEntity.notFound().build();
+        }
+        Optional<String> etag = outputCache.etag(key);
+        if (etag.isPresent() && matchesIfNoneMatch(ifNoneMatch, etag.get())) {
+            log.info("Cached report {} is not modified", key);
+            return downloadService.notModified(etag.get());
+        }
+
+        Optional<CachedOutput> cached = outputCache.get(key);
+        if (cached.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        CachedOutput output = cached.get();
+        return downloadService.prepareDownload(output.getBytes(), key + ".pptx", output.getEtag(), location(key));
+    }
+
+    /**
+     * Байты документа, если он не больше max-entry-bytes, иначе null; презентация не закрывается
+     */
+    private byte[] buffer(RenderedPresentation presentation, String templatePath) throws IOException {
+        try {
+            CapturingOutputStream capturingStream =
+                new CapturingOutputStream(OutputStream.nullOutputStream(), outputCache.getMaxEntryBytes());
+            downloadService.write(presentation, templatePath, capturingStream);
+            return capturingStream.getCaptured();
+        } catch (IOException | RuntimeException e) {
+            presentation.close();
+            throw e;
+        }
+    }
+
+    private static String location(String key) {
+        return OUTPUTS_PATH + "/" + key;
+    }
+
+    private byte[] render(TemplateData templateData) throws Exception {
+        try (RenderedPresentation presentation = modificationService.render(templateData)) {
+            return downloadService.convertToBytes(presentation, templateData.getTemplateName());
+        }
+    }
+
+    private CachedOutput cachedOutput(String key, TemplateData templateData) throws Exception {
+        Optional<CachedOutput> cached = outputCache.get(key);
+        if (cached.isPresent()) {
+            log.info("Serving report from output cache: {}", templateData.getTemplateName());
+            return cached.get();
+        }
+        return outputCache.put(key, render(templateData));
+    }
+
+    private String cacheKey(String templatePath, List<Placeholder> placeholders) throws IOException {
+        String version = pptxReaderService.getCompiledTemplate(templatePath).getVersion();
+        return outputCache.key(templatePath, version, placeholders);
+    }
+
+    private static boolean matchesIfNoneMatch(String header, String etag) {
+        if (header == null) {
+            return false;
+        }
+        for (String candidate : header.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
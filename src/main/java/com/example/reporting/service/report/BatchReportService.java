@@ -0,0 +1,198 @@
+package com.example.reporting.service.report;
+
+import com.example.reporting.model.BatchDocument;
+import com.example.reporting.model.TemplateData;
+import com.example.reporting.service.PptxDownloadService;
+import com.example.reporting.service.PptxModificationService;
+import com.example.reporting.service.RenderedPresentation;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Сервис пакетной генерации отчетов
+ * Документы рендерятся параллельно на ограниченном пуле и пишутся в ZIP по мере готовности.
+ * Одновременно в памяти находится не больше max-in-flight документов,
+ * поэтому потребление памяти не зависит от размера пакета.
+ */
+@Slf4j
+@Service
+public class BatchReportService {
+
+    private static final String ERRORS_ENTRY = "errors.txt";
+
+    private final PptxModificationService modificationService;
+    private final PptxDownloadService downloadService;
+    private final ExecutorService executor;
+    private final int maxInFlight;
+
+    public BatchReportService(
+        PptxModificationService modificationService,
+        PptxDownloadService downloadService,
+        @Value("${reporting.batch.parallelism:0}") int parallelism,
+        @Value("${reporting.batch.max-in-flight:0}") int maxInFlight
+    ) {
+        this.modificationService = modificationService;
+        this.downloadService = downloadService;
+
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "batch-report-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.maxInFlight = maxInFlight > 0 ? maxInFlight : threads * 2;
+    }
+
+    /**
+     * Рендерит все документы и пишет их в ZIP-архив.
+     * Ошибки отдельных документов не прерывают пакет, а попадают в errors.txt.
+     */
+    public void writeZip(List<BatchDocument> documents, OutputStream outputStream) throws IOException {
+        log.info("Generating batch of {} documents (max in flight: {})", documents.size(), maxInFlight);
+
+        CompletionService<RenderedDocument> completion = new ExecutorCompletionService<>(executor);
+        List<Future<RenderedDocument>> pending = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        Set<String> entryNames = new HashSet<>();
+        entryNames.add(ERRORS_ENTRY);
+        Iterator<BatchDocument> iterator = documents.iterator();
+        int index = 0;
+        int inFlight = 0;
+
+        try (ZipOutputStream zip = new ZipOutputStream(outputStream)) {
+            while (iterator.hasNext() || inFlight > 0) {
+                // Back-pressure: новые документы берутся в работу, только когда готовые записаны
+                while (inFlight < maxInFlight && iterator.hasNext()) {
+                    BatchDocument document = iterator.next();
+                    String filename = filenameOf(document, ++index);
+                    pending.add(completion.submit(() -> render(document, filename)));
+                    inFlight++;
+                }
+
+                Future<RenderedDocument> future = completion.take();
+                pending.remove(future);
+                inFlight--;
+
+                RenderedDocument rendered = future.get();
+                if (rendered.error != null) {
+                    errors.add(rendered.filename + ": " + rendered.error);
+                    continue;
+                }
+                writeEntry(zip, uniqueName(rendered.filename, entryNames), rendered.bytes);
+            }
+
+            if (!errors.isEmpty()) {
+                writeEntry(zip, ERRORS_ENTRY, String.join("\n", errors).getBytes(StandardCharsets.UTF_8));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Batch generation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Batch generation failed", e.getCause());
+        } finally {
+            // Клиент мог оборвать соединение - незачем дорендеривать остаток
+            pending.forEach(future -> future.cancel(true));
+        }
+
+        log.info("Batch generation finished: {} documents, {} errors", documents.size(), errors.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private RenderedDocument render(BatchDocument document, String filename) {
+        TemplateData templateData = TemplateData.builder()
+            .templateName(document.getTemplateName())
+            .placeholders(document.getPlaceholders())
+            .build();
+
+        try (RenderedPresentation presentation = modificationService.render(templateData)) {
+            return new RenderedDocument(filename, downloadService.convertToBytes(presentation, document.getTemplateName()), null);
+        } catch (Exception e) {
+            log.error("Error generating batch document: {}", filename, e);
+            return new RenderedDocument(filename, null, e.getMessage());
+        }
+    }
+
+    private void writeEntry(ZipOutputStream zip, String name, byte[] bytes) throws IOException {
+        // PPTX уже сжат, поэтому сохраняем без повторного сжатия
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+
+        ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(bytes.length);
+        entry.setCompressedSize(bytes.length);
+        entry.setCrc(crc.getValue());
+
+        zip.putNextEntry(entry);
+        zip.write(bytes);
+        zip.closeEntry();
+        zip.flush();
+    }
+
+    /**
+     * Имя записи ZIP: только базовое имя из запроса, без каталогов и разделителей путей,
+     * чтобы при распаковке запись не попала за пределы целевого каталога
+     */
+    private static String filenameOf(BatchDocument document, int index) {
+        String filename = document.getFilename();
+        if (filename != null) {
+            filename = filename.substring(Math.max(filename.lastIndexOf('/'), filename.lastIndexOf('\\')) + 1)
+                .replaceAll("[:\\p{Cntrl}]", "")
+                .strip();
+            if (!filename.isEmpty() && !filename.equals(".") && !filename.equals("..")) {
+                return filename;
+            }
+        }
+        return String.format("document-%d.pptx", index);
+    }
+
+    private String uniqueName(String filename, Set<String> entryNames) {
+        int dot = filename.lastIndexOf('.');
+        String base = dot > 0 ? filename.substring(0, dot) : filename;
+        String extension = dot > 0 ? filename.substring(dot) : "";
+        String name = filename;
+        int suffix = 1;
+        while (!entryNames.add(name)) {
+            name = base + "-" + (++suffix) + extension;
+        }
+        return name;
+    }
+
+    private static final class RenderedDocument {
+        private final String filename;
+        private final byte[] bytes;
+        private final String error;
+
+        private RenderedDocument(String filename, byte[] bytes, String error) {
+            this.filename = filename;
+            this.bytes = bytes;
+            this.error = error;
+        }
+    }
+}
@@ -1,19 +1,19 @@
 package com.example.reporting.service.report;
 
+import com.example.reporting.model.BatchDocument;
 import com.example.reporting.model.Placeholder;
 import com.example.reporting.model.PlaceholderType;
-import com.example.reporting.model.TemplateData;
-import com.example.reporting.service.PptxDownloadService;
-import com.example.reporting.service.PptxModificationService;
+import com.example.reporting.model.TableData;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.xslf.usermodel.XMLSlideShow;
-import org.springframework.core.io.Resource;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Сервис для генерации счетов/инвойсов
@@ -26,13 +26,12 @@ public class InvoiceReportService {
 
     private static final String TEMPLATE_PATH = "templates/invoice-template.pptx";
 
-    private final PptxModificationService modificationService;
-    private final PptxDownloadService downloadService;
+    private final BaseReportService baseReportService;
 
     /**
      * Генерирует счет (invoice)
      */
-    public ResponseEntity<Resource> generateInvoice(
+    public ResponseEntity<StreamingResponseBody> generateInvoice(
         String invoiceNumber,
         String clientName,
         String clientAddress,
@@ -45,6 +44,27 @@ public class InvoiceReportService {
 
         log.info("Generating invoice {} for client: {}", invoiceNumber, clientName);
 
+        BatchDocument invoice = buildInvoice(invoiceNumber, clientName, clientAddress, date,
+            productName, quantity, price, total);
+
+        return baseReportService.generateReport(invoice.getTemplateName(), invoice.getPlaceholders(),
+            invoice.getFilename());
+    }
+
+    /**
+     * Собирает плейсхолдеры счета без генерации файла
+     * Используется также пакетной генерацией счетов
+     */
+    public BatchDocument buildInvoice(
+        String invoiceNumber,
+        String clientName,
+        String clientAddress,
+        String date,
+        String productName,
+        int quantity,
+        double price,
+        double total
+    ) {
         List<Placeholder> placeholders = new ArrayList<>();
 
         // Номер счета (полная замена)
@@ -98,25 +118,17 @@ public class InvoiceReportService {
             .value(String.format("%.2f руб.", total))
             .build());
 
-        TemplateData templateData = TemplateData.builder()
+        return BatchDocument.builder()
+            .filename(String.format("invoice-%s.pptx", invoiceNumber))
             .templateName(TEMPLATE_PATH)
             .placeholders(placeholders)
             .build();
-
-        XMLSlideShow presentation = modificationService.modifyPresentation(templateData);
-        String filename = String.format("invoice-%s.pptx", invoiceNumber);
-
-        ResponseEntity<Resource> response = downloadService.prepareDownload(presentation, filename);
-        presentation.close();
-
-        log.info("Successfully generated invoice {}", invoiceNumber);
-        return response;
     }
 
     /**
      * Генерирует счет с несколькими позициями товаров
      */
-    public ResponseEntity<Resource> generateInvoiceMultipleItems(
+    public ResponseEntity<StreamingResponseBody> generateInvoiceMultipleItems(
         String invoiceNumber,
         String clientName,
         String clientAddress,
@@ -152,56 +164,36 @@ public class InvoiceReportService {
             .value(date)
             .build());
 
-        // Добавляем позиции товаров (предполагается, что в шаблоне есть $item1, $item2 и т.д.)
+        // Позиции товаров: строка таблицы шаблона с {{items.name}}, {{items.quantity}},
+        // {{items.price}}, {{items.total}} копируется на каждую позицию
         double total = 0;
-        for (int i = 0; i < items.size(); i++) {
-            InvoiceItem item = items.get(i);
+        List<Map<String, Object>> rows = new ArrayList<>(items.size());
+        for (InvoiceItem item : items) {
             double itemTotal = item.getQuantity() * item.getPrice();
             total += itemTotal;
 
-            placeholders.add(Placeholder.builder()
-                .key("item" + (i + 1) + "Name")
-                .type(PlaceholderType.INSERT)
-                .value(item.getName())
-                .build());
-
-            placeholders.add(Placeholder.builder()
-                .key("item" + (i + 1) + "Quantity")
-                .type(PlaceholderType.INSERT)
-                .value(String.valueOf(item.getQuantity()))
-                .build());
-
-            placeholders.add(Placeholder.builder()
-                .key("item" + (i + 1) + "Price")
-                .type(PlaceholderType.INSERT)
-                .value(String.format("%.2f", item.getPrice()))
-                .build());
-
-            placeholders.add(Placeholder.builder()
-                .key("item" + (i + 1) + "Total")
-                .type(PlaceholderType.INSERT)
-                .value(String.format("%.2f", itemTotal))
-                .build());
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("name", item.getName());
+            row.put("quantity", String.valueOf(item.getQuantity()));
+            row.put("price", String.format("%.2f", item.getPrice()));
+            row.put("total", String.format("%.2f", itemTotal));
+            rows.add(row);
         }
 
+        placeholders.add(Placeholder.builder()
+            .key("items")
+            .type(PlaceholderType.TABLE)
+            .value(TableData.builder().rows(rows).build())
+            .build());
+
         placeholders.add(Placeholder.builder()
             .key("grandTotal")
             .type(PlaceholderType.INSERT)
             .value(String.format("%.2f руб.", total))
             .build());
 
-        TemplateData templateData = TemplateData.builder()
-            .templateName(TEMPLATE_PATH)
-            .placeholders(placeholders)
-            .build();
-
-        XMLSlideShow presentation = modificationService.modifyPresentation(templateData);
         String filename = String.format("invoice-%s.pptx", invoiceNumber);
-
-        ResponseEntity<Resource> response = downloadService.prepareDownload(presentation, filename);
-        presentation.close();
-
-        return response;
+        return baseReportService.generateReport(TEMPLATE_PATH, placeholders, filename);
     }
 
     // Вложенный класс для позиций счета
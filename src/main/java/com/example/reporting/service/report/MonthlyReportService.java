@@ -1,18 +1,15 @@
 package com.example.reporting.service.report;
 
+import com.example.reporting.model.ChartData;
 import com.example.reporting.model.ImageData;
 import com.example.reporting.model.Placeholder;
 import com.example.reporting.model.PlaceholderType;
-import com.example.reporting.model.TemplateData;
-import com.example.reporting.service.PptxDownloadService;
-import com.example.reporting.service.PptxModificationService;
 import com.example.reporting.util.ImageUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.xslf.usermodel.XMLSlideShow;
-import org.springframework.core.io.Resource;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -29,13 +26,12 @@ public class MonthlyReportService {
 
     private static final String TEMPLATE_PATH = "templates/monthly-report.pptx";
 
-    private final PptxModificationService modificationService;
-    private final PptxDownloadService downloadService;
+    private final BaseReportService baseReportService;
 
     /**
      * Генерирует месячный отчет
      */
-    public ResponseEntity<Resource> generateMonthlyReport(
+    public ResponseEntity<StreamingResponseBody> generateMonthlyReport(
         String month,
         String year,
         String companyName,
@@ -44,7 +40,9 @@ public class MonthlyReportService {
         String profit,
         Path logoPath,
         Path revenueChartPath,
-        Path expensesChartPath
+        Path expensesChartPath,
+        ChartData revenueChart,
+        ChartData expensesChart
     ) throws Exception {
 
         log.info("Generating monthly report for {} {}, company: {}", month, year, companyName);
@@ -106,38 +104,31 @@ public class MonthlyReportService {
                 .build());
         }
 
-        // График выручки
-        if (revenueChartPath != null) {
-            ImageData revenueChart = ImageUtils.loadImageFromFile(revenueChartPath);
+        // Графики: данные нативной диаграммы шаблона, иначе готовое изображение
+        addChart(placeholders, "revenueChart", revenueChart, revenueChartPath);
+        addChart(placeholders, "expensesChart", expensesChart, expensesChartPath);
+
+        String filename = String.format("monthly-report-%s-%s.pptx", month, year);
+
+        log.info("Generating monthly report for {} {}", month, year);
+        return baseReportService.generateReport(TEMPLATE_PATH, placeholders, filename);
+    }
+
+    private void addChart(List<Placeholder> placeholders, String key, ChartData data, Path imagePath)
+        throws Exception {
+        if (data != null) {
             placeholders.add(Placeholder.builder()
-                .key("revenueChart")
-                .type(PlaceholderType.IMAGE)
-                .value(revenueChart)
+                .key(key)
+                .type(PlaceholderType.CHART)
+                .value(data)
                 .build());
-        }
-
-        // График расходов
-        if (expensesChartPath != null) {
-            ImageData expensesChart = ImageUtils.loadImageFromFile(expensesChartPath);
+        } else if (imagePath != null) {
+            ImageData image = ImageUtils.loadImageFromFile(imagePath);
             placeholders.add(Placeholder.builder()
-                .key("expensesChart")
+                .key(key)
                 .type(PlaceholderType.IMAGE)
-                .value(expensesChart)
+                .value(image)
                 .build());
         }
-
-        TemplateData templateData = TemplateData.builder()
-            .templateName(TEMPLATE_PATH)
-            .placeholders(placeholders)
-            .build();
-
-        XMLSlideShow presentation = modificationService.modifyPresentation(templateData);
-        String filename = String.format("monthly-report-%s-%s.pptx", month, year);
-
-        ResponseEntity<Resource> response = downloadService.prepareDownload(presentation, filename);
-        presentation.close();
-
-        log.info("Successfully generated monthly report for {} {}", month, year);
-        return response;
     }
-}
\ No newline at end of file
+}
@@ -10,9 +10,9 @@ import com.example.reporting.util.ImageUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.xslf.usermodel.XMLSlideShow;
-import org.springframework.core.io.Resource;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -41,9 +41,9 @@ WeeklyReportService {
      * @param tasksCompleted количество выполненных задач
      * @param tasksInProgress количество задач в работе
      * @param chartImagePath путь к изображению графика
-     * @return ResponseEntity с PPTX файлом
+     * @return ResponseEntity, потоково отдающий PPTX файл
      */
-    public ResponseEntity<Resource> generateWeeklyReport(
+    public ResponseEntity<StreamingResponseBody> generateWeeklyReport(
         int weekNumber,
         String projectName,
         int tasksCompleted,
@@ -53,6 +53,62 @@ WeeklyReportService {
 
         log.info("Generating weekly report for week {}, project: {}", weekNumber, projectName);
 
+        List<Placeholder> placeholders = placeholders(weekNumber, projectName, tasksCompleted, tasksInProgress);
+
+        // Изображение графика
+        if (chartImagePath != null) {
+            ImageData chartImage = ImageUtils.loadImageFromFile(chartImagePath);
+            placeholders.add(Placeholder.builder()
+                .key("chart")
+                .type(PlaceholderType.IMAGE)
+                .value(chartImage)
+                .build());
+        }
+
+        // Используем базовый метод для генерации
+        return baseReportService.generateReport(TEMPLATE_PATH, placeholders, filename(weekNumber));
+    }
+
+    /**
+     * Еженедельный отчет для GET-запроса (без графика): повторный запрос с If-None-Match
+     * получает 304 без генерации, если документ есть в кеше результата
+     * (reporting.output.cache.enabled=true; при выключенном кеше отчет генерируется каждый раз)
+     *
+     * @param ifNoneMatch значение заголовка If-None-Match или null
+     */
+    public ResponseEntity<StreamingResponseBody> getWeeklyReport(
+        int weekNumber,
+        String projectName,
+        int tasksCompleted,
+        int tasksInProgress,
+        String ifNoneMatch
+    ) throws Exception {
+
+        log.info("Generating weekly report for week {}, project: {} (GET)", weekNumber, projectName);
+
+        List<Placeholder> placeholders = placeholders(weekNumber, projectName, tasksCompleted, tasksInProgress);
+        return baseReportService.generateReport(TEMPLATE_PATH, placeholders, filename(weekNumber), ifNoneMatch);
+    }
+
+    /**
+     * Упрощенная версия с Map параметров
+     */
+    public ResponseEntity<StreamingResponseBody> generateWeeklyReport(Map<String, Object> data) throws Exception {
+        int weekNumber = (int) data.getOrDefault("weekNumber", 1);
+        String projectName = (String) data.getOrDefault("projectName", "Unknown Project");
+        int tasksCompleted = (int) data.getOrDefault("tasksCompleted", 0);
+        int tasksInProgress = (int) data.getOrDefault("tasksInProgress", 0);
+        Path chartImagePath = (Path) data.get("chartImagePath");
+
+        return generateWeeklyReport(weekNumber, projectName, tasksCompleted, tasksInProgress, chartImagePath);
+    }
+
+    private static List<Placeholder> placeholders(
+        int weekNumber,
+        String projectName,
+        int tasksCompleted,
+        int tasksInProgress
+    ) {
         List<Placeholder> placeholders = new ArrayList<>();
 
         // Заголовок (полная замена)
@@ -87,31 +143,10 @@ WeeklyReportService {
             .value(String.valueOf(tasksInProgress))
             .build());
 
-        // Изображение графика
-        if (chartImagePath != null) {
-            ImageData chartImage = ImageUtils.loadImageFromFile(chartImagePath);
-            placeholders.add(Placeholder.builder()
-                .key("chart")
-                .type(PlaceholderType.IMAGE)
-                .value(chartImage)
-                .build());
-        }
-
-        // Используем базовый метод для генерации
-        String filename = String.format("weekly-report-week-%d.pptx", weekNumber);
-        return baseReportService.generateReport(TEMPLATE_PATH, placeholders, filename);
+        return placeholders;
     }
 
-    /**
-     * Упрощенная версия с Map параметров
-     */
-    public ResponseEntity<Resource> generateWeeklyReport(Map<String, Object> data) throws Exception {
-        int weekNumber = (int) data.getOrDefault("weekNumber", 1);
-        String projectName = (String) data.getOrDefault("projectName", "Unknown Project");
-        int tasksCompleted = (int) data.getOrDefault("tasksCompleted", 0);
-        int tasksInProgress = (int) data.getOrDefault("tasksInProgress", 0);
-        Path chartImagePath = (Path) data.get("chartImagePath");
-
-        return generateWeeklyReport(weekNumber, projectName, tasksCompleted, tasksInProgress, chartImagePath);
+    private static String filename(int weekNumber) {
+        return String.format("weekly-report-week-%d.pptx", weekNumber);
     }
 }
\ No newline at end of file
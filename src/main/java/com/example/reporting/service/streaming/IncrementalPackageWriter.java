@@ -0,0 +1,70 @@
+package com.example.reporting.service.streaming;
+
+import com.example.reporting.service.RenderedPresentation;
+import com.example.reporting.service.template.TemplateBytes;
+import com.example.reporting.util.DeterministicZipOutputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Запись измененной через POI презентации, при которой части пакета, не изменившиеся
+ * относительно шаблона, не сжимаются заново, а копируются из шаблона как есть.
+ * Больше всего это экономит на шаблонах с большим количеством медиа.
+ * Все записи получают фиксированную дату, поэтому одинаковые данные дают побайтно
+ * одинаковый результат (см. {@link DeterministicZipOutputStream}).
+ */
+@Slf4j
+@Component
+public class IncrementalPackageWriter {
+
+    private final boolean enabled;
+    private final int deflateLevel;
+    private final boolean storeMedia;
+
+    public IncrementalPackageWriter(
+        @Value("${reporting.output.raw-copy:true}") boolean enabled,
+        @Value("${reporting.output.deflate-level:-1}") int deflateLevel,
+        @Value("${reporting.output.store-media:true}") boolean storeMedia
+    ) {
+        this.enabled = enabled;
+        this.deflateLevel = deflateLevel;
+        this.storeMedia = storeMedia;
+    }
+
+    /**
+     * @param template байты, из которых была открыта презентация
+     */
+    public RenderedPresentation prepare(XMLSlideShow presentation, TemplateBytes template) {
+        return new RenderedPresentation() {
+            @Override
+            public void writeTo(OutputStream outputStream) throws IOException {
+                write(presentation, template, outputStream);
+            }
+
+            @Override
+            public void close() throws IOException {
+                presentation.close();
+            }
+        };
+    }
+
+    public void write(XMLSlideShow presentation, TemplateBytes template, OutputStream outputStream)
+        throws IOException {
+        try (ZipFile templateZip = enabled ? new ZipFile(template.openChannel()) : null;
+             RawCopyZipOutputStream zip = new RawCopyZipOutputStream(
+                 CloseShieldOutputStream.wrap(outputStream), templateZip, deflateLevel, storeMedia)) {
+            // POI пишет пакет в переданный ZipArchiveOutputStream, не создавая свой, и сам завершает архив
+            presentation.write(zip);
+
+            log.debug("Wrote presentation: {} entries copied from template, {} compressed",
+                zip.getCopiedEntries(), zip.getCompressedEntries());
+        }
+    }
+}
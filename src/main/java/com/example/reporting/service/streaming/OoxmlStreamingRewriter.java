@@ -0,0 +1,204 @@
+package com.example.reporting.service.streaming;
+
+import com.example.reporting.model.Placeholder;
+import com.example.reporting.service.RenderedPresentation;
+import com.example.reporting.service.replacer.PlaceholderMatcher;
+import com.example.reporting.service.template.CompiledTemplate;
+import com.example.reporting.util.DeterministicZipOutputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.springframework.stereotype.Component;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.XMLEvent;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.ZipEntry;
+
+/**
+ * Замена TEXT и INSERT плейсхолдеров без построения POI DOM.
+ * Слайды с плейсхолдерами (по индексу {@link CompiledTemplate}) читаются через StAX,
+ * текст абзацев переписывается {@link PlaceholderMatcher}, остальные записи пакета
+ * (медиа, макеты, темы) копируются в выходной ZIP в сжатом виде без распаковки.
+ * Даты записей фиксированы, поэтому результат детерминирован.
+ */
+@Slf4j
+@Component
+public class OoxmlStreamingRewriter {
+
+    private static final String DRAWINGML_NS = "http://schemas.openxmlformats.org/drawingml/2006/main";
+    private static final QName PARAGRAPH = new QName(DRAWINGML_NS, "p");
+    private static final QName TEXT = new QName(DRAWINGML_NS, "t");
+    private static final QName LINE_BREAK = new QName(DRAWINGML_NS, "br");
+
+    private final XMLInputFactory inputFactory;
+    private final XMLOutputFactory outputFactory = XMLOutputFactory.newFactory();
+    private final XMLEventFactory eventFactory = XMLEventFactory.newFactory();
+
+    public OoxmlStreamingRewriter() {
+        inputFactory = XMLInputFactory.newFactory();
+        inputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    /**
+     * Откладывает переписывание до записи: в памяти не создается ни DOM, ни копия результата
+     */
+    public RenderedPresentation prepare(CompiledTemplate template, List<Placeholder> placeholders) {
+        PlaceholderMatcher matcher = PlaceholderMatcher.of(placeholders);
+        return new RenderedPresentation() {
+            @Override
+            public void writeTo(OutputStream outputStream) throws IOException {
+                rewrite(template, matcher, outputStream);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    public void rewrite(CompiledTemplate template, PlaceholderMatcher matcher, OutputStream outputStream)
+        throws IOException {
+        int rewritten = 0;
+        int copied = 0;
+
+        try (ZipFile zipFile = new ZipFile(template.getBytes().openChannel());
+             ZipArchiveOutputStream zip = new DeterministicZipOutputStream(CloseShieldOutputStream.wrap(outputStream))) {
+            Enumeration<ZipArchiveEntry> entries = zipFile.getEntriesInPhysicalOrder();
+            while (entries.hasMoreElements()) {
+                ZipArchiveEntry entry = entries.nextElement();
+                if (!matcher.isEmpty() && template.getPlaceholderParts().contains(entry.getName())) {
+                    ZipArchiveEntry slideEntry = new ZipArchiveEntry(entry.getName());
+                    slideEntry.setMethod(ZipEntry.DEFLATED);
+                    zip.putArchiveEntry(slideEntry);
+                    try (InputStream inputStream = zipFile.getInputStream(entry)) {
+                        rewriteSlide(inputStream, zip, matcher);
+                    }
+                    zip.closeArchiveEntry();
+                    rewritten++;
+                } else {
+                    zip.addRawArchiveEntry(entry, zipFile.getRawInputStream(entry));
+                    copied++;
+                }
+            }
+            zip.finish();
+        }
+
+        log.info("Rewrote template {} by streaming: {} slides rewritten, {} entries copied",
+            template.getTemplatePath(), rewritten, copied);
+    }
+
+    private void rewriteSlide(InputStream inputStream, OutputStream outputStream, PlaceholderMatcher matcher)
+        throws IOException {
+        try {
+            XMLEventReader reader = inputFactory.createXMLEventReader(inputStream);
+            XMLEventWriter writer = outputFactory.createXMLEventWriter(
+                CloseShieldOutputStream.wrap(outputStream), "UTF-8");
+
+            // События абзаца копятся целиком: плейсхолдер может быть разбит на несколько run
+            List<XMLEvent> paragraph = null;
+            while (reader.hasNext()) {
+                XMLEvent event = reader.nextEvent();
+                if (paragraph == null) {
+                    if (event.isStartElement() && event.asStartElement().getName().equals(PARAGRAPH)) {
+                        paragraph = new ArrayList<>();
+                        paragraph.add(event);
+                    } else {
+                        writer.add(event);
+                    }
+                } else {
+                    paragraph.add(event);
+                    if (event.isEndElement() && event.asEndElement().getName().equals(PARAGRAPH)) {
+                        substituteInParagraph(paragraph, matcher);
+                        for (XMLEvent paragraphEvent : paragraph) {
+                            writer.add(paragraphEvent);
+                        }
+                        paragraph = null;
+                    }
+                }
+            }
+
+            writer.flush();
+            writer.close();
+            reader.close();
+        } catch (XMLStreamException e) {
+            throw new IOException("Failed to rewrite slide XML", e);
+        }
+    }
+
+    /**
+     * Заменяет текст a:t абзаца; участки между переносами строк (a:br) обрабатываются отдельно
+     */
+    private void substituteInParagraph(List<XMLEvent> paragraph, PlaceholderMatcher matcher) {
+        List<Integer> segment = new ArrayList<>();
+        boolean inText = false;
+        boolean textHasCharacters = false;
+
+        for (int i = 0; i < paragraph.size(); i++) {
+            XMLEvent event = paragraph.get(i);
+            if (event.isStartElement()) {
+                QName name = event.asStartElement().getName();
+                if (name.equals(TEXT)) {
+                    inText = true;
+                    textHasCharacters = false;
+                } else if (name.equals(LINE_BREAK)) {
+                    substituteInSegment(paragraph, segment, matcher);
+                    segment.clear();
+                }
+            } else if (event.isCharacters() && inText) {
+                segment.add(i);
+                textHasCharacters = true;
+            } else if (event.isEndElement() && event.asEndElement().getName().equals(TEXT)) {
+                if (!textHasCharacters) {
+                    // Пустой a:t: совпадение в нем начаться не может, текст не нужен
+                    segment.add(-1);
+                }
+                inText = false;
+            }
+        }
+        substituteInSegment(paragraph, segment, matcher);
+    }
+
+    private void substituteInSegment(List<XMLEvent> paragraph, List<Integer> segment, PlaceholderMatcher matcher) {
+        if (segment.isEmpty()) {
+            return;
+        }
+
+        List<String> texts = new ArrayList<>(segment.size());
+        boolean candidate = false;
+        for (int index : segment) {
+            String text = index >= 0 ? paragraph.get(index).asCharacters().getData() : "";
+            candidate |= text.indexOf('{') >= 0 || text.indexOf('$') >= 0;
+            texts.add(text);
+        }
+        if (!candidate) {
+            return;
+        }
+
+        List<String> replaced = matcher.applyAcross(texts);
+        if (replaced == texts) {
+            return;
+        }
+        for (int k = 0; k < segment.size(); k++) {
+            int index = segment.get(k);
+            if (index >= 0 && !replaced.get(k).equals(texts.get(k))) {
+                paragraph.set(index, eventFactory.createCharacters(replaced.get(k)));
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.reporting.service.streaming;
+
+import com.example.reporting.util.DeterministicZipOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+/**
+ * ZIP-поток, который получает записи от POI и сравнивает их с записями шаблона.
+ * Запись с тем же именем, размером и CRC копируется из шаблона в сжатом виде,
+ * остальные сжимаются заново (уже сжатые форматы медиа - методом STORED).
+ * Без шаблона (template == null) все записи сжимаются заново.
+ */
+class RawCopyZipOutputStream extends DeterministicZipOutputStream {
+
+    private static final Set<String> COMPRESSED_MEDIA = Set.of(
+        "png", "jpg", "jpeg", "gif", "wdp", "mp3", "m4a", "mp4", "m4v", "mov", "wmv", "avi", "zip");
+
+    private final ZipFile template;
+    private final boolean storeMedia;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+    private ZipArchiveEntry pending;
+    private int copiedEntries;
+    private int compressedEntries;
+
+    RawCopyZipOutputStream(OutputStream outputStream, ZipFile template, int deflateLevel, boolean storeMedia) {
+        super(outputStream);
+        this.template = template;
+        this.storeMedia = storeMedia;
+        setLevel(deflateLevel);
+    }
+
+    @Override
+    public void putArchiveEntry(ZipArchiveEntry entry) {
+        // Содержимое записи буферизуется: решение о копировании принимается при закрытии
+        pending = entry;
+        buffer.reset();
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        if (pending != null) {
+            buffer.write(bytes, offset, length);
+        } else {
+            super.write(bytes, offset, length);
+        }
+    }
+
+    @Override
+    public void closeArchiveEntry() throws IOException {
+        if (pending == null) {
+            super.closeArchiveEntry();
+            return;
+        }
+
+        ZipArchiveEntry entry = pending;
+        pending = null;
+
+        CRC32 crc = new CRC32();
+        buffer.writeTo(new CrcOutputStream(crc));
+        ZipArchiveEntry original = template != null ? template.getEntry(entry.getName()) : null;
+
+        if (original != null && original.getSize() == buffer.size() && original.getCrc() == crc.getValue()) {
+            try (InputStream rawStream = template.getRawInputStream(original)) {
+                addRawArchiveEntry(original, rawStream);
+            }
+            copiedEntries++;
+            return;
+        }
+
+        if (storeMedia && isCompressedMedia(entry.getName())) {
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(buffer.size());
+            entry.setCompressedSize(buffer.size());
+            entry.setCrc(crc.getValue());
+        } else {
+            entry.setMethod(ZipEntry.DEFLATED);
+        }
+        super.putArchiveEntry(entry);
+        buffer.writeTo(new EntryOutputStream());
+        super.closeArchiveEntry();
+        compressedEntries++;
+    }
+
+    int getCopiedEntries() {
+        return copiedEntries;
+    }
+
+    int getCompressedEntries() {
+        return compressedEntries;
+    }
+
+    private boolean isCompressedMedia(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 && COMPRESSED_MEDIA.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    private final class EntryOutputStream extends OutputStream {
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            RawCopyZipOutputStream.super.write(bytes, offset, length);
+        }
+    }
+
+    private static final class CrcOutputStream extends OutputStream {
+        private final CRC32 crc;
+
+        private CrcOutputStream(CRC32 crc) {
+            this.crc = crc;
+        }
+
+        @Override
+        public void write(int b) {
+            crc.update(b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            crc.update(bytes, offset, length);
+        }
+    }
+}
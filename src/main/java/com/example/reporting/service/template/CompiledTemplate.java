@@ -0,0 +1,72 @@
+package com.example.reporting.service.template;
+
+import lombok.Getter;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFTextRun;
+import org.apache.poi.xslf.usermodel.XSLFTextShape;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Шаблон, разобранный один раз: нормализованные байты версии шаблона
+ * (см. {@link TemplateCompiler}) и индекс позиций плейсхолдеров.
+ * Каждый запрос получает собственную копию через {@link #open()} и сразу
+ * переходит к проиндексированным text run, не обходя весь DOM.
+ */
+@Getter
+public class CompiledTemplate {
+
+    private final String templatePath;
+    private final TemplateBytes bytes;
+    private final List<PlaceholderLocation> locations;
+    // Имена записей ZIP (ppt/slides/slideN.xml, заметки, макеты) частей с плейсхолдерами
+    private final Set<String> placeholderParts;
+
+    public CompiledTemplate(String templatePath, TemplateBytes bytes, List<PlaceholderLocation> locations,
+                            Set<String> placeholderParts) {
+        this.templatePath = templatePath;
+        this.bytes = bytes;
+        this.locations = List.copyOf(locations);
+        this.placeholderParts = Set.copyOf(placeholderParts);
+    }
+
+    public String getVersion() {
+        return bytes.getVersion();
+    }
+
+    /**
+     * Создает новый изменяемый экземпляр презентации из закешированных байтов
+     */
+    public XMLSlideShow open() throws IOException {
+        try (InputStream inputStream = bytes.openStream()) {
+            return new XMLSlideShow(inputStream);
+        }
+    }
+
+    /**
+     * Находит в открытой копии группы text run, отмеченные индексом
+     */
+    public List<RunSpan> resolveSpans(XMLSlideShow presentation) {
+        return resolveSpans(ShapeIndex.scope(presentation));
+    }
+
+    /**
+     * Как {@link #resolveSpans(XMLSlideShow)}, но с индексом фигур области генерации
+     */
+    public List<RunSpan> resolveSpans(ShapeIndex.Scope scope) {
+        List<RunSpan> spans = new ArrayList<>(locations.size());
+        List<ShapeIndex.Entry> entries = locations.isEmpty() ? List.of() : scope.index().getEntries();
+        for (PlaceholderLocation location : locations) {
+            XSLFTextShape shape = entries.get(location.getShapeIndex()).getShape();
+            List<XSLFTextRun> runs = shape.getTextParagraphs()
+                .get(location.getParagraphIndex()).getTextRuns();
+            spans.add(new RunSpan(location.getSlideIndex(),
+                runs.subList(location.getRunIndex(), location.getRunIndex() + location.getRunCount())));
+        }
+        return spans;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.reporting.service.template;
+
+import lombok.Value;
+
+/**
+ * Позиция text run, в которых шаблон содержит плейсхолдер.
+ * runCount больше 1, если плейсхолдер разбит на несколько run с разным форматированием.
+ * shapeIndex - позиция фигуры в {@link ShapeIndex}, slideIndex - {@link ShapeIndex#NO_SLIDE} для макетов.
+ */
+@Value
+public class PlaceholderLocation {
+    int slideIndex;
+    int shapeIndex;
+    int paragraphIndex;
+    int runIndex;
+    int runCount;
+}
@@ -0,0 +1,185 @@
+package com.example.reporting.service.template;
+
+import com.example.reporting.service.metrics.GenerationMetrics;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Пул заранее разобранных, еще не измененных копий презентаций для каждого шаблона.
+ * Запрос забирает готовую копию, а фоновый поток разбирает замену, так что разбор
+ * не попадает на поток запроса. Если пул пуст, копия разбирается на месте, как раньше.
+ * Размер задается общим reporting.templates.pool.size и может быть переопределен
+ * для отдельных шаблонов; 0 отключает пул. Копии устаревшей версии шаблона, вытесненного
+ * шаблона и оставшиеся при остановке приложения закрываются.
+ */
+@Slf4j
+@Component
+public class PresentationPool {
+
+    private final GenerationMetrics metrics;
+    private final int defaultSize;
+    private final Map<String, Integer> sizes;
+    private final ExecutorService refiller;
+    private final Map<String, Pool> pools = new ConcurrentHashMap<>();
+
+    public PresentationPool(
+        TemplateBytesCache templateBytesCache,
+        GenerationMetrics metrics,
+        @Value("${reporting.templates.pool.size:2}") int defaultSize,
+        @Value("#{${reporting.templates.pool.sizes:{:}}}") Map<String, Integer> sizes,
+        @Value("${reporting.templates.pool.refill-threads:1}") int refillThreads
+    ) {
+        this.metrics = metrics;
+        this.defaultSize = defaultSize;
+        this.sizes = Map.copyOf(sizes);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.refiller = Executors.newFixedThreadPool(Math.max(1, refillThreads), runnable -> {
+            Thread thread = new Thread(runnable, "template-pool-refill-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Копии вытесненного или измененного шаблона больше не нужны
+        templateBytesCache.addInvalidationListener(this::evict);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refiller.shutdownNow();
+        for (String templatePath : pools.keySet()) {
+            evict(templatePath);
+        }
+    }
+
+    /**
+     * Возвращает изменяемую копию шаблона, которой владеет вызывающий
+     */
+    public XMLSlideShow acquire(CompiledTemplate template) throws IOException {
+        String templatePath = template.getTemplatePath();
+        int size = sizes.getOrDefault(templatePath, defaultSize);
+        if (size <= 0) {
+            return template.open();
+        }
+
+        Timer.Sample sample = metrics.start();
+        Pool[] replaced = new Pool[1];
+        Pool pool = pools.compute(templatePath, (path, current) -> {
+            if (current != null && current.template.getVersion().equals(template.getVersion())) {
+                return current;
+            }
+            replaced[0] = current;
+            return new Pool(template, size);
+        });
+        if (replaced[0] != null) {
+            replaced[0].close();
+        }
+
+        XMLSlideShow presentation = pool.instances.poll();
+        boolean hit = presentation != null;
+        if (!hit) {
+            presentation = template.open();
+        }
+        metrics.recordPoolAcquire(sample, templatePath, hit);
+
+        pool.refill();
+        return presentation;
+    }
+
+    private void evict(String templatePath) {
+        Pool pool = pools.remove(templatePath);
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    /**
+     * Число готовых копий шаблона
+     */
+    int available(String templatePath) {
+        Pool pool = pools.get(templatePath);
+        return pool == null ? 0 : pool.instances.size();
+    }
+
+    private final class Pool {
+        private final CompiledTemplate template;
+        private final int size;
+        private final BlockingQueue<XMLSlideShow> instances;
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile boolean closed;
+
+        private Pool(CompiledTemplate template, int size) {
+            this.template = template;
+            this.size = size;
+            this.instances = new ArrayBlockingQueue<>(size);
+        }
+
+        private void refill() {
+            while (instances.size() + pending.get() < size) {
+                if (instances.size() + pending.incrementAndGet() > size) {
+                    pending.decrementAndGet();
+                    return;
+                }
+                long requestedAt = System.nanoTime();
+                try {
+                    refiller.execute(() -> open(requestedAt));
+                } catch (RejectedExecutionException e) {
+                    pending.decrementAndGet();
+                    return;
+                }
+            }
+        }
+
+        private void open(long requestedAt) {
+            try {
+                XMLSlideShow presentation = template.open();
+                // Пул мог быть заменен новой версией шаблона, пока копия разбиралась
+                if (pools.get(template.getTemplatePath()) == this && instances.offer(presentation)) {
+                    metrics.recordPoolRefill(System.nanoTime() - requestedAt, template.getTemplatePath());
+                    // Пул могли закрыть между проверкой и добавлением копии
+                    if (closed) {
+                        closeIdle();
+                    }
+                } else {
+                    presentation.close();
+                }
+            } catch (IOException e) {
+                log.warn("Could not refill presentation pool for template {}", template.getTemplatePath(), e);
+            } finally {
+                pending.decrementAndGet();
+            }
+        }
+
+        /**
+         * Пул больше не используется: готовые копии закрываются, новые не добавляются
+         */
+        private void close() {
+            closed = true;
+            closeIdle();
+        }
+
+        private void closeIdle() {
+            XMLSlideShow presentation;
+            while ((presentation = instances.poll()) != null) {
+                try {
+                    presentation.close();
+                } catch (IOException e) {
+                    log.warn("Could not close pooled presentation of template {}", template.getTemplatePath(), e);
+                }
+            }
+        }
+    }
+}
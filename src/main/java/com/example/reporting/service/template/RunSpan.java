@@ -0,0 +1,16 @@
+package com.example.reporting.service.template;
+
+import lombok.Value;
+import org.apache.poi.xslf.usermodel.XSLFTextRun;
+
+import java.util.List;
+
+/**
+ * Последовательные text run одного абзаца, в которых шаблон содержит плейсхолдеры,
+ * в том числе разбитые PowerPoint на несколько run
+ */
+@Value
+public class RunSpan {
+    int slideIndex;
+    List<XSLFTextRun> runs;
+}
@@ -0,0 +1,157 @@
+package com.example.reporting.service.template;
+
+import lombok.Value;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFGroupShape;
+import org.apache.poi.xslf.usermodel.XSLFNotes;
+import org.apache.poi.xslf.usermodel.XSLFShape;
+import org.apache.poi.xslf.usermodel.XSLFShapeContainer;
+import org.apache.poi.xslf.usermodel.XSLFSheet;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+import org.apache.poi.xslf.usermodel.XSLFSlideLayout;
+import org.apache.poi.xslf.usermodel.XSLFSlideMaster;
+import org.apache.poi.xslf.usermodel.XSLFTable;
+import org.apache.poi.xslf.usermodel.XSLFTableCell;
+import org.apache.poi.xslf.usermodel.XSLFTableRow;
+import org.apache.poi.xslf.usermodel.XSLFTextShape;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Плоский список текстовых фигур презентации: фигуры слайдов вместе с вложенными
+ * в группы, ячейки таблиц, заметки докладчика, макеты и образцы слайдов.
+ * Внутри {@link #scope(XMLSlideShow) области} одной генерации индекс строится один раз
+ * и используется всеми заменителями, которым область передается явно, поэтому рекурсивный
+ * обход и проверки типов не повторяются для каждого ключа. {@link #of(XMLSlideShow)} строит
+ * индекс заново и ничего не хранит.
+ * Порядок обхода детерминирован: позиция в списке одинакова в шаблоне и в его копиях
+ * (см. {@link PlaceholderLocation#getShapeIndex()}).
+ */
+public final class ShapeIndex {
+
+    // Фигуры макетов и образцов не принадлежат слайду
+    public static final int NO_SLIDE = -1;
+
+    private final List<Entry> entries;
+
+    private ShapeIndex(List<Entry> entries) {
+        this.entries = List.copyOf(entries);
+    }
+
+    /**
+     * Новый индекс презентации
+     */
+    public static ShapeIndex of(XMLSlideShow presentation) {
+        return build(presentation);
+    }
+
+    /**
+     * Область, в которой индекс презентации строится при первом обращении и переиспользуется
+     */
+    public static Scope scope(XMLSlideShow presentation) {
+        return new Scope(presentation);
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    private static ShapeIndex build(XMLSlideShow presentation) {
+        List<Entry> entries = new ArrayList<>();
+
+        List<XSLFSlide> slides = presentation.getSlides();
+        for (int s = 0; s < slides.size(); s++) {
+            XSLFSlide slide = slides.get(s);
+            collect(slide, slide, s, entries);
+            XSLFNotes notes = slide.getNotes();
+            if (notes != null) {
+                collect(notes, notes, s, entries);
+            }
+        }
+        for (XSLFSlideMaster master : presentation.getSlideMasters()) {
+            collect(master, master, NO_SLIDE, entries);
+            for (XSLFSlideLayout layout : master.getSlideLayouts()) {
+                collect(layout, layout, NO_SLIDE, entries);
+            }
+        }
+
+        return new ShapeIndex(entries);
+    }
+
+    private static void collect(XSLFSheet sheet, XSLFShapeContainer container, int slideIndex, List<Entry> entries) {
+        for (XSLFShape shape : container.getShapes()) {
+            if (shape instanceof XSLFGroupShape group) {
+                collect(sheet, group, slideIndex, entries);
+            } else if (shape instanceof XSLFTable table) {
+                for (XSLFTableRow row : table.getRows()) {
+                    for (XSLFTableCell cell : row.getCells()) {
+                        entries.add(new Entry(sheet, null, table, slideIndex, cell));
+                    }
+                }
+            } else if (shape instanceof XSLFTextShape textShape) {
+                entries.add(new Entry(sheet, container, null, slideIndex, textShape));
+            }
+        }
+    }
+
+    /**
+     * Область переиспользования индекса одной презентации. Создается генерацией
+     * и передается заменителям явно; глобального реестра областей нет, поэтому область
+     * и презентация освобождаются вместе с генерацией.
+     * Не потокобезопасна: область принадлежит потоку, который заполняет презентацию,
+     * и не должна передаваться другим потокам.
+     */
+    public static final class Scope {
+        private final XMLSlideShow presentation;
+        private ShapeIndex index;
+
+        private Scope(XMLSlideShow presentation) {
+            this.presentation = presentation;
+        }
+
+        public XMLSlideShow getPresentation() {
+            return presentation;
+        }
+
+        /**
+         * Индекс презентации; строится при первом обращении и после {@link #invalidate()}
+         */
+        public ShapeIndex index() {
+            if (index == null) {
+                index = build(presentation);
+            }
+            return index;
+        }
+
+        /**
+         * Сбрасывает индекс после изменения состава фигур (замена фигуры изображением, копирование слайдов)
+         */
+        public void invalidate() {
+            index = null;
+        }
+    }
+
+    /**
+     * Текстовая фигура и ее место в презентации
+     */
+    @Value
+    public static class Entry {
+        // Часть пакета, в XML которой лежит фигура (слайд, заметки, макет)
+        XSLFSheet sheet;
+        // Слайд или группа, в которой фигуру можно заменить другой; null для ячеек таблиц
+        XSLFShapeContainer container;
+        // Таблица, которой принадлежит ячейка; null для остальных фигур
+        XSLFTable table;
+        // Индекс слайда, к которому относятся фигура или заметки, либо NO_SLIDE
+        int slideIndex;
+        XSLFTextShape shape;
+
+        /**
+         * Фигура лежит на самом слайде (не в заметках, не в макете) и может быть заменена
+         */
+        public boolean isReplaceable() {
+            return container != null && sheet instanceof XSLFSlide;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.reporting.service.template;
+
+import lombok.Getter;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * Неизменяемые байты шаблона в куче или вне ее (direct buffer).
+ * Версия - SHA-256 содержимого, меняется только при реальном изменении файла.
+ */
+public class TemplateBytes {
+
+    private final byte[] heapBytes;
+    private final ByteBuffer offHeapBytes;
+    @Getter
+    private final String version;
+
+    private TemplateBytes(byte[] heapBytes, ByteBuffer offHeapBytes, String version) {
+        this.heapBytes = heapBytes;
+        this.offHeapBytes = offHeapBytes;
+        this.version = version;
+    }
+
+    public static TemplateBytes onHeap(byte[] bytes, String version) {
+        return new TemplateBytes(bytes, null, version);
+    }
+
+    public static TemplateBytes offHeap(byte[] bytes, String version) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes).flip();
+        return new TemplateBytes(null, buffer.asReadOnlyBuffer(), version);
+    }
+
+    /**
+     * Другое содержимое той же версии и с тем же способом хранения
+     * (например, нормализованный при компиляции шаблон)
+     */
+    public TemplateBytes withContent(byte[] bytes) {
+        return heapBytes != null ? onHeap(bytes, version) : offHeap(bytes, version);
+    }
+
+    public int size() {
+        return heapBytes != null ? heapBytes.length : offHeapBytes.capacity();
+    }
+
+    public InputStream openStream() {
+        if (heapBytes != null) {
+            return new ByteArrayInputStream(heapBytes);
+        }
+        return new ByteBufferInputStream(offHeapBytes.duplicate());
+    }
+
+    /**
+     * Канал только для чтения поверх содержимого без копирования - для произвольного
+     * доступа к записям ZIP (см. {@link com.example.reporting.service.streaming.OoxmlStreamingRewriter})
+     */
+    public SeekableByteChannel openChannel() {
+        return new ByteBufferChannel(heapBytes != null
+            ? ByteBuffer.wrap(heapBytes).asReadOnlyBuffer()
+            : offHeapBytes.duplicate());
+    }
+
+    /**
+     * Возвращает копию содержимого (для off-heap - копирование в кучу)
+     */
+    public byte[] toByteArray() {
+        if (heapBytes != null) {
+            return heapBytes.clone();
+        }
+        byte[] bytes = new byte[size()];
+        offHeapBytes.duplicate().get(bytes);
+        return bytes;
+    }
+
+    private static final class ByteBufferChannel implements SeekableByteChannel {
+        private final ByteBuffer buffer;
+        private boolean open = true;
+
+        private ByteBufferChannel(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read(ByteBuffer destination) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(destination.remaining(), buffer.remaining());
+            ByteBuffer slice = buffer.slice();
+            slice.limit(count);
+            destination.put(slice);
+            buffer.position(buffer.position() + count);
+            return count;
+        }
+
+        @Override
+        public int write(ByteBuffer source) {
+            throw new NonWritableChannelException();
+        }
+
+        @Override
+        public long position() {
+            return buffer.position();
+        }
+
+        @Override
+        public SeekableByteChannel position(long newPosition) {
+            buffer.position((int) Math.min(newPosition, buffer.limit()));
+            return this;
+        }
+
+        @Override
+        public long size() {
+            return buffer.limit();
+        }
+
+        @Override
+        public SeekableByteChannel truncate(long size) {
+            throw new NonWritableChannelException();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
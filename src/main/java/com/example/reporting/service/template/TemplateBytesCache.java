@@ -0,0 +1,269 @@
+package com.example.reporting.service.template;
+
+import com.example.reporting.exception.InvalidRequestException;
+import com.example.reporting.exception.TemplateProcessingException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.support.ResourcePatternUtils;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Кеш байтов шаблонов с LRU-вытеснением по суммарному размеру.
+ * Шаблоны читаются из classpath или из каталога reporting.templates.directory.
+ * Не чаще раза в check-interval проверяется дата изменения файла; при изменении
+ * содержимого (по хешу) шаблон перечитывается без перезапуска приложения.
+ */
+@Slf4j
+@Component
+public class TemplateBytesCache {
+
+    private static final String TEMPLATE_EXTENSION = ".pptx";
+
+    private final ResourceLoader resourceLoader;
+    private final String directory;
+    private final long maxBytes;
+    private final boolean offHeap;
+    private final long checkIntervalMillis;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final List<Consumer<String>> invalidationListeners = new CopyOnWriteArrayList<>();
+    private long totalBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong reloads = new AtomicLong();
+
+    public TemplateBytesCache(
+        ResourceLoader resourceLoader,
+        @Value("${reporting.templates.directory:}") String directory,
+        @Value("${reporting.templates.cache.max-bytes:67108864}") long maxBytes,
+        @Value("${reporting.templates.cache.off-heap:false}") boolean offHeap,
+        @Value("${reporting.templates.cache.check-interval-ms:2000}") long checkIntervalMillis
+    ) {
+        this.resourceLoader = resourceLoader;
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.offHeap = offHeap;
+        this.checkIntervalMillis = checkIntervalMillis;
+    }
+
+    /**
+     * Подписка на вытеснение или перезагрузку шаблона (например, для сброса производных кешей)
+     */
+    public void addInvalidationListener(Consumer<String> listener) {
+        invalidationListeners.add(listener);
+    }
+
+    public TemplateBytes get(String templatePath) throws IOException {
+        long now = System.currentTimeMillis();
+
+        synchronized (this) {
+            Entry entry = entries.get(templatePath);
+            if (entry != null && now - entry.checkedAt < checkIntervalMillis) {
+                hits.incrementAndGet();
+                return entry.bytes;
+            }
+        }
+
+        Resource resource = resolve(templatePath);
+        long lastModified = lastModified(resource);
+
+        synchronized (this) {
+            Entry entry = entries.get(templatePath);
+            if (entry != null && entry.lastModified == lastModified) {
+                entry.checkedAt = now;
+                hits.incrementAndGet();
+                return entry.bytes;
+            }
+        }
+
+        byte[] data = read(resource, templatePath);
+        String version = sha256(data);
+
+        synchronized (this) {
+            Entry entry = entries.get(templatePath);
+            if (entry != null && entry.bytes.getVersion().equals(version)) {
+                // Дата изменилась, содержимое - нет
+                entry.lastModified = lastModified;
+                entry.checkedAt = now;
+                hits.incrementAndGet();
+                return entry.bytes;
+            }
+
+            if (entry == null) {
+                misses.incrementAndGet();
+            } else {
+                reloads.incrementAndGet();
+                totalBytes -= entry.bytes.size();
+                log.info("Template changed, reloading: {}", templatePath);
+            }
+
+            TemplateBytes bytes = offHeap ? TemplateBytes.offHeap(data, version) : TemplateBytes.onHeap(data, version);
+            entries.put(templatePath, new Entry(bytes, lastModified, now));
+            totalBytes += bytes.size();
+            evictIfNeeded(templatePath);
+
+            if (entry != null) {
+                notifyInvalidated(templatePath);
+            }
+            return bytes;
+        }
+    }
+
+    /**
+     * Находит все PPTX шаблоны под location (например, "templates/") в том же источнике,
+     * из которого читает {@link #get}. Возвращает пути в том виде, в котором их принимает {@link #get}.
+     */
+    public List<String> listTemplates(String location) throws IOException {
+        List<String> templates = new ArrayList<>();
+        if (directory.isEmpty()) {
+            Resource[] resources = ResourcePatternUtils.getResourcePatternResolver(resourceLoader)
+                .getResources("classpath*:" + location + "**/*" + TEMPLATE_EXTENSION);
+            for (Resource resource : resources) {
+                String url = resource.getURL().toString();
+                int start = url.lastIndexOf("/" + location);
+                if (start >= 0) {
+                    templates.add(url.substring(start + 1));
+                }
+            }
+        } else {
+            Path root = Path.of(directory);
+            Path start = root.resolve(location);
+            if (Files.isDirectory(start)) {
+                try (Stream<Path> paths = Files.walk(start)) {
+                    paths.filter(path -> path.toString().endsWith(TEMPLATE_EXTENSION) && Files.isRegularFile(path))
+                        .map(path -> root.relativize(path).toString().replace('\\', '/'))
+                        .forEach(templates::add);
+                }
+            }
+        }
+        templates.sort(null);
+        return templates;
+    }
+
+    public synchronized TemplateCacheStats getStats() {
+        return new TemplateCacheStats(hits.get(), misses.get(), evictions.get(), reloads.get(),
+            entries.size(), totalBytes, maxBytes);
+    }
+
+    private void evictIfNeeded(String keep) {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Entry> eldest = iterator.next();
+            if (eldest.getKey().equals(keep)) {
+                continue;
+            }
+            iterator.remove();
+            totalBytes -= eldest.getValue().bytes.size();
+            evictions.incrementAndGet();
+            log.info("Evicted template from cache: {}", eldest.getKey());
+            notifyInvalidated(eldest.getKey());
+        }
+    }
+
+    private void notifyInvalidated(String templatePath) {
+        for (Consumer<String> listener : invalidationListeners) {
+            listener.accept(templatePath);
+        }
+    }
+
+    private Resource resolve(String templatePath) {
+        Resource resource = directory.isEmpty()
+            ? resourceLoader.getResource("classpath:" + relativePath(templatePath))
+            : new FileSystemResource(fileInDirectory(templatePath));
+        if (!resource.exists()) {
+            throw new TemplateProcessingException("Template not found: " + templatePath);
+        }
+        return resource;
+    }
+
+    /**
+     * Путь шаблона относительно корня classpath; выход за корень ("../", абсолютный путь) запрещен
+     */
+    private static String relativePath(String templatePath) {
+        Path path = path(templatePath).normalize();
+        if (path.isAbsolute() || path.startsWith("..")) {
+            throw new InvalidRequestException("Template path is outside of templates root: " + templatePath);
+        }
+        return path.toString().replace('\\', '/');
+    }
+
+    /**
+     * Файл шаблона внутри reporting.templates.directory; путь, выходящий за каталог, запрещен
+     */
+    private Path fileInDirectory(String templatePath) {
+        Path root = Path.of(directory).toAbsolutePath().normalize();
+        Path file = root.resolve(path(templatePath)).normalize();
+        if (!file.startsWith(root)) {
+            throw new InvalidRequestException("Template path is outside of templates directory: " + templatePath);
+        }
+        return file;
+    }
+
+    private static Path path(String templatePath) {
+        try {
+            return Path.of(templatePath);
+        } catch (InvalidPathException e) {
+            throw new InvalidRequestException("Invalid template path: " + templatePath, e);
+        }
+    }
+
+    private long lastModified(Resource resource) {
+        try {
+            return resource.lastModified();
+        } catch (IOException e) {
+            // Для ресурсов без даты изменения полагаемся на хеш содержимого
+            return -1;
+        }
+    }
+
+    private byte[] read(Resource resource, String templatePath) throws IOException {
+        try (InputStream inputStream = resource.getInputStream()) {
+            byte[] data = inputStream.readAllBytes();
+            log.debug("Read template {} ({} bytes)", templatePath, data.length);
+            return data;
+        }
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Entry {
+        private final TemplateBytes bytes;
+        private long lastModified;
+        private long checkedAt;
+
+        private Entry(TemplateBytes bytes, long lastModified, long checkedAt) {
+            this.bytes = bytes;
+            this.lastModified = lastModified;
+            this.checkedAt = checkedAt;
+        }
+    }
+}
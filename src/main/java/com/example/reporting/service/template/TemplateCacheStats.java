@@ -0,0 +1,17 @@
+package com.example.reporting.service.template;
+
+import lombok.Value;
+
+/**
+ * Счетчики кеша байтов шаблонов
+ */
+@Value
+public class TemplateCacheStats {
+    long hits;
+    long misses;
+    long evictions;
+    long reloads;
+    int entries;
+    long totalBytes;
+    long maxBytes;
+}
@@ -0,0 +1,222 @@
+package com.example.reporting.service.template;
+
+import com.example.reporting.util.DeterministicZipOutputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFTextParagraph;
+import org.apache.poi.xslf.usermodel.XSLFTextRun;
+import org.apache.poi.xslf.usermodel.XSLFTextShape;
+import org.openxmlformats.schemas.drawingml.x2006.main.CTRegularTextRun;
+import org.openxmlformats.schemas.drawingml.x2006.main.CTTextCharacterProperties;
+import org.openxmlformats.schemas.drawingml.x2006.main.CTTextLineBreak;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Разбирает и нормализует шаблон, строит индекс text run, содержащих {{key}} или $key.
+ * Соседние run с одинаковым форматированием объединяются, поэтому плейсхолдер,
+ * разбитый PowerPoint при редактировании, снова оказывается в одном run.
+ * Плейсхолдеры, разбитые между run с разным форматированием, индексируются
+ * как одна группа run и заменяются за один проход.
+ * Индексируются все текстовые фигуры {@link ShapeIndex}: группы, ячейки таблиц, заметки и макеты.
+ */
+@Slf4j
+@Component
+public class TemplateCompiler {
+
+    public CompiledTemplate compile(String templatePath, TemplateBytes bytes) throws IOException {
+        List<PlaceholderLocation> locations = new ArrayList<>();
+        Set<String> placeholderParts = new HashSet<>();
+        TemplateBytes compiledBytes;
+        int mergedRuns = 0;
+
+        try (InputStream inputStream = bytes.openStream();
+             XMLSlideShow presentation = new XMLSlideShow(inputStream)) {
+            // Позиция фигуры в плоском индексе одинакова в шаблоне и в его копиях
+            List<ShapeIndex.Entry> entries = ShapeIndex.of(presentation).getEntries();
+            for (int sh = 0; sh < entries.size(); sh++) {
+                ShapeIndex.Entry entry = entries.get(sh);
+                int indexed = locations.size();
+                mergedRuns += indexShape(entry.getShape(), entry.getSlideIndex(), sh, locations);
+                if (locations.size() > indexed) {
+                    // Имя части без ведущего "/" совпадает с именем записи ZIP
+                    placeholderParts.add(entry.getSheet().getPackagePart().getPartName().getName().substring(1));
+                }
+            }
+
+            // Индекс указывает на нормализованную структуру, поэтому копии открываются из нее.
+            // Шаблон сохраняется через POI даже без объединенных run: тогда неизмененные части
+            // результата побайтно совпадают с шаблоном и копируются при записи без сжатия
+            // (см. IncrementalPackageWriter)
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(bytes.size());
+            try (DeterministicZipOutputStream zip = new DeterministicZipOutputStream(outputStream)) {
+                presentation.write(zip);
+            }
+            compiledBytes = bytes.withContent(outputStream.toByteArray());
+        }
+
+        log.info("Compiled template: {}, indexed {} placeholder spans, merged {} runs",
+            templatePath, locations.size(), mergedRuns);
+        return new CompiledTemplate(templatePath, compiledBytes, locations, placeholderParts);
+    }
+
+    private int indexShape(XSLFTextShape textShape, int slideIndex, int shapeIndex,
+                           List<PlaceholderLocation> locations) {
+        int merged = 0;
+        List<XSLFTextParagraph> paragraphs = textShape.getTextParagraphs();
+        for (int p = 0; p < paragraphs.size(); p++) {
+            merged += mergeRuns(paragraphs.get(p));
+
+            // Плейсхолдер не может продолжаться через перенос строки
+            List<XSLFTextRun> runs = paragraphs.get(p).getTextRuns();
+            int segmentStart = 0;
+            for (int r = 0; r <= runs.size(); r++) {
+                if (r == runs.size() || runs.get(r).getXmlObject() instanceof CTTextLineBreak) {
+                    indexSegment(runs, segmentStart, r, slideIndex, shapeIndex, p, locations);
+                    segmentStart = r + 1;
+                }
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Объединяет соседние run с одинаковым форматированием
+     *
+     * @return число удаленных run
+     */
+    private int mergeRuns(XSLFTextParagraph paragraph) {
+        int merged = 0;
+        List<XSLFTextRun> runs = paragraph.getTextRuns();
+        int r = 0;
+        while (r + 1 < runs.size()) {
+            XSLFTextRun current = runs.get(r);
+            XSLFTextRun next = runs.get(r + 1);
+            if (sameFormatting(current, next)) {
+                current.setText(current.getRawText() + next.getRawText());
+                paragraph.removeTextRun(next);
+                merged++;
+            } else {
+                r++;
+            }
+        }
+        return merged;
+    }
+
+    private boolean sameFormatting(XSLFTextRun first, XSLFTextRun second) {
+        return first.getXmlObject() instanceof CTRegularTextRun
+            && second.getXmlObject() instanceof CTRegularTextRun
+            && formattingKey((CTRegularTextRun) first.getXmlObject())
+                .equals(formattingKey((CTRegularTextRun) second.getXmlObject()));
+    }
+
+    /**
+     * Свойства run без служебных отметок редактора (проверка орфографии и т.п.),
+     * из-за которых PowerPoint и разбивает текст
+     */
+    private String formattingKey(CTRegularTextRun run) {
+        if (!run.isSetRPr()) {
+            return "";
+        }
+        CTTextCharacterProperties properties = (CTTextCharacterProperties) run.getRPr().copy();
+        if (properties.isSetDirty()) {
+            properties.unsetDirty();
+        }
+        if (properties.isSetErr()) {
+            properties.unsetErr();
+        }
+        if (properties.isSetSmtClean()) {
+            properties.unsetSmtClean();
+        }
+        return properties.xmlText();
+    }
+
+    /**
+     * Находит плейсхолдеры в run [from, to) абзаца и записывает группы run, которые они занимают
+     */
+    private void indexSegment(List<XSLFTextRun> runs, int from, int to, int slideIndex, int shapeIndex,
+                              int paragraphIndex, List<PlaceholderLocation> locations) {
+        if (from >= to) {
+            return;
+        }
+
+        StringBuilder joined = new StringBuilder();
+        int[] ends = new int[to - from];
+        for (int r = from; r < to; r++) {
+            String text = runs.get(r).getRawText();
+            if (text != null) {
+                joined.append(text);
+            }
+            ends[r - from] = joined.length();
+        }
+        String text = joined.toString();
+
+        int spanFirst = -1;
+        int spanLast = -1;
+        int i = 0;
+        while (i < text.length()) {
+            int end = placeholderEnd(text, i);
+            if (end < 0) {
+                i++;
+                continue;
+            }
+
+            int first = runAt(ends, i);
+            int last = runAt(ends, end - 1);
+            if (spanFirst >= 0 && first > spanLast) {
+                locations.add(new PlaceholderLocation(slideIndex, shapeIndex, paragraphIndex,
+                    from + spanFirst, spanLast - spanFirst + 1));
+                spanFirst = -1;
+            }
+            if (spanFirst < 0) {
+                spanFirst = first;
+            }
+            spanLast = Math.max(spanLast, last);
+            i = end;
+        }
+
+        if (spanFirst >= 0) {
+            locations.add(new PlaceholderLocation(slideIndex, shapeIndex, paragraphIndex,
+                from + spanFirst, spanLast - spanFirst + 1));
+        }
+    }
+
+    /**
+     * Конец возможного плейсхолдера, начинающегося в позиции i, или -1.
+     * Ключи INSERT заранее неизвестны, поэтому $key продолжается до конца слова.
+     */
+    private int placeholderEnd(String text, int i) {
+        if (text.startsWith("{{", i)) {
+            int close = text.indexOf("}}", i + 2);
+            return close >= 0 ? close + 2 : i + 2;
+        }
+        if (text.charAt(i) == '$') {
+            int end = i + 1;
+            while (end < text.length() && isKeyChar(text.charAt(end))) {
+                end++;
+            }
+            return end;
+        }
+        return -1;
+    }
+
+    private boolean isKeyChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    private int runAt(int[] ends, int position) {
+        for (int r = 0; r < ends.length; r++) {
+            if (position < ends[r]) {
+                return r;
+            }
+        }
+        return ends.length - 1;
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.reporting.service.warmup;
+
+import com.example.reporting.model.Placeholder;
+import com.example.reporting.model.PlaceholderType;
+import com.example.reporting.model.TemplateData;
+import com.example.reporting.service.PptxModificationService;
+import com.example.reporting.service.PptxReaderService;
+import com.example.reporting.service.RenderedPresentation;
+import com.example.reporting.service.streaming.IncrementalPackageWriter;
+import com.example.reporting.service.template.CompiledTemplate;
+import com.example.reporting.service.template.TemplateBytesCache;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Прогрев шаблонов при старте. Все шаблоны из reporting.templates.warmup.location
+ * загружаются, компилируются и один раз генерируются с синтетическими значениями,
+ * чтобы загрузка классов, инициализация схем XMLBeans и разбор шаблона не доставались
+ * первым запросам после деплоя.
+ * ApplicationRunner выполняется до публикации готовности (ApplicationReadyEvent),
+ * а до завершения прогрева индикатор здоровья возвращает OUT_OF_SERVICE.
+ */
+@Slf4j
+@Component
+public class TemplateWarmup implements ApplicationRunner, HealthIndicator {
+
+    private static final String WARMUP_VALUE = "warmup";
+
+    private final TemplateBytesCache templateBytesCache;
+    private final PptxReaderService pptxReaderService;
+    private final PptxModificationService modificationService;
+    private final IncrementalPackageWriter packageWriter;
+    private final boolean enabled;
+    private final String location;
+    private final int parallelism;
+
+    private final AtomicInteger warmed = new AtomicInteger();
+    private final Map<String, String> failures = new ConcurrentHashMap<>();
+    private volatile int discovered;
+    private volatile long durationMillis = -1;
+
+    public TemplateWarmup(
+        TemplateBytesCache templateBytesCache,
+        PptxReaderService pptxReaderService,
+        PptxModificationService modificationService,
+        IncrementalPackageWriter packageWriter,
+        @Value("${reporting.templates.warmup.enabled:true}") boolean enabled,
+        @Value("${reporting.templates.warmup.location:templates/}") String location,
+        @Value("${reporting.templates.warmup.parallelism:2}") int parallelism
+    ) {
+        this.templateBytesCache = templateBytesCache;
+        this.pptxReaderService = pptxReaderService;
+        this.modificationService = modificationService;
+        this.packageWriter = packageWriter;
+        this.enabled = enabled;
+        this.location = location;
+        this.parallelism = parallelism;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (!enabled) {
+            durationMillis = 0;
+            return;
+        }
+
+        long start = System.nanoTime();
+        List<String> templates = templateBytesCache.listTemplates(location);
+        discovered = templates.size();
+        log.info("Warming up {} templates from {} with parallelism {}", templates.size(), location, parallelism);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, parallelism), runnable -> {
+            Thread thread = new Thread(runnable, "template-warmup-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (String template : templates) {
+                executor.execute(() -> warmUp(template));
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+
+        durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.info("Template warm-up finished in {} ms: {} warmed, {} failed",
+            durationMillis, warmed.get(), failures.size());
+    }
+
+    @Override
+    public Health health() {
+        if (durationMillis < 0) {
+            return Health.outOfService()
+                .withDetail("discovered", discovered)
+                .withDetail("warmed", warmed.get())
+                .build();
+        }
+        // Сломанный шаблон не должен снимать с балансировки все приложение: ошибки только в деталях
+        return Health.up()
+            .withDetail("enabled", enabled)
+            .withDetail("discovered", discovered)
+            .withDetail("warmed", warmed.get())
+            .withDetail("failed", Map.copyOf(failures))
+            .withDetail("durationMs", durationMillis)
+            .build();
+    }
+
+    private void warmUp(String templateName) {
+        try {
+            CompiledTemplate template = pptxReaderService.getCompiledTemplate(templateName);
+            List<Placeholder> placeholders = new ArrayList<>();
+            try (XMLSlideShow presentation = template.open()) {
+                for (String key : pptxReaderService.extractPlaceholders(presentation)) {
+                    placeholders.add(Placeholder.builder().key(key).type(PlaceholderType.TEXT).value(WARMUP_VALUE).build());
+                }
+            }
+            TemplateData templateData = TemplateData.builder()
+                .templateName(templateName)
+                .placeholders(placeholders)
+                .build();
+
+            // Потоковый путь для текстовых плейсхолдеров и путь через POI DOM с записью
+            try (RenderedPresentation rendered = modificationService.render(templateData)) {
+                rendered.writeTo(OutputStream.nullOutputStream());
+            }
+            try (XMLSlideShow presentation = modificationService.modifyPresentation(templateData)) {
+                packageWriter.write(presentation, template.getBytes(), OutputStream.nullOutputStream());
+            }
+
+            warmed.incrementAndGet();
+            log.debug("Warmed up template {}", templateName);
+        } catch (Exception e) {
+            failures.put(templateName, String.valueOf(e.getMessage()));
+            log.warn("Could not warm up template {}", templateName, e);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.reporting.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Поток, который пишет дальше и одновременно сохраняет копию записанного, пока она
+ * не превысит лимит; после превышения копия отбрасывается, запись продолжается
+ */
+public class CapturingOutputStream extends FilterOutputStream {
+
+    private final long limit;
+    private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+    public CapturingOutputStream(OutputStream out, long limit) {
+        super(out);
+        this.limit = limit;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        capture(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        capture(b, off, len);
+    }
+
+    /**
+     * Копия записанных байтов или null, если записано больше лимита
+     */
+    public byte[] getCaptured() {
+        return copy != null ? copy.toByteArray() : null;
+    }
+
+    private void capture(byte[] b, int off, int len) {
+        if (copy == null) {
+            return;
+        }
+        if (copy.size() + (long) len > limit) {
+            copy = null;
+            return;
+        }
+        copy.write(b, off, len);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.reporting.util;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * ZIP-поток с одинаковой датой изменения у всех записей.
+ * Без этого каждая запись получает текущее время, и одинаковые по содержимому
+ * презентации отличаются побайтно, а хеш результата нельзя использовать как ETag.
+ * POI пишет пакет прямо в такой поток, если передать его в XMLSlideShow.write.
+ */
+public class DeterministicZipOutputStream extends ZipArchiveOutputStream {
+
+    // 2000-01-01T00:00:00Z: представима в формате DOS в любом часовом поясе
+    public static final long ENTRY_TIME = 946_684_800_000L;
+
+    public DeterministicZipOutputStream(OutputStream outputStream) {
+        super(outputStream);
+    }
+
+    @Override
+    public void putArchiveEntry(ZipArchiveEntry entry) throws IOException {
+        entry.setTime(ENTRY_TIME);
+        super.putArchiveEntry(entry);
+    }
+
+    @Override
+    public void addRawArchiveEntry(ZipArchiveEntry entry, InputStream rawStream) throws IOException {
+        ZipArchiveEntry copy = new ZipArchiveEntry(entry);
+        copy.setTime(ENTRY_TIME);
+        super.addRawArchiveEntry(copy, rawStream);
+    }
+}
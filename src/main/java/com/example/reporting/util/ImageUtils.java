@@ -6,6 +6,9 @@ import org.apache.poi.sl.usermodel.PictureData;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 
 public class ImageUtils {
 
@@ -24,6 +27,51 @@ public class ImageUtils {
         return createImageData(imageBytes, contentType);
     }
 
+    /**
+     * SHA-256 содержимого изображения в hex - ключ для дедупликации и кешей
+     */
+    public static String contentHash(byte[] imageBytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(imageBytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Определяет формат по сигнатуре файла, null если формат не распознан
+     */
+    public static PictureData.PictureType detectPictureType(byte[] imageBytes) {
+        if (startsWith(imageBytes, 0x89, 'P', 'N', 'G')) {
+            return PictureData.PictureType.PNG;
+        }
+        if (startsWith(imageBytes, 0xFF, 0xD8, 0xFF)) {
+            return PictureData.PictureType.JPEG;
+        }
+        if (startsWith(imageBytes, 'G', 'I', 'F', '8')) {
+            return PictureData.PictureType.GIF;
+        }
+        if (startsWith(imageBytes, 'B', 'M')) {
+            return PictureData.PictureType.BMP;
+        }
+        if (startsWith(imageBytes, 'I', 'I', 42, 0) || startsWith(imageBytes, 'M', 'M', 0, 42)) {
+            return PictureData.PictureType.TIFF;
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] bytes, int... signature) {
+        if (bytes == null || bytes.length < signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if ((bytes[i] & 0xFF) != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private static PictureData.PictureType getPictureType(String contentType) {
         if (contentType == null) {
             return PictureData.PictureType.PNG;
@@ -0,0 +1,104 @@
+package com.example.reporting.controller;
+
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFShape;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+import org.apache.poi.xslf.usermodel.XSLFTextShape;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Запросы с телом JSON: значения сложных плейсхолдеров приходят картами и списками Jackson
+ */
+@SpringBootTest
+class PptxControllerJsonTest {
+
+    @TempDir
+    static Path templatesDir;
+
+    @Autowired
+    private WebApplicationContext context;
+
+    private MockMvc mockMvc;
+
+    @DynamicPropertySource
+    static void templates(DynamicPropertyRegistry registry) {
+        registry.add("reporting.templates.directory", () -> templatesDir.toString());
+    }
+
+    @BeforeAll
+    static void createTemplate() throws Exception {
+        try (XMLSlideShow presentation = new XMLSlideShow();
+             OutputStream outputStream = Files.newOutputStream(templatesDir.resolve("regions.pptx"))) {
+            presentation.createSlide().createTextBox().setText("{{#regions}}Регион: {{name}}");
+            presentation.write(outputStream);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    @Test
+    void modify_shouldRepeatSlidesFromJsonIterations() throws Exception {
+        String body = """
+            {"templateName": "regions.pptx", "placeholders": [{"key": "regions", "type": "REPEAT", "value":
+              {"iterations": [[{"key": "name", "type": "TEXT", "value": "Север"}],
+                              [{"key": "name", "type": "TEXT", "value": "Юг"}]]}}]}
+            """;
+
+        byte[] result = mockMvc.perform(post("/api/pptx/modify").contentType(MediaType.APPLICATION_JSON).content(body))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsByteArray();
+
+        try (XMLSlideShow presentation = new XMLSlideShow(new ByteArrayInputStream(result))) {
+            List<XSLFSlide> slides = presentation.getSlides();
+            assertEquals(2, slides.size());
+            assertEquals(List.of("Регион: Север"), texts(slides.get(0)));
+            assertEquals(List.of("Регион: Юг"), texts(slides.get(1)));
+        }
+    }
+
+    @Test
+    void modify_shouldRejectMalformedIterationsWithBadRequest() throws Exception {
+        String body = """
+            {"templateName": "regions.pptx", "placeholders": [
+              {"key": "regions", "type": "REPEAT", "value": ["Север", "Юг"]}]}
+            """;
+
+        mockMvc.perform(post("/api/pptx/modify").contentType(MediaType.APPLICATION_JSON).content(body))
+            .andExpect(status().isBadRequest());
+    }
+
+    private List<String> texts(XSLFSlide slide) {
+        List<String> texts = new ArrayList<>();
+        for (XSLFShape shape : slide.getShapes()) {
+            if (shape instanceof XSLFTextShape textShape && !textShape.getText().isEmpty()) {
+                texts.add(textShape.getText());
+            }
+        }
+        return texts;
+    }
+}
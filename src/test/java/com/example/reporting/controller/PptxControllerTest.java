@@ -0,0 +1,83 @@
+package com.example.reporting.controller;
+
+import com.example.reporting.exception.GenerationRejectedException;
+import com.example.reporting.exception.InvalidRequestException;
+import com.example.reporting.service.PptxDownloadService;
+import com.example.reporting.service.PptxModificationService;
+import com.example.reporting.service.PptxReaderService;
+import com.example.reporting.service.preview.SlidePreviewService;
+import com.example.reporting.service.report.BaseReportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class PptxControllerTest {
+
+    private static final String BODY = "{\"templateName\":\"report.pptx\",\"placeholders\":[]}";
+
+    private PptxModificationService modificationService;
+    private BaseReportService baseReportService;
+    private SlidePreviewService slidePreviewService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        modificationService = mock(PptxModificationService.class);
+        baseReportService = mock(BaseReportService.class);
+        slidePreviewService = mock(SlidePreviewService.class);
+        PptxController controller = new PptxController(mock(PptxReaderService.class), modificationService,
+            mock(PptxDownloadService.class), baseReportService, slidePreviewService);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+            .setControllerAdvice(new ApiExceptionHandler())
+            .build();
+    }
+
+    @Test
+    void rejectedGeneration_shouldReturnServiceUnavailableWithRetryAfter() throws Exception {
+        when(baseReportService.generateReport(anyString(), any(), anyString()))
+            .thenThrow(new GenerationRejectedException("busy", 7));
+        when(modificationService.render(any())).thenThrow(new GenerationRejectedException("busy", 3));
+
+        mockMvc.perform(post("/api/pptx/generate").contentType(MediaType.APPLICATION_JSON).content(BODY))
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(header().string(HttpHeaders.RETRY_AFTER, "7"));
+        mockMvc.perform(post("/api/pptx/modify").contentType(MediaType.APPLICATION_JSON).content(BODY))
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(header().string(HttpHeaders.RETRY_AFTER, "3"));
+    }
+
+    @Test
+    void invalidPreviewRequest_shouldReturnBadRequest() throws Exception {
+        when(baseReportService.generateReportBytes(anyString(), any())).thenReturn(new byte[0]);
+        when(slidePreviewService.render(any(), any(), anyInt()))
+            .thenThrow(new InvalidRequestException("Preview width must be between 1 and 1920, got: 0"));
+
+        mockMvc.perform(post("/api/pptx/preview").param("width", "0")
+                .contentType(MediaType.APPLICATION_JSON).content(BODY))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.detail").value("Preview width must be between 1 and 1920, got: 0"));
+    }
+
+    @Test
+    void unexpectedIllegalArgument_shouldNotBeReportedAsBadRequest() throws Exception {
+        when(baseReportService.generateReportBytes(anyString(), any())).thenReturn(new byte[0]);
+        when(slidePreviewService.render(any(), any(), anyInt())).thenThrow(new IllegalArgumentException("bug"));
+
+        // Ошибка в коде не маскируется под 400 и доходит до обработки Spring по умолчанию
+        assertThrows(Exception.class, () -> mockMvc.perform(post("/api/pptx/preview")
+            .contentType(MediaType.APPLICATION_JSON).content(BODY)));
+    }
+}
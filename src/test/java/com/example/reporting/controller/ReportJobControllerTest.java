@@ -0,0 +1,35 @@
+package com.example.reporting.controller;
+
+import com.example.reporting.exception.JobRejectedException;
+import com.example.reporting.service.job.ReportJobService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ReportJobControllerTest {
+
+    @Test
+    void rejectedJob_shouldReturnServiceUnavailableWithRetryAfter() throws Exception {
+        ReportJobService reportJobService = mock(ReportJobService.class);
+        when(reportJobService.submit(any(), anyString(), anyInt())).thenThrow(new JobRejectedException("full", 5));
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new ReportJobController(reportJobService))
+            .setControllerAdvice(new ApiExceptionHandler())
+            .build();
+
+        mockMvc.perform(post("/api/jobs").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"templateName\":\"report.pptx\",\"placeholders\":[]}"))
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(header().string(HttpHeaders.RETRY_AFTER, "5"));
+    }
+}
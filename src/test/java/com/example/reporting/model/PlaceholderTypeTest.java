@@ -7,14 +7,17 @@ import static org.junit.jupiter.api.Assertions.*;
 class PlaceholderTypeTest {
 
     @Test
-    void placeholderType_shouldHaveThreeTypes() {
+    void placeholderType_shouldHaveSixTypes() {
         PlaceholderType[] types = PlaceholderType.values();
 
-        assertEquals(3, types.length);
+        assertEquals(6, types.length);
 
         assertEquals(PlaceholderType.TEXT, types[0]);
         assertEquals(PlaceholderType.IMAGE, types[1]);
         assertEquals(PlaceholderType.INSERT, types[2]);
+        assertEquals(PlaceholderType.TABLE, types[3]);
+        assertEquals(PlaceholderType.REPEAT, types[4]);
+        assertEquals(PlaceholderType.CHART, types[5]);
     }
 
     @Test
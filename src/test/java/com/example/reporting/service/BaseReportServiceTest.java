@@ -2,18 +2,32 @@ package com.example.reporting.service;
 
 import com.example.reporting.model.Placeholder;
 import com.example.reporting.model.PlaceholderType;
+import com.example.reporting.service.cache.RenderedOutputCache;
+import com.example.reporting.service.metrics.GenerationMetrics;
 import com.example.reporting.service.report.BaseReportService;
+import com.example.reporting.service.template.CompiledTemplate;
+import com.example.reporting.service.template.TemplateBytes;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.apache.poi.xslf.usermodel.XMLSlideShow;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
 
 @SpringBootTest
 class BaseReportServiceTest {
@@ -48,4 +62,112 @@ class BaseReportServiceTest {
 
         assertNotNull(baseReportService);
     }
-}
\ No newline at end of file
+
+    @Test
+    void generateReport_shouldServeRepeatedRequestFromCacheAndRevalidateByGet(@TempDir Path cacheDir)
+        throws Exception {
+        PptxModificationService modificationService = mock(PptxModificationService.class);
+        when(modificationService.render(any())).thenAnswer(invocation -> RenderedPresentation.of(new XMLSlideShow()));
+        PptxReaderService readerService = mock(PptxReaderService.class);
+        CompiledTemplate template = mock(CompiledTemplate.class);
+        TemplateBytes templateBytes = mock(TemplateBytes.class);
+        when(templateBytes.size()).thenReturn(1024);
+        when(template.getVersion()).thenReturn("v1");
+        when(template.getBytes()).thenReturn(templateBytes);
+        when(readerService.getCompiledTemplate("templates/weekly-report.pptx")).thenReturn(template);
+        BaseReportService service = new BaseReportService(modificationService,
+            new PptxDownloadService(new GenerationMetrics(new SimpleMeterRegistry())), readerService,
+            new RenderedOutputCache(true, 1 << 20, 1 << 20, cacheDir, 0));
+        List<Placeholder> placeholders = List.of(
+            Placeholder.builder().key("title").type(PlaceholderType.TEXT).value("Неделя 42").build());
+
+        // Промах: документ до max-entry-bytes сразу получает ETag и адрес для перепроверки
+        ResponseEntity<StreamingResponseBody> first =
+            service.generateReport("templates/weekly-report.pptx", placeholders, "weekly.pptx");
+        byte[] firstBody = body(first);
+        assertEquals(RenderedOutputCache.etagOf(firstBody), first.getHeaders().getETag());
+        String location = first.getHeaders().getFirst(HttpHeaders.CONTENT_LOCATION);
+        assertTrue(location.startsWith(BaseReportService.OUTPUTS_PATH + "/"));
+
+        ResponseEntity<StreamingResponseBody> second =
+            service.generateReport("templates/weekly-report.pptx", placeholders, "weekly.pptx");
+        assertEquals(first.getHeaders().getETag(), second.getHeaders().getETag());
+        assertArrayEquals(firstBody, body(second));
+        verify(modificationService, times(1)).render(any());
+
+        // GET по Content-Location: с тем же ETag - 304, без него - документ
+        String key = location.substring(location.lastIndexOf('/') + 1);
+        ResponseEntity<StreamingResponseBody> notModified = service.getCachedReport(key, first.getHeaders().getETag());
+        assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode());
+        assertNull(notModified.getBody());
+        ResponseEntity<StreamingResponseBody> full = service.getCachedReport(key, "\"other\"");
+        assertEquals(HttpStatus.OK, full.getStatusCode());
+        assertArrayEquals(firstBody, body(full));
+
+        assertEquals(HttpStatus.NOT_FOUND, service.getCachedReport("0".repeat(64), null).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, service.getCachedReport("../" + key, null).getStatusCode());
+    }
+
+    @Test
+    void generateReport_shouldAnswerNotModifiedWithoutRenderingWhenIfNoneMatchFits(@TempDir Path cacheDir)
+        throws Exception {
+        PptxModificationService modificationService = mock(PptxModificationService.class);
+        when(modificationService.render(any())).thenAnswer(invocation -> RenderedPresentation.of(new XMLSlideShow()));
+        PptxReaderService readerService = mock(PptxReaderService.class);
+        CompiledTemplate template = mock(CompiledTemplate.class);
+        TemplateBytes templateBytes = mock(TemplateBytes.class);
+        when(templateBytes.size()).thenReturn(1024);
+        when(template.getVersion()).thenReturn("v1");
+        when(template.getBytes()).thenReturn(templateBytes);
+        when(readerService.getCompiledTemplate("templates/weekly-report.pptx")).thenReturn(template);
+        BaseReportService service = new BaseReportService(modificationService,
+            new PptxDownloadService(new GenerationMetrics(new SimpleMeterRegistry())), readerService,
+            new RenderedOutputCache(true, 1 << 20, 1 << 20, cacheDir, 0));
+        List<Placeholder> placeholders = List.of(
+            Placeholder.builder().key("title").type(PlaceholderType.TEXT).value("Неделя 42").build());
+
+        // Первый GET без If-None-Match генерирует документ
+        ResponseEntity<StreamingResponseBody> first =
+            service.generateReport("templates/weekly-report.pptx", placeholders, "weekly.pptx", null);
+        String etag = first.getHeaders().getETag();
+        assertNotNull(etag);
+
+        ResponseEntity<StreamingResponseBody> revalidated =
+            service.generateReport("templates/weekly-report.pptx", placeholders, "weekly.pptx", etag);
+        assertEquals(HttpStatus.NOT_MODIFIED, revalidated.getStatusCode());
+        assertEquals(etag, revalidated.getHeaders().getETag());
+        assertNull(revalidated.getBody());
+        verify(modificationService, times(1)).render(any());
+    }
+
+    @Test
+    void generateReport_shouldStreamDocumentLargerThanCacheEntryWithoutEtag(@TempDir Path cacheDir)
+        throws Exception {
+        PptxModificationService modificationService = mock(PptxModificationService.class);
+        when(modificationService.render(any())).thenAnswer(invocation -> RenderedPresentation.of(new XMLSlideShow()));
+        PptxReaderService readerService = mock(PptxReaderService.class);
+        CompiledTemplate template = mock(CompiledTemplate.class);
+        TemplateBytes templateBytes = mock(TemplateBytes.class);
+        when(templateBytes.size()).thenReturn(16);
+        when(template.getVersion()).thenReturn("v1");
+        when(template.getBytes()).thenReturn(templateBytes);
+        when(readerService.getCompiledTemplate("templates/weekly-report.pptx")).thenReturn(template);
+        BaseReportService service = new BaseReportService(modificationService,
+            new PptxDownloadService(new GenerationMetrics(new SimpleMeterRegistry())), readerService,
+            new RenderedOutputCache(true, 1 << 20, 64, cacheDir, 0));
+
+        ResponseEntity<StreamingResponseBody> response =
+            service.generateReport("templates/weekly-report.pptx", List.of(), "weekly.pptx");
+
+        assertNull(response.getHeaders().getETag());
+        try (XMLSlideShow presentation = new XMLSlideShow(new ByteArrayInputStream(body(response)))) {
+            assertNotNull(presentation.getPageSize());
+        }
+    }
+
+    private byte[] body(ResponseEntity<StreamingResponseBody> response) throws Exception {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        response.getBody().writeTo(body);
+        return body.toByteArray();
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.reporting.service;
+
+import com.example.reporting.model.BatchDocument;
+import com.example.reporting.model.Placeholder;
+import com.example.reporting.model.PlaceholderType;
+import com.example.reporting.model.TemplateData;
+import com.example.reporting.service.metrics.GenerationMetrics;
+import com.example.reporting.service.report.BatchReportService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class BatchReportServiceTest {
+
+    private PptxModificationService modificationService;
+    private BatchReportService batchReportService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        modificationService = mock(PptxModificationService.class);
+        when(modificationService.render(any(TemplateData.class)))
+            .thenAnswer(invocation -> {
+                TemplateData data = invocation.getArgument(0);
+                if ("broken.pptx".equals(data.getTemplateName())) {
+                    throw new IllegalStateException("broken template");
+                }
+                return RenderedPresentation.of(new XMLSlideShow());
+            });
+        batchReportService = new BatchReportService(modificationService,
+            new PptxDownloadService(new GenerationMetrics(new SimpleMeterRegistry())), 2, 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchReportService.shutdown();
+    }
+
+    @Test
+    void writeZip_shouldContainEveryDocument() throws Exception {
+        List<BatchDocument> documents = IntStream.rangeClosed(1, 10)
+            .mapToObj(i -> document("invoice-" + i + ".pptx", "templates/invoice-template.pptx"))
+            .toList();
+
+        List<String> entries = writeAndListEntries(documents);
+
+        assertEquals(10, entries.size());
+        assertTrue(entries.contains("invoice-1.pptx"));
+        assertTrue(entries.contains("invoice-10.pptx"));
+    }
+
+    @Test
+    void writeZip_shouldReportFailedDocumentsAndKeepDuplicatesApart() throws Exception {
+        List<BatchDocument> documents = List.of(
+            document("report.pptx", "templates/weekly-report.pptx"),
+            document("report.pptx", "templates/weekly-report.pptx"),
+            document("bad.pptx", "broken.pptx")
+        );
+
+        List<String> entries = writeAndListEntries(documents);
+
+        assertEquals(3, entries.size());
+        assertTrue(entries.contains("report.pptx"));
+        assertTrue(entries.contains("report-2.pptx"));
+        assertTrue(entries.contains("errors.txt"));
+    }
+
+    @Test
+    void writeZip_shouldStripDirectoriesFromEntryNamesAndReserveErrorsEntry() throws Exception {
+        List<BatchDocument> documents = List.of(
+            document("../../etc/cron.d/evil.pptx", "templates/weekly-report.pptx"),
+            document("C:\\Windows\\evil.pptx", "templates/weekly-report.pptx"),
+            document("/abs/..", "templates/weekly-report.pptx"),
+            document("errors.txt", "templates/weekly-report.pptx"),
+            document("bad.pptx", "broken.pptx")
+        );
+
+        List<String> entries = writeAndListEntries(documents);
+
+        assertEquals(List.of("errors.txt"), entries.stream().filter("errors.txt"::equals).toList());
+        assertTrue(entries.contains("evil.pptx"));
+        assertTrue(entries.contains("evil-2.pptx"));
+        assertTrue(entries.contains("document-3.pptx"));
+        assertTrue(entries.contains("errors-2.txt"));
+        assertTrue(entries.stream().noneMatch(name -> name.contains("/") || name.contains("\\")));
+    }
+
+    private List<String> writeAndListEntries(List<BatchDocument> documents) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        batchReportService.writeZip(documents, outputStream);
+
+        List<String> entries = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entries.add(entry.getName());
+            }
+        }
+        return entries;
+    }
+
+    private BatchDocument document(String filename, String templateName) {
+        return BatchDocument.builder()
+            .filename(filename)
+            .templateName(templateName)
+            .placeholders(List.of(Placeholder.builder()
+                .key("title")
+                .type(PlaceholderType.TEXT)
+                .value("Отчет")
+                .build()))
+            .build();
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.reporting.service;
+
+import com.example.reporting.exception.InvalidRequestException;
+import com.example.reporting.model.ChartData;
+import com.example.reporting.model.Placeholder;
+import com.example.reporting.model.PlaceholderType;
+import com.example.reporting.service.replacer.ChartPlaceholderReplacer;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xddf.usermodel.chart.AxisPosition;
+import org.apache.poi.xddf.usermodel.chart.ChartTypes;
+import org.apache.poi.xddf.usermodel.chart.XDDFCategoryAxis;
+import org.apache.poi.xddf.usermodel.chart.XDDFChartData;
+import org.apache.poi.xddf.usermodel.chart.XDDFDataSource;
+import org.apache.poi.xddf.usermodel.chart.XDDFDataSourcesFactory;
+import org.apache.poi.xddf.usermodel.chart.XDDFNumericalDataSource;
+import org.apache.poi.xddf.usermodel.chart.XDDFValueAxis;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFChart;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openxmlformats.schemas.presentationml.x2006.main.CTGraphicalObjectFrame;
+
+import java.awt.geom.Rectangle2D;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChartPlaceholderReplacerTest {
+
+    private ChartPlaceholderReplacer replacer;
+    private XMLSlideShow presentation;
+
+    @BeforeEach
+    void setUp() {
+        replacer = new ChartPlaceholderReplacer();
+        presentation = new XMLSlideShow();
+    }
+
+    @Test
+    void replace_shouldUpdateSeriesAndEmbeddedWorkbookOfNamedChart() throws Exception {
+        createBarChart(presentation.createSlide());
+        // Фигура диаграммы, добавленной через POI, видна только после повторного открытия
+        presentation = reopen();
+        ((CTGraphicalObjectFrame) presentation.getSlides().get(0).getShapes().get(0).getXmlObject())
+            .getNvGraphicFramePr().getCNvPr().setName("revenueChart");
+
+        replacer.replace(presentation, chart("revenueChart", ChartData.builder()
+            .categories(List.of("Янв", "Фев", "Мар"))
+            .series(List.of(
+                new ChartData.Series("Выручка", new double[]{10, 20, 30}),
+                new ChartData.Series("Расходы", new double[]{5, 7, 9})))
+            .build()));
+
+        try (XMLSlideShow reopened = reopen()) {
+            XSLFChart chart = reopened.getCharts().get(0);
+            XDDFChartData data = chart.getChartSeries().get(0);
+            assertEquals(2, data.getSeriesCount());
+            assertEquals(3, data.getSeries(0).getCategoryData().getPointCount());
+            assertEquals("Мар", data.getSeries(0).getCategoryData().getPointAt(2));
+            assertEquals(30.0, data.getSeries(0).getValuesData().getPointAt(2).doubleValue());
+            assertEquals(9.0, data.getSeries(1).getValuesData().getPointAt(2).doubleValue());
+
+            XSSFSheet sheet = chart.getWorkbook().getSheetAt(0);
+            assertEquals("Расходы", sheet.getRow(0).getCell(2).getStringCellValue());
+            assertEquals("Фев", sheet.getRow(2).getCell(0).getStringCellValue());
+            assertEquals(20.0, sheet.getRow(2).getCell(1).getNumericCellValue());
+            // Строки прежних данных удалены
+            assertEquals(3, sheet.getLastRowNum());
+        }
+    }
+
+    @Test
+    void replace_shouldFindChartByTitleMarkerAndReplaceTitle() throws Exception {
+        createBarChart(presentation.createSlide()).setTitleText("{{expensesChart}}");
+        presentation = reopen();
+        XSLFChart chart = presentation.getCharts().get(0);
+
+        replacer.replace(presentation, chart("expensesChart", ChartData.builder()
+            .title("Расходы по месяцам")
+            .categories(List.of("Янв"))
+            .series(List.of(new ChartData.Series("Расходы", new double[]{42})))
+            .build()));
+
+        assertEquals("Расходы по месяцам", chart.getTitleShape().getText());
+        XDDFChartData data = chart.getChartSeries().get(0);
+        assertEquals(1, data.getSeriesCount());
+        assertEquals(42.0, data.getSeries(0).getValuesData().getPointAt(0).doubleValue());
+    }
+
+    @Test
+    void replace_shouldAcceptJsonValueAndClearStaleWorkbookColumns() throws Exception {
+        createBarChart(presentation.createSlide());
+        presentation = reopen();
+        ((CTGraphicalObjectFrame) presentation.getSlides().get(0).getShapes().get(0).getXmlObject())
+            .getNvGraphicFramePr().getCNvPr().setName("revenueChart");
+
+        // Так значение CHART плейсхолдера десериализует Jackson
+        replacer.replace(presentation, Placeholder.builder().key("revenueChart").type(PlaceholderType.CHART)
+            .value(Map.of(
+                "categories", List.of("Янв", "Фев"),
+                "series", List.of(Map.of("name", "Выручка", "values", List.of(10, 20.5)))))
+            .build());
+
+        try (XMLSlideShow reopened = reopen()) {
+            XSLFChart chart = reopened.getCharts().get(0);
+            XDDFChartData data = chart.getChartSeries().get(0);
+            assertEquals(1, data.getSeriesCount());
+            assertEquals(20.5, data.getSeries(0).getValuesData().getPointAt(1).doubleValue());
+
+            XSSFSheet sheet = chart.getWorkbook().getSheetAt(0);
+            assertEquals("Выручка", sheet.getRow(0).getCell(1).getStringCellValue());
+            // Колонка второго ряда шаблона очищена
+            for (Row row : sheet) {
+                assertNull(row.getCell(2));
+            }
+        }
+    }
+
+    @Test
+    void replace_shouldRejectMalformedJsonValue() {
+        assertThrows(InvalidRequestException.class, () -> replacer.replace(presentation,
+            Placeholder.builder().key("revenueChart").type(PlaceholderType.CHART)
+                .value(Map.of("series", List.of(Map.of("name", "Выручка", "values", List.of("много"))))).build()));
+    }
+
+    private XSLFChart createBarChart(XSLFSlide slide) {
+        XSLFChart chart = presentation.createChart();
+        slide.addChart(chart, new Rectangle2D.Double(50, 50, 400, 300));
+
+        String[] categories = {"Q1", "Q2", "Q3", "Q4", "Q5"};
+        XDDFDataSource<String> categoryData = XDDFDataSourcesFactory.fromArray(categories,
+            chart.formatRange(new CellRangeAddress(1, 5, 0, 0)), 0);
+        XDDFNumericalDataSource<Double> valueData = XDDFDataSourcesFactory.fromArray(
+            new Double[]{1.0, 2.0, 3.0, 4.0, 5.0}, chart.formatRange(new CellRangeAddress(1, 5, 1, 1)), 1);
+
+        XDDFCategoryAxis categoryAxis = chart.createCategoryAxis(AxisPosition.BOTTOM);
+        XDDFValueAxis valueAxis = chart.createValueAxis(AxisPosition.LEFT);
+        XDDFChartData data = chart.createData(ChartTypes.BAR, categoryAxis, valueAxis);
+        data.addSeries(categoryData, valueData).setTitle("Старые данные", chart.setSheetTitle("Старые данные", 1));
+        XDDFNumericalDataSource<Double> planData = XDDFDataSourcesFactory.fromArray(
+            new Double[]{2.0, 3.0, 4.0, 5.0, 6.0}, chart.formatRange(new CellRangeAddress(1, 5, 2, 2)), 2);
+        data.addSeries(categoryData, planData).setTitle("Старый план", chart.setSheetTitle("Старый план", 2));
+        chart.plot(data);
+        return chart;
+    }
+
+    private Placeholder chart(String key, ChartData data) {
+        return Placeholder.builder().key(key).type(PlaceholderType.CHART).value(data).build();
+    }
+
+    private XMLSlideShow reopen() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        presentation.write(outputStream);
+        return new XMLSlideShow(new ByteArrayInputStream(outputStream.toByteArray()));
+    }
+}
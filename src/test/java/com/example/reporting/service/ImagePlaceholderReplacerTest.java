@@ -0,0 +1,115 @@
+package com.example.reporting.service;
+
+import com.example.reporting.model.ImageData;
+import com.example.reporting.model.Placeholder;
+import com.example.reporting.model.PlaceholderType;
+import com.example.reporting.service.image.ImageCache;
+import com.example.reporting.service.image.ImagePreprocessor;
+import com.example.reporting.service.replacer.ImagePlaceholderReplacer;
+import com.example.reporting.util.ImageUtils;
+import org.apache.poi.sl.usermodel.PictureData;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFGroupShape;
+import org.apache.poi.xslf.usermodel.XSLFPictureShape;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+import org.apache.poi.xslf.usermodel.XSLFTextBox;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImagePlaceholderReplacerTest {
+
+    private ImagePlaceholderReplacer replacer;
+    private XMLSlideShow presentation;
+
+    @BeforeEach
+    void setUp() {
+        ImageCache imageCache = new ImageCache(1024 * 1024);
+        replacer = new ImagePlaceholderReplacer(new ImagePreprocessor(imageCache, false, 150, true, 0.85f));
+        presentation = new XMLSlideShow();
+    }
+
+    @Test
+    void replace_shouldEmbedSameImageOnceForAllSlides() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            XSLFSlide slide = presentation.createSlide();
+            XSLFTextBox textBox = slide.createTextBox();
+            textBox.setText("{{logo}}");
+        }
+
+        replacer.replace(presentation, Placeholder.builder()
+            .key("logo")
+            .type(PlaceholderType.IMAGE)
+            .value(ImageUtils.createImageData(createPng(), "image/png"))
+            .build());
+
+        assertEquals(1, presentation.getPictureData().size());
+        for (XSLFSlide slide : presentation.getSlides()) {
+            assertEquals(1, slide.getShapes().size());
+            assertInstanceOf(XSLFPictureShape.class, slide.getShapes().get(0));
+        }
+    }
+
+    @Test
+    void replace_shouldUseFormatDetectedFromContent() throws Exception {
+        XSLFSlide slide = presentation.createSlide();
+        slide.createTextBox().setText("{{chart}}");
+
+        ImageData mislabeled = ImageUtils.createImageData(createPng(), "image/jpeg");
+        replacer.replace(presentation, Placeholder.builder()
+            .key("chart")
+            .type(PlaceholderType.IMAGE)
+            .value(mislabeled)
+            .build());
+
+        assertEquals(PictureData.PictureType.PNG, presentation.getPictureData().get(0).getType());
+    }
+
+    @Test
+    void replaceAll_shouldReplaceEveryKeyInOnePass() throws Exception {
+        XSLFSlide slide = presentation.createSlide();
+        slide.createTextBox().setText("{{logo}}");
+        slide.createTextBox().setText("{{chart}}");
+        slide.createTextBox().setText("Подпись");
+
+        replacer.replaceAll(presentation, List.of(
+            Placeholder.builder().key("logo").type(PlaceholderType.IMAGE)
+                .value(ImageUtils.createImageData(createPng(), "image/png")).build(),
+            Placeholder.builder().key("chart").type(PlaceholderType.IMAGE)
+                .value(ImageUtils.createImageData(createPng(), "image/png")).build()));
+
+        assertEquals(3, slide.getShapes().size());
+        assertEquals(2, slide.getShapes().stream().filter(XSLFPictureShape.class::isInstance).count());
+        // Одинаковые байты встраиваются один раз
+        assertEquals(1, presentation.getPictureData().size());
+    }
+
+    @Test
+    void replace_shouldReplaceShapeInsideGroup() throws Exception {
+        XSLFSlide slide = presentation.createSlide();
+        XSLFGroupShape group = slide.createGroup();
+        group.createTextBox().setText("{{logo}}");
+
+        replacer.replace(presentation, Placeholder.builder()
+            .key("logo")
+            .type(PlaceholderType.IMAGE)
+            .value(ImageUtils.createImageData(createPng(), "image/png"))
+            .build());
+
+        assertEquals(1, group.getShapes().size());
+        assertInstanceOf(XSLFPictureShape.class, group.getShapes().get(0));
+    }
+
+    private byte[] createPng() throws Exception {
+        BufferedImage image = new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", outputStream);
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.reporting.service;
+
+import com.example.reporting.service.template.CompiledTemplate;
+import com.example.reporting.service.template.TemplateBytes;
+import com.example.reporting.service.template.TemplateBytesCache;
+import com.example.reporting.service.template.TemplateCompiler;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PptxReaderServiceTest {
+
+    @TempDir
+    Path templatesDir;
+
+    @Test
+    void getCompiledTemplate_shouldCompileOnceForConcurrentRequests() throws Exception {
+        createTemplate("report.pptx");
+        CountDownLatch compiling = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger compilations = new AtomicInteger();
+        TemplateCompiler compiler = new TemplateCompiler() {
+            @Override
+            public CompiledTemplate compile(String templatePath, TemplateBytes bytes) throws IOException {
+                compilations.incrementAndGet();
+                compiling.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.compile(templatePath, bytes);
+            }
+        };
+        PptxReaderService service = new PptxReaderService(cache(), compiler);
+
+        CompletableFuture<CompiledTemplate> first = CompletableFuture.supplyAsync(() -> compiled(service));
+        assertTrue(compiling.await(5, TimeUnit.SECONDS));
+        CompletableFuture<CompiledTemplate> second = CompletableFuture.supplyAsync(() -> compiled(service));
+        release.countDown();
+
+        assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, compilations.get());
+    }
+
+    @Test
+    void getCompiledTemplate_shouldNotCacheFailedCompilation() throws Exception {
+        createTemplate("report.pptx");
+        AtomicInteger attempts = new AtomicInteger();
+        TemplateCompiler compiler = new TemplateCompiler() {
+            @Override
+            public CompiledTemplate compile(String templatePath, TemplateBytes bytes) throws IOException {
+                if (attempts.incrementAndGet() == 1) {
+                    throw new IOException("broken");
+                }
+                return super.compile(templatePath, bytes);
+            }
+        };
+        PptxReaderService service = new PptxReaderService(cache(), compiler);
+
+        assertThrows(IOException.class, () -> service.getCompiledTemplate("report.pptx"));
+        assertNotNull(service.getCompiledTemplate("report.pptx"));
+        assertEquals(2, attempts.get());
+    }
+
+    private CompiledTemplate compiled(PptxReaderService service) {
+        try {
+            return service.getCompiledTemplate("report.pptx");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private TemplateBytesCache cache() {
+        return new TemplateBytesCache(new DefaultResourceLoader(), templatesDir.toString(), 1 << 20, false, 0);
+    }
+
+    private void createTemplate(String name) throws IOException {
+        try (XMLSlideShow presentation = new XMLSlideShow();
+             OutputStream outputStream = Files.newOutputStream(templatesDir.resolve(name))) {
+            presentation.createSlide().createTextBox().setText("{{title}}");
+            presentation.write(outputStream);
+        }
+    }
+}
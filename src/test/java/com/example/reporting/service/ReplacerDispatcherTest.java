@@ -0,0 +1,72 @@
+package com.example.reporting.service;
+
+import com.example.reporting.model.Placeholder;
+import com.example.reporting.model.PlaceholderType;
+import com.example.reporting.service.replacer.InsertPlaceholderReplacer;
+import com.example.reporting.service.replacer.PlaceholderReplacer;
+import com.example.reporting.service.replacer.ReplacerDispatcher;
+import com.example.reporting.service.replacer.TextPlaceholderReplacer;
+import com.example.reporting.service.replacer.TextSubstitutionEngine;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplacerDispatcherTest {
+
+    private final TextPlaceholderReplacer textReplacer = new TextPlaceholderReplacer(new TextSubstitutionEngine());
+    private final InsertPlaceholderReplacer insertReplacer = new InsertPlaceholderReplacer(new TextSubstitutionEngine());
+    private final ReplacerDispatcher dispatcher = new ReplacerDispatcher(List.of(textReplacer, insertReplacer));
+
+    @Test
+    void find_shouldReturnReplacerForType() {
+        assertSame(textReplacer, dispatcher.find(placeholder("title", PlaceholderType.TEXT)));
+        assertSame(insertReplacer, dispatcher.find(placeholder("name", PlaceholderType.INSERT)));
+        assertNull(dispatcher.find(placeholder("logo", PlaceholderType.IMAGE)));
+        assertNull(dispatcher.find(placeholder("unknown", null)));
+    }
+
+    @Test
+    void assign_shouldGroupPlaceholdersByReplacerPreservingOrder() {
+        Placeholder first = placeholder("first", PlaceholderType.TEXT);
+        Placeholder name = placeholder("name", PlaceholderType.INSERT);
+        Placeholder second = placeholder("second", PlaceholderType.TEXT);
+        Placeholder logo = placeholder("logo", PlaceholderType.IMAGE);
+
+        Map<PlaceholderReplacer, List<Placeholder>> assignments =
+            dispatcher.assign(List.of(first, name, second, logo));
+
+        assertEquals(List.of(textReplacer, insertReplacer), List.copyOf(assignments.keySet()));
+        assertEquals(List.of(first, second), assignments.get(textReplacer));
+        assertEquals(List.of(name), assignments.get(insertReplacer));
+    }
+
+    @Test
+    void groupByType_shouldSkipPlaceholdersWithoutType() {
+        Map<PlaceholderType, List<Placeholder>> groups = dispatcher.groupByType(List.of(
+            placeholder("title", PlaceholderType.TEXT),
+            placeholder("broken", null),
+            placeholder("name", PlaceholderType.INSERT)));
+
+        assertEquals(2, groups.size());
+        assertEquals("title", groups.get(PlaceholderType.TEXT).get(0).getKey());
+        assertEquals("name", groups.get(PlaceholderType.INSERT).get(0).getKey());
+    }
+
+    @Test
+    void groupByType_shouldOrderRepeatLast() {
+        Map<PlaceholderType, List<Placeholder>> groups = dispatcher.groupByType(List.of(
+            placeholder("regions", PlaceholderType.REPEAT),
+            placeholder("sales", PlaceholderType.CHART),
+            placeholder("title", PlaceholderType.TEXT)));
+
+        assertEquals(List.of(PlaceholderType.TEXT, PlaceholderType.CHART, PlaceholderType.REPEAT),
+            List.copyOf(groups.keySet()));
+    }
+
+    private Placeholder placeholder(String key, PlaceholderType type) {
+        return Placeholder.builder().key(key).type(type).value(key).build();
+    }
+}
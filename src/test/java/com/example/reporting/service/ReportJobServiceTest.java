@@ -0,0 +1,148 @@
+package com.example.reporting.service;
+
+import com.example.reporting.exception.JobRejectedException;
+import com.example.reporting.model.TemplateData;
+import com.example.reporting.service.job.JobStatus;
+import com.example.reporting.service.job.ReportJob;
+import com.example.reporting.service.job.ReportJobService;
+import com.example.reporting.service.metrics.GenerationMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ReportJobServiceTest {
+
+    @TempDir
+    Path resultDirectory;
+
+    private final PptxDownloadService downloadService =
+        new PptxDownloadService(new GenerationMetrics(new SimpleMeterRegistry()));
+    private ReportJobService jobService;
+
+    @AfterEach
+    void tearDown() {
+        jobService.shutdown();
+    }
+
+    @Test
+    void submit_shouldStoreResultOnDisk() throws Exception {
+        PptxModificationService modificationService = mock(PptxModificationService.class);
+        when(modificationService.renderWhenAdmitted(any())).thenAnswer(invocation -> RenderedPresentation.of(new XMLSlideShow()));
+        jobService = new ReportJobService(modificationService, downloadService, resultDirectory, 1, 10, Duration.ofHours(1), 5);
+
+        ReportJob job = jobService.submit(templateData("a.pptx"), "a.pptx", 0);
+        job.getCompletion().get(10, TimeUnit.SECONDS);
+
+        assertEquals(JobStatus.COMPLETED, job.getStatus());
+        assertTrue(Files.size(job.getResultPath()) > 0);
+        assertSame(job, jobService.find(job.getId()).orElseThrow());
+    }
+
+    @Test
+    void constructor_shouldDeleteResultsOfPreviousRun() throws Exception {
+        Path stale = Files.write(resultDirectory.resolve("123e4567-e89b-12d3-a456-426614174000.pptx"), new byte[]{1});
+        Path foreign = Files.write(resultDirectory.resolve("notes.pptx"), new byte[]{1});
+
+        jobService = new ReportJobService(mock(PptxModificationService.class), downloadService, resultDirectory,
+            1, 10, Duration.ofHours(1), 5);
+
+        assertFalse(Files.exists(stale));
+        assertTrue(Files.exists(foreign));
+    }
+
+    @Test
+    void submit_shouldRunHigherPriorityFirstAndRejectWhenQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        PptxModificationService modificationService = mock(PptxModificationService.class);
+        when(modificationService.renderWhenAdmitted(any())).thenAnswer(invocation -> {
+            TemplateData data = invocation.getArgument(0);
+            if (data.getTemplateName().equals("blocker.pptx")) {
+                release.await(10, TimeUnit.SECONDS);
+            }
+            order.add(data.getTemplateName());
+            return RenderedPresentation.of(new XMLSlideShow());
+        });
+        jobService = new ReportJobService(modificationService, downloadService, resultDirectory, 1, 2, Duration.ofHours(1), 7);
+
+        ReportJob blocker = jobService.submit(templateData("blocker.pptx"), "blocker.pptx", 0);
+        waitUntilRunning(blocker);
+        ReportJob low = jobService.submit(templateData("low.pptx"), "low.pptx", 0);
+        ReportJob high = jobService.submit(templateData("high.pptx"), "high.pptx", 10);
+        JobRejectedException rejected = assertThrows(JobRejectedException.class,
+            () -> jobService.submit(templateData("extra.pptx"), "extra.pptx", 0));
+        assertEquals(7, rejected.getRetryAfterSeconds());
+
+        release.countDown();
+        low.getCompletion().get(10, TimeUnit.SECONDS);
+        high.getCompletion().get(10, TimeUnit.SECONDS);
+
+        assertEquals(List.of("blocker.pptx", "high.pptx", "low.pptx"), order);
+    }
+
+    @Test
+    void submit_shouldNotExceedQueueCapacityUnderConcurrentSubmits() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PptxModificationService modificationService = mock(PptxModificationService.class);
+        when(modificationService.renderWhenAdmitted(any())).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return RenderedPresentation.of(new XMLSlideShow());
+        });
+        jobService = new ReportJobService(modificationService, downloadService, resultDirectory, 1, 5, Duration.ofHours(1), 5);
+        waitUntilRunning(jobService.submit(templateData("blocker.pptx"), "blocker.pptx", 0));
+
+        ExecutorService submitters = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger accepted = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            futures.add(submitters.submit(() -> {
+                start.await();
+                try {
+                    jobService.submit(templateData("job.pptx"), "job.pptx", 0);
+                    accepted.incrementAndGet();
+                } catch (JobRejectedException e) {
+                    // ожидаемо для заданий сверх лимита
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        submitters.shutdown();
+        release.countDown();
+
+        assertEquals(5, accepted.get());
+    }
+
+    private void waitUntilRunning(ReportJob job) throws InterruptedException {
+        for (int i = 0; i < 100 && job.getStatus() == JobStatus.QUEUED; i++) {
+            Thread.sleep(20);
+        }
+    }
+
+    private TemplateData templateData(String templateName) {
+        return TemplateData.builder().templateName(templateName).placeholders(List.of()).build();
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.reporting.service;
+
+import com.example.reporting.exception.InvalidRequestException;
+import com.example.reporting.model.Placeholder;
+import com.example.reporting.model.PlaceholderType;
+import com.example.reporting.model.RepeatData;
+import com.example.reporting.service.replacer.SlideRepeatReplacer;
+import com.example.reporting.service.replacer.TextSubstitutionEngine;
+import org.apache.poi.sl.usermodel.PictureData;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFNotes;
+import org.apache.poi.xslf.usermodel.XSLFPictureShape;
+import org.apache.poi.xslf.usermodel.XSLFShape;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+import org.apache.poi.xslf.usermodel.XSLFTextShape;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlideRepeatReplacerTest {
+
+    private SlideRepeatReplacer replacer;
+    private XMLSlideShow presentation;
+
+    @BeforeEach
+    void setUp() {
+        replacer = new SlideRepeatReplacer(new TextSubstitutionEngine());
+        presentation = new XMLSlideShow();
+    }
+
+    @Test
+    void replace_shouldCloneMarkedSlidePerIterationSharingMedia() throws Exception {
+        presentation.createSlide().createTextBox().setText("Обложка");
+        XSLFSlide regionSlide = presentation.createSlide();
+        regionSlide.createTextBox().setText("{{#regions}}");
+        regionSlide.createTextBox().setText("Регион: {{name}}");
+        regionSlide.createPicture(presentation.addPicture(new byte[]{1, 2, 3}, PictureData.PictureType.PNG));
+        setNotes(regionSlide, "Менеджер: $manager");
+        presentation.createSlide().createTextBox().setText("Итог");
+
+        replacer.replace(presentation, repeat(List.of(
+            iteration("Север", "Иванов"), iteration("Юг", "Петров"), iteration("Запад", "Сидоров"))));
+
+        try (XMLSlideShow reopened = reopen()) {
+            List<XSLFSlide> slides = reopened.getSlides();
+            assertEquals(5, slides.size());
+            assertEquals(List.of("Обложка"), texts(slides.get(0)));
+            assertEquals(List.of("Регион: Север"), texts(slides.get(1)));
+            assertEquals(List.of("Регион: Юг"), texts(slides.get(2)));
+            assertEquals(List.of("Регион: Запад"), texts(slides.get(3)));
+            assertEquals(List.of("Итог"), texts(slides.get(4)));
+            assertTrue(texts(slides.get(3).getNotes()).contains("Менеджер: Сидоров"));
+
+            // Идентификаторы фигур копий не повторяют идентификаторы исходного слайда и друг друга
+            Set<Integer> shapeIds = new HashSet<>();
+            for (XSLFSlide slide : slides.subList(1, 4)) {
+                for (XSLFShape shape : slide.getShapes()) {
+                    assertTrue(shapeIds.add(shape.getShapeId()), "duplicate shape id " + shape.getShapeId());
+                }
+            }
+
+            // Все копии ссылаются на одно изображение
+            assertEquals(1, reopened.getPictureData().size());
+            for (XSLFSlide slide : slides.subList(1, 4)) {
+                assertEquals(1, slide.getShapes().stream().filter(XSLFPictureShape.class::isInstance).count());
+                assertEquals(slides.get(1).getSlideLayout(), slide.getSlideLayout());
+            }
+        }
+    }
+
+    @Test
+    void replace_shouldRemoveMarkedSlideWithoutIterations() {
+        presentation.createSlide().createTextBox().setText("{{#regions}} Регион");
+        presentation.createSlide().createTextBox().setText("Итог");
+
+        replacer.replace(presentation, repeat(List.of()));
+
+        assertEquals(1, presentation.getSlides().size());
+        assertEquals(List.of("Итог"), texts(presentation.getSlides().get(0)));
+    }
+
+    @Test
+    void replace_shouldAcceptIterationsDeserializedFromJson() {
+        presentation.createSlide().createTextBox().setText("{{#regions}}Регион: {{name}}");
+
+        replacer.replace(presentation, Placeholder.builder().key("regions").type(PlaceholderType.REPEAT)
+            .value(Map.of("iterations", List.of(
+                List.of(Map.of("key", "name", "type", "TEXT", "value", "Север")),
+                List.of(Map.of("key", "name", "type", "TEXT", "value", "Юг")))))
+            .build());
+
+        assertEquals(List.of("Регион: Север"), texts(presentation.getSlides().get(0)));
+        assertEquals(List.of("Регион: Юг"), texts(presentation.getSlides().get(1)));
+    }
+
+    @Test
+    void replace_shouldRejectMalformedIterations() {
+        presentation.createSlide().createTextBox().setText("{{#regions}}");
+
+        assertThrows(InvalidRequestException.class, () -> replacer.replace(presentation,
+            Placeholder.builder().key("regions").type(PlaceholderType.REPEAT).value(List.of("Север")).build()));
+        assertThrows(InvalidRequestException.class, () -> replacer.replace(presentation,
+            Placeholder.builder().key("regions").type(PlaceholderType.REPEAT)
+                .value(List.of(List.of(Map.of("key", "name", "type", "UNKNOWN")))).build()));
+    }
+
+    private Placeholder repeat(List<List<Placeholder>> iterations) {
+        return Placeholder.builder().key("regions").type(PlaceholderType.REPEAT)
+            .value(RepeatData.builder().iterations(iterations).build()).build();
+    }
+
+    private List<Placeholder> iteration(String name, String manager) {
+        return List.of(
+            Placeholder.builder().key("name").type(PlaceholderType.TEXT).value(name).build(),
+            Placeholder.builder().key("manager").type(PlaceholderType.INSERT).value(manager).build());
+    }
+
+    private void setNotes(XSLFSlide slide, String text) {
+        XSLFNotes notes = presentation.getNotesSlide(slide);
+        for (XSLFTextShape placeholder : notes.getPlaceholders()) {
+            if (placeholder.getTextType() == org.apache.poi.sl.usermodel.Placeholder.BODY) {
+                placeholder.setText(text);
+            }
+        }
+    }
+
+    private XMLSlideShow reopen() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        presentation.write(outputStream);
+        return new XMLSlideShow(new ByteArrayInputStream(outputStream.toByteArray()));
+    }
+
+    private List<String> texts(Iterable<XSLFShape> shapes) {
+        List<String> texts = new ArrayList<>();
+        for (XSLFShape shape : shapes) {
+            if (shape instanceof XSLFTextShape textShape && !textShape.getText().isEmpty()) {
+                texts.add(textShape.getText());
+            }
+        }
+        return texts;
+    }
+}
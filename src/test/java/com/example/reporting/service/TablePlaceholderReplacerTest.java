@@ -0,0 +1,173 @@
+package com.example.reporting.service;
+
+import com.example.reporting.model.Placeholder;
+import com.example.reporting.model.PlaceholderType;
+import com.example.reporting.model.TableData;
+import com.example.reporting.service.replacer.TablePlaceholderReplacer;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+import org.apache.poi.xslf.usermodel.XSLFTable;
+import org.apache.poi.xslf.usermodel.XSLFTableRow;
+import org.apache.poi.xslf.usermodel.XSLFTextBox;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.awt.geom.Rectangle2D;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TablePlaceholderReplacerTest {
+
+    private TablePlaceholderReplacer replacer;
+    private XMLSlideShow presentation;
+
+    @BeforeEach
+    void setUp() {
+        replacer = new TablePlaceholderReplacer();
+        presentation = new XMLSlideShow();
+    }
+
+    @Test
+    void replace_shouldCloneTemplateRowPerRecord() throws Exception {
+        createInvoiceSlide();
+
+        replacer.replace(presentation, table(TableData.builder().rows(items(3)).build()));
+
+        try (XMLSlideShow reopened = reopen()) {
+            assertEquals(List.of(
+                List.of("Товар", "Кол-во"),
+                List.of("Товар 1", "1"),
+                List.of("Товар 2", "2"),
+                List.of("Товар 3", "3"),
+                List.of("Итого", "")
+            ), texts(tableOf(reopened.getSlides().get(0))));
+        }
+    }
+
+    @Test
+    void replace_shouldPaginateOntoDuplicatedSlides() throws Exception {
+        createInvoiceSlide();
+        presentation.createSlide().createTextBox().setText("Последний слайд");
+
+        replacer.replace(presentation, table(TableData.builder().rows(items(5)).rowsPerSlide(2).build()));
+
+        try (XMLSlideShow reopened = reopen()) {
+            List<XSLFSlide> slides = reopened.getSlides();
+            assertEquals(4, slides.size());
+            assertEquals(List.of("Товар 1", "Товар 2"), names(tableOf(slides.get(0))));
+            assertEquals(List.of("Товар 3", "Товар 4"), names(tableOf(slides.get(1))));
+            assertEquals(List.of("Товар 5"), names(tableOf(slides.get(2))));
+            assertEquals("Последний слайд", ((XSLFTextBox) slides.get(3).getShapes().get(0)).getText());
+        }
+    }
+
+    @Test
+    void replace_shouldPaginateByFreeSpaceBelowTable() throws Exception {
+        XSLFTable table = createInvoiceSlide();
+        double rowHeight = table.getRowHeight(1);
+        double free = presentation.getPageSize().getHeight() - table.getAnchor().getY()
+            - table.getRowHeight(0) - table.getRowHeight(2);
+        int perSlide = (int) (free / rowHeight);
+
+        replacer.replace(presentation, table(TableData.builder().rows(items(perSlide + 1)).build()));
+
+        try (XMLSlideShow reopened = reopen()) {
+            assertEquals(2, reopened.getSlides().size());
+            assertEquals(perSlide, names(tableOf(reopened.getSlides().get(0))).size());
+        }
+    }
+
+    @Test
+    void replace_shouldRemoveTemplateRowWhenNoRecords() throws Exception {
+        createInvoiceSlide();
+
+        replacer.replace(presentation, table(TableData.builder().rows(List.of()).build()));
+
+        assertEquals(List.of(List.of("Товар", "Кол-во"), List.of("Итого", "")),
+            texts(tableOf(presentation.getSlides().get(0))));
+    }
+
+    @Test
+    void replaceAll_shouldFillTwoTemplateRowsOfOneTable() throws Exception {
+        XSLFTable table = presentation.createSlide().createTable();
+        table.setAnchor(new Rectangle2D.Double(50, 100, 400, 0));
+        for (String[] row : new String[][]{
+            {"{{items.name}}", "{{items.quantity}}"}, {"Скидки", ""}, {"{{discounts.name}}", "{{discounts.amount}}"}}) {
+            XSLFTableRow tableRow = table.addRow();
+            tableRow.setHeight(30);
+            for (String text : row) {
+                tableRow.addCell().setText(text);
+            }
+        }
+
+        replacer.replaceAll(presentation, List.of(
+            table(TableData.builder().rows(items(2)).build()),
+            Placeholder.builder().key("discounts").type(PlaceholderType.TABLE)
+                .value(List.of(Map.of("name", "Опт", "amount", "5%"), Map.of("name", "Акция", "amount", "10%")))
+                .build()));
+
+        try (XMLSlideShow reopened = reopen()) {
+            assertEquals(List.of(
+                List.of("Товар 1", "1"),
+                List.of("Товар 2", "2"),
+                List.of("Скидки", ""),
+                List.of("Опт", "5%"),
+                List.of("Акция", "10%")
+            ), texts(tableOf(reopened.getSlides().get(0))));
+        }
+    }
+
+    private XSLFTable createInvoiceSlide() {
+        XSLFTable table = presentation.createSlide().createTable();
+        table.setAnchor(new Rectangle2D.Double(50, 100, 400, 0));
+        for (String[] row : new String[][]{
+            {"Товар", "Кол-во"}, {"{{items.name}}", "{{items.quantity}}"}, {"Итого", ""}}) {
+            XSLFTableRow tableRow = table.addRow();
+            tableRow.setHeight(30);
+            for (String text : row) {
+                tableRow.addCell().setText(text);
+            }
+        }
+        return table;
+    }
+
+    private List<Map<String, Object>> items(int count) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            items.add(Map.of("name", "Товар " + i, "quantity", i));
+        }
+        return items;
+    }
+
+    private Placeholder table(TableData data) {
+        return Placeholder.builder().key("items").type(PlaceholderType.TABLE).value(data).build();
+    }
+
+    private XMLSlideShow reopen() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        presentation.write(outputStream);
+        return new XMLSlideShow(new ByteArrayInputStream(outputStream.toByteArray()));
+    }
+
+    private XSLFTable tableOf(XSLFSlide slide) {
+        return (XSLFTable) slide.getShapes().get(0);
+    }
+
+    private List<List<String>> texts(XSLFTable table) {
+        List<List<String>> texts = new ArrayList<>();
+        for (XSLFTableRow row : table.getRows()) {
+            texts.add(row.getCells().stream().map(cell -> cell.getText()).toList());
+        }
+        return texts;
+    }
+
+    private List<String> names(XSLFTable table) {
+        List<List<String>> texts = texts(table);
+        return texts.subList(1, texts.size() - 1).stream().map(row -> row.get(0)).toList();
+    }
+}
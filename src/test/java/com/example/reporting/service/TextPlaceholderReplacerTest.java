@@ -3,6 +3,7 @@ package com.example.reporting.service;
 import com.example.reporting.model.Placeholder;
 import com.example.reporting.model.PlaceholderType;
 import com.example.reporting.service.replacer.TextPlaceholderReplacer;
+import com.example.reporting.service.replacer.TextSubstitutionEngine;
 import org.apache.poi.xslf.usermodel.XMLSlideShow;
 import org.apache.poi.xslf.usermodel.XSLFSlide;
 import org.apache.poi.xslf.usermodel.XSLFTextBox;
@@ -20,7 +21,7 @@ class TextPlaceholderReplacerTest {
 
     @BeforeEach
     void setUp() {
-        replacer = new TextPlaceholderReplacer();
+        replacer = new TextPlaceholderReplacer(new TextSubstitutionEngine());
         presentation = new XMLSlideShow();
     }
 
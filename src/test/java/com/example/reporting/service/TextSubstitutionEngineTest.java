@@ -0,0 +1,145 @@
+package com.example.reporting.service;
+
+import com.example.reporting.model.Placeholder;
+import com.example.reporting.model.PlaceholderType;
+import com.example.reporting.service.replacer.TextSubstitutionEngine;
+import com.example.reporting.service.template.RunSpan;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+import org.apache.poi.xslf.usermodel.XSLFTextBox;
+import org.apache.poi.xslf.usermodel.XSLFTextParagraph;
+import org.apache.poi.xslf.usermodel.XSLFTextRun;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextSubstitutionEngineTest {
+
+    private TextSubstitutionEngine engine;
+    private XMLSlideShow presentation;
+
+    @BeforeEach
+    void setUp() {
+        engine = new TextSubstitutionEngine();
+        presentation = new XMLSlideShow();
+    }
+
+    @Test
+    void substitute_shouldReplaceTextAndInsertInSinglePass() {
+        XSLFTextBox textBox = createTextBox("{{title}}: $компания, выручка $выручка");
+
+        int changed = engine.substitute(presentation, List.of(
+            text("title", "Отчет"),
+            insert("компания", "ООО Ромашка"),
+            insert("выручка", "15 млн руб.")
+        ));
+
+        assertEquals(1, changed);
+        assertEquals("Отчет: ООО Ромашка, выручка 15 млн руб.", textBox.getText());
+    }
+
+    @Test
+    void substitute_shouldPreferLongestInsertKey() {
+        XSLFTextBox textBox = createTextBox("$price / $priceTotal");
+
+        engine.substitute(presentation, List.of(
+            insert("price", "10"),
+            insert("priceTotal", "20")
+        ));
+
+        assertEquals("10 / 20", textBox.getText());
+    }
+
+    @Test
+    void substitute_shouldNotReplaceInsideSubstitutedValues() {
+        XSLFTextBox textBox = createTextBox("$a $b");
+
+        engine.substitute(presentation, List.of(
+            insert("a", "$b"),
+            insert("b", "2")
+        ));
+
+        assertEquals("$b 2", textBox.getText());
+    }
+
+    @Test
+    void substitute_shouldLeaveTextWithoutPlaceholdersUntouched() {
+        XSLFTextBox textBox = createTextBox("Статический текст {{unknown}}");
+
+        int changed = engine.substitute(presentation, List.of(text("title", "Отчет")));
+
+        assertEquals(0, changed);
+        assertEquals("Статический текст {{unknown}}", textBox.getText());
+    }
+
+    @Test
+    void substitute_shouldReplacePlaceholderSplitAcrossRuns() {
+        XSLFTextBox textBox = presentation.createSlide().createTextBox();
+        XSLFTextParagraph paragraph = textBox.addNewTextParagraph();
+        paragraph.addNewTextRun().setText("Выручка: {{rev");
+        XSLFTextRun bold = paragraph.addNewTextRun();
+        bold.setText("enue}}, клиент $кли");
+        bold.setBold(true);
+        paragraph.addNewTextRun().setText("ент.");
+
+        int changed = engine.substitute(presentation, List.of(
+            text("revenue", "15 млн"),
+            insert("клиент", "ООО Ромашка")
+        ));
+
+        assertEquals(1, changed);
+        List<XSLFTextRun> runs = paragraph.getTextRuns();
+        // Значение получает форматирование run, в котором начинается плейсхолдер
+        assertEquals("Выручка: 15 млн", runs.get(0).getRawText());
+        assertEquals(", клиент ООО Ромашка", runs.get(1).getRawText());
+        assertEquals(".", runs.get(2).getRawText());
+    }
+
+    @Test
+    void substituteParallel_shouldReplaceOnEverySlide() {
+        List<XSLFTextBox> textBoxes = new ArrayList<>();
+        List<RunSpan> spans = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            XSLFTextBox textBox = createTextBox("{{title}} - слайд $номер");
+            textBoxes.add(textBox);
+            spans.add(new RunSpan(i, textBox.getTextParagraphs().get(1).getTextRuns()));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            int changed = engine.substituteParallel(spans, List.of(
+                text("title", "Отчет"),
+                insert("номер", "N")
+            ), pool);
+
+            assertEquals(40, changed);
+        } finally {
+            pool.shutdown();
+        }
+        for (XSLFTextBox textBox : textBoxes) {
+            assertEquals("Отчет - слайд N", textBox.getText().trim());
+        }
+    }
+
+    private XSLFTextBox createTextBox(String text) {
+        XSLFSlide slide = presentation.createSlide();
+        XSLFTextBox textBox = slide.createTextBox();
+        XSLFTextParagraph paragraph = textBox.addNewTextParagraph();
+        XSLFTextRun textRun = paragraph.addNewTextRun();
+        textRun.setText(text);
+        return textBox;
+    }
+
+    private Placeholder text(String key, String value) {
+        return Placeholder.builder().key(key).type(PlaceholderType.TEXT).value(value).build();
+    }
+
+    private Placeholder insert(String key, String value) {
+        return Placeholder.builder().key(key).type(PlaceholderType.INSERT).value(value).build();
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.reporting.service.admission;
+
+import com.example.reporting.exception.GenerationRejectedException;
+import com.example.reporting.model.ImageData;
+import com.example.reporting.model.Placeholder;
+import com.example.reporting.model.PlaceholderType;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GenerationAdmissionControllerTest {
+
+    @Test
+    void estimate_shouldScaleTemplateAndAddImages() {
+        GenerationAdmissionController controller = controller(1 << 20, Duration.ZERO, 0);
+
+        long estimate = controller.estimate(1000, List.of(
+            Placeholder.builder().key("title").type(PlaceholderType.TEXT).value("Отчет").build(),
+            Placeholder.builder().key("logo").type(PlaceholderType.IMAGE)
+                .value(ImageData.builder().imageBytes(new byte[500]).build()).build()));
+
+        assertEquals(8500, estimate);
+    }
+
+    @Test
+    void acquire_shouldRejectWithRetryAfterWhenSaturated() {
+        GenerationAdmissionController controller = controller(100 * 1024, Duration.ofMillis(50), 1);
+
+        GenerationAdmissionController.Permit first = controller.acquire(80 * 1024);
+        GenerationRejectedException rejected = assertThrows(GenerationRejectedException.class,
+            () -> controller.acquire(40 * 1024));
+
+        assertEquals(7, rejected.getRetryAfterSeconds());
+        assertEquals(0, controller.getQueued());
+
+        first.close();
+        first.close();
+        assertEquals(100, controller.getAvailableKb());
+    }
+
+    @Test
+    void acquire_shouldRejectImmediatelyWhenQueueIsFull() {
+        GenerationAdmissionController controller = controller(100 * 1024, Duration.ofMinutes(1), 0);
+        controller.acquire(100 * 1024);
+
+        assertThrows(GenerationRejectedException.class, () -> controller.acquire(1024));
+    }
+
+    @Test
+    void acquire_shouldAdmitQueuedGenerationWhenBudgetIsReleased() throws Exception {
+        GenerationAdmissionController controller = controller(100 * 1024, Duration.ofSeconds(10), 1);
+        // Оценка больше всего бюджета ограничивается им: такая генерация выполняется одна
+        GenerationAdmissionController.Permit huge = controller.acquire(1L << 30);
+
+        CompletableFuture<GenerationAdmissionController.Permit> waiting =
+            CompletableFuture.supplyAsync(() -> controller.acquire(10 * 1024));
+        Thread.sleep(100);
+        assertFalse(waiting.isDone());
+
+        huge.close();
+        waiting.get(5, TimeUnit.SECONDS).close();
+        assertEquals(100, controller.getAvailableKb());
+    }
+
+    @Test
+    void acquireWaiting_shouldWaitPastQueueTimeoutAndQueueLimit() throws Exception {
+        GenerationAdmissionController controller = controller(100 * 1024, Duration.ofMillis(20), 0);
+        GenerationAdmissionController.Permit busy = controller.acquire(100 * 1024);
+
+        CompletableFuture<GenerationAdmissionController.Permit> waiting =
+            CompletableFuture.supplyAsync(() -> controller.acquireWaiting(10 * 1024));
+        Thread.sleep(200);
+        assertFalse(waiting.isDone());
+
+        busy.close();
+        waiting.get(5, TimeUnit.SECONDS).close();
+        assertEquals(100, controller.getAvailableKb());
+    }
+
+    private GenerationAdmissionController controller(long capacity, Duration queueTimeout, int maxQueued) {
+        return new GenerationAdmissionController(true, capacity, 8, queueTimeout, maxQueued, Duration.ofSeconds(7));
+    }
+}
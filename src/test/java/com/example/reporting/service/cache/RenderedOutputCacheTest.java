@@ -0,0 +1,93 @@
+package com.example.reporting.service.cache;
+
+import com.example.reporting.model.ImageData;
+import com.example.reporting.model.Placeholder;
+import com.example.reporting.model.PlaceholderType;
+import org.apache.poi.sl.usermodel.PictureData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RenderedOutputCacheTest {
+
+    @TempDir
+    Path cacheDir;
+
+    @Test
+    void key_shouldDependOnTemplateVersionAndImageBytes() throws Exception {
+        RenderedOutputCache cache = new RenderedOutputCache(true, 1024, 1024, cacheDir, 0);
+
+        String key = cache.key("templates/weekly.pptx", "v1", placeholders(new byte[]{1, 2}));
+
+        assertEquals(key, cache.key("templates/weekly.pptx", "v1", placeholders(new byte[]{1, 2})));
+        assertNotEquals(key, cache.key("templates/weekly.pptx", "v2", placeholders(new byte[]{1, 2})));
+        assertNotEquals(key, cache.key("templates/weekly.pptx", "v1", placeholders(new byte[]{1, 3})));
+    }
+
+    @Test
+    void put_shouldSpillLeastRecentlyUsedToDisk() throws Exception {
+        RenderedOutputCache cache = new RenderedOutputCache(true, 10, 1024, cacheDir, 1024);
+
+        String etag = cache.put("a", new byte[6]).getEtag();
+        cache.put("b", new byte[]{1, 2, 3, 4, 5, 6});
+
+        assertTrue(Files.exists(cacheDir.resolve(RenderedOutputCache.OWNED_DIRECTORY).resolve("a.pptx")));
+        assertEquals(etag, cache.etag("a").orElseThrow());
+        assertEquals(RenderedOutputCache.etagOf(new byte[6]), etag);
+        assertArrayEquals(new byte[6], cache.get("a").orElseThrow().getBytes());
+        assertArrayEquals(new byte[]{1, 2, 3, 4, 5, 6}, cache.get("b").orElseThrow().getBytes());
+        assertTrue(cache.get("c").isEmpty());
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void put_shouldEvictFromDiskOverLimit() throws Exception {
+        RenderedOutputCache cache = new RenderedOutputCache(true, 0, 1024, cacheDir, 10);
+
+        cache.put("a", new byte[6]);
+        cache.put("b", new byte[6]);
+
+        assertTrue(cache.get("a").isEmpty());
+        assertFalse(Files.exists(cacheDir.resolve(RenderedOutputCache.OWNED_DIRECTORY).resolve("a.pptx")));
+        assertTrue(cache.get("b").isPresent());
+    }
+
+    @Test
+    void put_shouldNotStoreOutputLargerThanEntryLimit() throws Exception {
+        RenderedOutputCache cache = new RenderedOutputCache(true, 1024, 8, cacheDir, 1024);
+
+        String etag = cache.put("a", new byte[9]).getEtag();
+
+        assertEquals(RenderedOutputCache.etagOf(new byte[9]), etag);
+        assertTrue(cache.etag("a").isEmpty());
+        assertTrue(cache.get("a").isEmpty());
+        assertFalse(Files.exists(cacheDir.resolve(RenderedOutputCache.OWNED_DIRECTORY).resolve("a.pptx")));
+    }
+
+    @Test
+    void constructor_shouldCleanOnlyOwnedSubdirectory() throws Exception {
+        Path foreign = Files.write(cacheDir.resolve("report.pptx"), new byte[]{1});
+        Path owned = cacheDir.resolve(RenderedOutputCache.OWNED_DIRECTORY);
+        Files.createDirectories(owned);
+        Path stale = Files.write(owned.resolve("stale.pptx"), new byte[]{1});
+
+        new RenderedOutputCache(true, 1024, 1024, cacheDir, 1024);
+
+        assertTrue(Files.exists(foreign));
+        assertFalse(Files.exists(stale));
+    }
+
+    private List<Placeholder> placeholders(byte[] imageBytes) {
+        return List.of(
+            Placeholder.builder().key("title").type(PlaceholderType.TEXT).value("Неделя 42").build(),
+            Placeholder.builder().key("chart").type(PlaceholderType.IMAGE)
+                .value(new ImageData(imageBytes, "image/png", PictureData.PictureType.PNG)).build()
+        );
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.reporting.service.image;
+
+import com.example.reporting.model.ImageData;
+import com.example.reporting.util.ImageUtils;
+import org.apache.poi.sl.usermodel.PictureData;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImagePreprocessorTest {
+
+    private final ImageCache imageCache = new ImageCache(64 * 1024 * 1024);
+
+    @Test
+    void fit_shouldDownscaleAndReencodeToAnchorSize() throws Exception {
+        ImagePreprocessor preprocessor = new ImagePreprocessor(imageCache, true, 144, true, 0.85f);
+        CachedImage original = CachedImage.of(ImageUtils.createImageData(createPng(2000, 1000), "image/png"));
+
+        // 200x100 пунктов при 144 DPI -> 400x200 пикселей
+        CachedImage fitted = preprocessor.fit(original, new Rectangle2D.Double(0, 0, 200, 100));
+
+        BufferedImage result = ImageIO.read(new ByteArrayInputStream(fitted.getImage().getImageBytes()));
+        assertEquals(400, result.getWidth());
+        assertEquals(200, result.getHeight());
+        assertEquals(PictureData.PictureType.JPEG, fitted.getImage().getPictureType());
+        assertTrue(fitted.getImage().getImageBytes().length < original.getImage().getImageBytes().length);
+    }
+
+    @Test
+    void fit_shouldReuseCachedResult() throws Exception {
+        ImagePreprocessor preprocessor = new ImagePreprocessor(imageCache, true, 144, true, 0.85f);
+        CachedImage original = CachedImage.of(ImageUtils.createImageData(createPng(2000, 1000), "image/png"));
+        Rectangle2D anchor = new Rectangle2D.Double(0, 0, 200, 100);
+
+        ImageData first = preprocessor.fit(original, anchor).getImage();
+        ImageData second = preprocessor.fit(original, anchor).getImage();
+
+        assertSame(first, second);
+    }
+
+    @Test
+    void fit_shouldNotKeepOriginalBytesInCacheWhenProcessingDoesNotHelp() throws Exception {
+        ImageCache cache = new ImageCache(64 * 1024 * 1024);
+        ImagePreprocessor preprocessor = new ImagePreprocessor(cache, true, 144, false, 0.85f);
+        CachedImage original = CachedImage.of(ImageUtils.createImageData(createPng(10, 10), "image/png"));
+
+        assertSame(original, preprocessor.fit(original, new Rectangle2D.Double(0, 0, 200, 100)));
+        assertSame(original, preprocessor.fit(original, new Rectangle2D.Double(0, 0, 200, 100)));
+        assertEquals(0, cache.getTotalBytes());
+    }
+
+    @Test
+    void fit_shouldReturnOriginalWhenDisabled() throws Exception {
+        ImagePreprocessor preprocessor = new ImagePreprocessor(imageCache, false, 144, true, 0.85f);
+        CachedImage original = CachedImage.of(ImageUtils.createImageData(createPng(2000, 1000), "image/png"));
+
+        assertSame(original, preprocessor.fit(original, new Rectangle2D.Double(0, 0, 200, 100)));
+    }
+
+    private byte[] createPng(int width, int height) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setPaint(new GradientPaint(0, 0, Color.BLUE, width, height, Color.ORANGE));
+        graphics.fillRect(0, 0, width, height);
+        graphics.dispose();
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", outputStream);
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.reporting.service.metrics;
+
+import com.example.reporting.service.preview.SlidePreview;
+import com.example.reporting.service.preview.SlideThumbnailCache;
+import com.example.reporting.service.template.TemplateBytesCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TemplateCacheMetricsTest {
+
+    @Test
+    void bindTo_shouldExposeThumbnailCacheCounters() {
+        SlideThumbnailCache thumbnails = new SlideThumbnailCache(1024);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new TemplateCacheMetrics(new TemplateBytesCache(new DefaultResourceLoader(), "", 1024, false, 0), thumbnails)
+            .bindTo(registry);
+
+        String key = SlideThumbnailCache.key("hash", 1, 320);
+        thumbnails.get(key);
+        thumbnails.put(key, SlidePreview.builder().slideNumber(1).png(new byte[100]).build());
+        thumbnails.get(key);
+
+        assertEquals(1, registry.get("reporting.preview.cache.hits").functionCounter().count());
+        assertEquals(1, registry.get("reporting.preview.cache.misses").functionCounter().count());
+        assertEquals(100, registry.get("reporting.preview.cache.size").gauge().value());
+    }
+}
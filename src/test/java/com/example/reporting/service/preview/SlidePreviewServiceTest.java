@@ -0,0 +1,121 @@
+package com.example.reporting.service.preview;
+
+import com.example.reporting.exception.GenerationRejectedException;
+import com.example.reporting.exception.InvalidRequestException;
+import com.example.reporting.service.admission.GenerationAdmissionController;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFTextBox;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlidePreviewServiceTest {
+
+    private SlideThumbnailCache cache;
+    private GenerationAdmissionController admissionController;
+    private SlidePreviewService service;
+
+    @BeforeEach
+    void setUp() {
+        cache = new SlideThumbnailCache(1024 * 1024);
+        admissionController = new GenerationAdmissionController(
+            true, 64L * 1024 * 1024, 8, Duration.ZERO, 0, Duration.ofSeconds(3));
+        service = new SlidePreviewService(cache, admissionController, 2, 800);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void render_shouldDrawSelectedSlidesInRequestedOrderAtRequestedWidth() throws Exception {
+        byte[] presentation = presentation(3);
+
+        List<SlidePreview> previews = service.render(presentation, List.of(3, 1), 320);
+
+        assertEquals(2, previews.size());
+        assertEquals(3, previews.get(0).getSlideNumber());
+        assertEquals(1, previews.get(1).getSlideNumber());
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(previews.get(0).getPng()));
+        assertEquals(320, image.getWidth());
+        // Пропорции слайда 4:3
+        assertEquals(240, image.getHeight());
+        assertEquals(240, previews.get(0).getHeight());
+        // Красная фигура в левом верхнем углу слайда, фон белый
+        assertEquals(Color.RED.getRGB(), image.getRGB(10, 10));
+        assertEquals(Color.WHITE.getRGB(), image.getRGB(300, 220));
+    }
+
+    @Test
+    void render_shouldServeRepeatedRequestFromCache() throws Exception {
+        byte[] presentation = presentation(2);
+
+        List<SlidePreview> first = service.render(presentation, null, 160);
+        assertEquals(2, first.size());
+        assertEquals(0, cache.getHits());
+
+        List<SlidePreview> second = service.render(presentation, List.of(1, 2), 160);
+        assertEquals(2, cache.getHits());
+        assertSame(first.get(0), second.get(0));
+        assertSame(first.get(1), second.get(1));
+
+        // Другая ширина - другая миниатюра
+        service.render(presentation, List.of(1), 200);
+        assertEquals(2, cache.getHits());
+    }
+
+    @Test
+    void render_shouldRejectMissingSlideAndInvalidWidth() throws Exception {
+        byte[] presentation = presentation(1);
+
+        assertThrows(InvalidRequestException.class, () -> service.render(presentation, List.of(2), 320));
+        assertThrows(InvalidRequestException.class, () -> service.render(presentation, List.of(1), 0));
+        assertThrows(InvalidRequestException.class, () -> service.render(presentation, List.of(1), 801));
+    }
+
+    @Test
+    void render_shouldHoldAdmissionPermitWhileRasterizing() throws Exception {
+        byte[] presentation = presentation(2);
+        int available = admissionController.getAvailableKb();
+
+        service.render(presentation, List.of(1), 160);
+        assertEquals(available, admissionController.getAvailableKb());
+
+        // Бюджет занят целиком: новые миниатюры не рисуются, готовые отдаются из кеша
+        try (GenerationAdmissionController.Permit ignored = admissionController.acquire(64L * 1024 * 1024)) {
+            GenerationRejectedException rejected = assertThrows(GenerationRejectedException.class,
+                () -> service.render(presentation, List.of(2), 160));
+            assertEquals(3, rejected.getRetryAfterSeconds());
+            assertEquals(1, service.render(presentation, List.of(1), 160).size());
+        }
+    }
+
+    private byte[] presentation(int slides) throws Exception {
+        try (XMLSlideShow presentation = new XMLSlideShow()) {
+            presentation.setPageSize(new Dimension(720, 540));
+            for (int i = 0; i < slides; i++) {
+                XSLFTextBox box = presentation.createSlide().createTextBox();
+                box.setAnchor(new Rectangle2D.Double(0, 0, 100, 100));
+                box.setFillColor(Color.RED);
+                box.setText("Слайд " + (i + 1));
+            }
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            presentation.write(outputStream);
+            return outputStream.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.reporting.service.streaming;
+
+import com.example.reporting.service.template.CompiledTemplate;
+import com.example.reporting.service.template.TemplateBytes;
+import com.example.reporting.service.template.TemplateCompiler;
+import com.example.reporting.util.DeterministicZipOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.compress.utils.SeekableInMemoryByteChannel;
+import org.apache.poi.sl.usermodel.PictureData;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFTextBox;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Collections;
+import java.util.zip.ZipEntry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalPackageWriterTest {
+
+    private final IncrementalPackageWriter writer = new IncrementalPackageWriter(true, 9, true);
+
+    @Test
+    void write_shouldCopyUnchangedPartsAndStoreNewMedia() throws Exception {
+        byte[] source;
+        try (XMLSlideShow presentation = new XMLSlideShow()) {
+            presentation.createSlide().createTextBox().setText("{{title}}");
+            presentation.createSlide().createTextBox().setText("Без изменений");
+            presentation.addPicture(new byte[4096], PictureData.PictureType.PNG);
+
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            presentation.write(outputStream);
+            source = outputStream.toByteArray();
+        }
+        CompiledTemplate template = new TemplateCompiler().compile("test.pptx", TemplateBytes.onHeap(source, "v1"));
+
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try (XMLSlideShow presentation = template.open()) {
+            ((XSLFTextBox) presentation.getSlides().get(0).getShapes().get(0)).setText("Отчет");
+            byte[] added = new byte[2048];
+            added[0] = 1;
+            presentation.addPicture(added, PictureData.PictureType.PNG);
+            writer.write(presentation, template.getBytes(), result);
+        }
+
+        try (XMLSlideShow presentation = new XMLSlideShow(new ByteArrayInputStream(result.toByteArray()))) {
+            assertEquals("Отчет", ((XSLFTextBox) presentation.getSlides().get(0).getShapes().get(0)).getText());
+            assertEquals("Без изменений", ((XSLFTextBox) presentation.getSlides().get(1).getShapes().get(0)).getText());
+            assertEquals(2, presentation.getPictureData().size());
+        }
+
+        try (ZipFile sourceZip = new ZipFile(new SeekableInMemoryByteChannel(template.getBytes().toByteArray()));
+             ZipFile resultZip = new ZipFile(new SeekableInMemoryByteChannel(result.toByteArray()))) {
+            for (String name : new String[]{"ppt/slides/slide2.xml", "ppt/slideLayouts/slideLayout1.xml",
+                "ppt/media/image1.png"}) {
+                ZipArchiveEntry original = sourceZip.getEntry(name);
+                ZipArchiveEntry copied = resultZip.getEntry(name);
+                assertEquals(original.getCompressedSize(), copied.getCompressedSize(), name);
+                assertEquals(original.getCrc(), copied.getCrc(), name);
+            }
+
+            assertNotEquals(sourceZip.getEntry("ppt/slides/slide1.xml").getCrc(),
+                resultZip.getEntry("ppt/slides/slide1.xml").getCrc());
+            assertEquals(ZipEntry.STORED, resultZip.getEntry("ppt/media/image2.png").getMethod());
+        }
+    }
+
+    @Test
+    void write_shouldProduceIdenticalBytesForIdenticalChanges() throws Exception {
+        byte[] source;
+        try (XMLSlideShow presentation = new XMLSlideShow()) {
+            presentation.createSlide().createTextBox().setText("{{title}}");
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            presentation.write(outputStream);
+            source = outputStream.toByteArray();
+        }
+        CompiledTemplate template = new TemplateCompiler().compile("test.pptx", TemplateBytes.onHeap(source, "v1"));
+
+        // Без копирования из шаблона даты записей тоже фиксированы
+        for (IncrementalPackageWriter packageWriter : new IncrementalPackageWriter[]{
+            writer, new IncrementalPackageWriter(false, -1, true)}) {
+            byte[] first = writeChanged(packageWriter, template);
+            Thread.sleep(2100);
+            byte[] second = writeChanged(packageWriter, template);
+
+            assertArrayEquals(first, second);
+            try (ZipFile resultZip = new ZipFile(new SeekableInMemoryByteChannel(first))) {
+                for (ZipArchiveEntry entry : Collections.list(resultZip.getEntries())) {
+                    assertEquals(DeterministicZipOutputStream.ENTRY_TIME, entry.getTime(), entry.getName());
+                }
+            }
+        }
+    }
+
+    private byte[] writeChanged(IncrementalPackageWriter packageWriter, CompiledTemplate template) throws Exception {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try (XMLSlideShow presentation = template.open()) {
+            ((XSLFTextBox) presentation.getSlides().get(0).getShapes().get(0)).setText("Отчет");
+            packageWriter.write(presentation, template.getBytes(), result);
+        }
+        return result.toByteArray();
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.reporting.service.streaming;
+
+import com.example.reporting.model.Placeholder;
+import com.example.reporting.model.PlaceholderType;
+import com.example.reporting.service.replacer.PlaceholderMatcher;
+import com.example.reporting.service.template.CompiledTemplate;
+import com.example.reporting.service.template.TemplateBytes;
+import com.example.reporting.service.template.TemplateCompiler;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.compress.utils.SeekableInMemoryByteChannel;
+import org.apache.poi.sl.usermodel.PictureData;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+import org.apache.poi.xslf.usermodel.XSLFTextBox;
+import org.apache.poi.xslf.usermodel.XSLFTextParagraph;
+import org.apache.poi.xslf.usermodel.XSLFTextRun;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OoxmlStreamingRewriterTest {
+
+    private final OoxmlStreamingRewriter rewriter = new OoxmlStreamingRewriter();
+
+    @Test
+    void rewrite_shouldReplaceTextAndKeepOtherEntriesCompressedAsIs() throws Exception {
+        byte[] source;
+        try (XMLSlideShow presentation = new XMLSlideShow()) {
+            XSLFSlide slide = presentation.createSlide();
+            XSLFTextParagraph paragraph = slide.createTextBox().addNewTextParagraph();
+            paragraph.addNewTextRun().setText("Отчет {{title}} для $клиент & <партнеров>");
+            paragraph.addLineBreak();
+            paragraph.addNewTextRun().setText("Итого: {{to");
+            XSLFTextRun bold = paragraph.addNewTextRun();
+            bold.setText("tal}}");
+            bold.setBold(true);
+
+            presentation.createSlide().createTextBox().setText("Без плейсхолдеров");
+            presentation.addPicture(new byte[1024], PictureData.PictureType.PNG);
+
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            presentation.write(outputStream);
+            source = outputStream.toByteArray();
+        }
+        CompiledTemplate template = new TemplateCompiler().compile("test.pptx", TemplateBytes.onHeap(source, "v1"));
+
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        rewriter.rewrite(template, PlaceholderMatcher.of(List.of(
+            Placeholder.builder().key("title").type(PlaceholderType.TEXT).value("Q3").build(),
+            Placeholder.builder().key("клиент").type(PlaceholderType.INSERT).value("ООО \"Ромашка\"").build(),
+            Placeholder.builder().key("total").type(PlaceholderType.TEXT).value("100").build()
+        )), result);
+
+        try (XMLSlideShow presentation = new XMLSlideShow(new ByteArrayInputStream(result.toByteArray()))) {
+            XSLFTextBox textBox = (XSLFTextBox) presentation.getSlides().get(0).getShapes().get(0);
+            assertEquals("Отчет Q3 для ООО \"Ромашка\" & <партнеров>\nИтого: 100",
+                textBox.getTextParagraphs().get(1).getText());
+            assertEquals("Без плейсхолдеров", ((XSLFTextBox) presentation.getSlides().get(1).getShapes().get(0)).getText());
+            assertEquals(1, presentation.getPictureData().size());
+        }
+
+        assertEquals(List.of("ppt/slides/slide1.xml"), List.copyOf(template.getPlaceholderParts()));
+        try (ZipFile sourceZip = new ZipFile(new SeekableInMemoryByteChannel(template.getBytes().toByteArray()));
+             ZipFile resultZip = new ZipFile(new SeekableInMemoryByteChannel(result.toByteArray()))) {
+            for (ZipArchiveEntry entry : List.of(sourceZip.getEntry("ppt/slides/slide2.xml"),
+                sourceZip.getEntry("ppt/media/image1.png"))) {
+                ZipArchiveEntry copied = resultZip.getEntry(entry.getName());
+                assertEquals(entry.getCompressedSize(), copied.getCompressedSize());
+                assertEquals(entry.getCrc(), copied.getCrc());
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.reporting.service.template;
+
+import com.example.reporting.service.metrics.GenerationMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFTextBox;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+class PresentationPoolTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final TemplateBytesCache cache = new TemplateBytesCache(new DefaultResourceLoader(),
+        Path.of(".").toString(), 1024, false, 0);
+
+    @Test
+    void acquire_shouldHandOutPristineInstancesRefilledInBackground() throws Exception {
+        PresentationPool pool = new PresentationPool(cache, new GenerationMetrics(registry), 2, Map.of(), 1);
+        CompiledTemplate template = compile("report.pptx", "{{title}}", "v1");
+
+        XMLSlideShow first = pool.acquire(template);
+        ((XSLFTextBox) first.getSlides().get(0).getShapes().get(0)).setText("Изменено");
+        awaitAvailable(pool, "report.pptx", 2);
+
+        XMLSlideShow second = pool.acquire(template);
+        assertNotSame(first, second);
+        assertEquals("{{title}}", ((XSLFTextBox) second.getSlides().get(0).getShapes().get(0)).getText());
+
+        assertEquals(1, registry.get("reporting.template.pool.acquire").tag("result", "miss").timer().count());
+        assertEquals(1, registry.get("reporting.template.pool.acquire").tag("result", "hit").timer().count());
+        // Задержка записывается сразу после того, как копия попала в пул
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (registry.get("reporting.template.pool.refill.lag").timer().count() < 2
+            && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(registry.get("reporting.template.pool.refill.lag").timer().count() >= 2);
+        pool.shutdown();
+    }
+
+    @Test
+    void acquire_shouldDiscardInstancesOfPreviousVersion() throws Exception {
+        PresentationPool pool = new PresentationPool(cache, new GenerationMetrics(registry), 1, Map.of(), 1);
+        pool.acquire(compile("report.pptx", "Старая версия", "v1"));
+        awaitAvailable(pool, "report.pptx", 1);
+
+        XMLSlideShow presentation = pool.acquire(compile("report.pptx", "Новая версия", "v2"));
+
+        assertEquals("Новая версия", ((XSLFTextBox) presentation.getSlides().get(0).getShapes().get(0)).getText());
+        pool.shutdown();
+    }
+
+    @Test
+    void acquire_shouldOpenDirectlyWhenPoolDisabledForTemplate() throws Exception {
+        PresentationPool pool = new PresentationPool(cache, new GenerationMetrics(registry), 2,
+            Map.of("report.pptx", 0), 1);
+
+        assertNotNull(pool.acquire(compile("report.pptx", "{{title}}", "v1")));
+
+        assertEquals(0, pool.available("report.pptx"));
+        assertTrue(registry.find("reporting.template.pool.acquire").timers().isEmpty());
+        pool.shutdown();
+    }
+
+    @Test
+    void shutdownAndVersionChange_shouldCloseIdleInstances() throws Exception {
+        PresentationPool pool = new PresentationPool(cache, new GenerationMetrics(registry), 1, Map.of(), 1);
+        List<XMLSlideShow> opened = Collections.synchronizedList(new ArrayList<>());
+        CompiledTemplate v1 = recordingOpens(compile("report.pptx", "Старая версия", "v1"), opened);
+        CompiledTemplate v2 = recordingOpens(compile("report.pptx", "Новая версия", "v2"), opened);
+
+        XMLSlideShow handedOut = pool.acquire(v1);
+        awaitAvailable(pool, "report.pptx", 1);
+        XMLSlideShow idleV1 = opened.get(1);
+
+        pool.acquire(v2);
+        // Копия старой версии закрыта при замене пула
+        assertNull(idleV1.getPackage());
+        awaitAvailable(pool, "report.pptx", 1);
+        XMLSlideShow idleV2 = opened.get(opened.size() - 1);
+
+        pool.shutdown();
+        assertNull(idleV2.getPackage());
+        assertEquals(0, pool.available("report.pptx"));
+        // Выданной копией владеет вызывающий
+        assertNotNull(handedOut.getPackage());
+    }
+
+    private CompiledTemplate recordingOpens(CompiledTemplate template, List<XMLSlideShow> opened) throws Exception {
+        CompiledTemplate spy = spy(template);
+        doAnswer(invocation -> {
+            XMLSlideShow presentation = (XMLSlideShow) invocation.callRealMethod();
+            opened.add(presentation);
+            return presentation;
+        }).when(spy).open();
+        return spy;
+    }
+
+    private CompiledTemplate compile(String name, String text, String version) throws Exception {
+        try (XMLSlideShow presentation = new XMLSlideShow()) {
+            presentation.createSlide().createTextBox().setText(text);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            presentation.write(outputStream);
+            return new TemplateCompiler().compile(name, TemplateBytes.onHeap(outputStream.toByteArray(), version));
+        }
+    }
+
+    private void awaitAvailable(PresentationPool pool, String templatePath, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (pool.available(templatePath) < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, pool.available(templatePath));
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.reporting.service.template;
+
+import com.example.reporting.model.Placeholder;
+import com.example.reporting.model.PlaceholderType;
+import com.example.reporting.service.PptxReaderService;
+import com.example.reporting.service.replacer.TextSubstitutionEngine;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFGroupShape;
+import org.apache.poi.xslf.usermodel.XSLFNotes;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+import org.apache.poi.xslf.usermodel.XSLFTable;
+import org.apache.poi.xslf.usermodel.XSLFTextShape;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShapeIndexTest {
+
+    @Test
+    void of_shouldFlattenGroupsTablesNotesAndLayouts() throws Exception {
+        try (XMLSlideShow presentation = createPresentation()) {
+            List<ShapeIndex.Entry> entries = ShapeIndex.of(presentation).getEntries();
+
+            assertTrue(texts(entries, 0).containsAll(List.of("{{title}}", "{{group}}", "{{cell}}", "Ячейка", "{{note}}")));
+            assertTrue(entries.stream().anyMatch(entry -> entry.getSlideIndex() == ShapeIndex.NO_SLIDE));
+            assertTrue(entries.stream().filter(entry -> "{{group}}".equals(entry.getShape().getText()))
+                .allMatch(entry -> entry.getContainer() instanceof XSLFGroupShape && entry.isReplaceable()));
+            assertTrue(entries.stream().filter(entry -> "{{note}}".equals(entry.getShape().getText()))
+                .allMatch(entry -> entry.getSheet() instanceof XSLFNotes && !entry.isReplaceable()));
+
+            PptxReaderService readerService = new PptxReaderService(new TemplateBytesCache(
+                new DefaultResourceLoader(), Path.of(".").toString(), 1024, false, 0), new TemplateCompiler());
+            assertEquals(List.of("title", "group", "cell", "note"), readerService.extractPlaceholders(presentation));
+        }
+    }
+
+    @Test
+    void scope_shouldReuseIndexUntilInvalidated() throws Exception {
+        try (XMLSlideShow presentation = createPresentation()) {
+            assertNotSame(ShapeIndex.of(presentation), ShapeIndex.of(presentation));
+
+            ShapeIndex.Scope scope = ShapeIndex.scope(presentation);
+            ShapeIndex index = scope.index();
+            assertSame(index, scope.index());
+            // Область передается явно: другие обращения к той же презентации ее не видят
+            assertNotSame(index, ShapeIndex.of(presentation));
+            assertNotSame(index, ShapeIndex.scope(presentation).index());
+
+            scope.invalidate();
+            assertNotSame(index, scope.index());
+        }
+    }
+
+    @Test
+    void compiledTemplate_shouldSubstituteNestedPlaceholders() throws Exception {
+        byte[] bytes;
+        try (XMLSlideShow presentation = createPresentation()) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            presentation.write(outputStream);
+            bytes = outputStream.toByteArray();
+        }
+        CompiledTemplate template = new TemplateCompiler().compile("test.pptx", TemplateBytes.onHeap(bytes, "v1"));
+
+        assertTrue(template.getPlaceholderParts().contains("ppt/notesSlides/notesSlide1.xml"));
+        try (XMLSlideShow presentation = template.open()) {
+            new TextSubstitutionEngine().substitute(template.resolveSpans(presentation), List.of(
+                text("title", "Отчет"), text("group", "Группа"), text("cell", "Итого"), text("note", "Заметка")));
+
+            List<String> texts = texts(ShapeIndex.of(presentation).getEntries(), 0);
+            assertTrue(texts.containsAll(List.of("Отчет", "Группа", "Итого", "Ячейка", "Заметка")));
+            assertTrue(texts.stream().noneMatch(text -> text.contains("{{")));
+        }
+    }
+
+    private XMLSlideShow createPresentation() {
+        XMLSlideShow presentation = new XMLSlideShow();
+        XSLFSlide slide = presentation.createSlide();
+        slide.createTextBox().setText("{{title}}");
+
+        XSLFGroupShape group = slide.createGroup();
+        group.createTextBox().setText("{{group}}");
+
+        XSLFTable table = slide.createTable();
+        table.addRow().addCell().setText("{{cell}}");
+        table.getRows().get(0).addCell().setText("Ячейка");
+
+        XSLFNotes notes = presentation.getNotesSlide(slide);
+        for (XSLFTextShape placeholder : notes.getPlaceholders()) {
+            if (placeholder.getTextType() == org.apache.poi.sl.usermodel.Placeholder.BODY) {
+                placeholder.setText("{{note}}");
+            }
+        }
+        return presentation;
+    }
+
+    private List<String> texts(List<ShapeIndex.Entry> entries, int slideIndex) {
+        return entries.stream()
+            .filter(entry -> entry.getSlideIndex() == slideIndex)
+            .map(entry -> entry.getShape().getText())
+            .filter(text -> !text.isEmpty())
+            .toList();
+    }
+
+    private Placeholder text(String key, String value) {
+        return Placeholder.builder().key(key).type(PlaceholderType.TEXT).value(value).build();
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.reporting.service.template;
+
+import com.example.reporting.exception.InvalidRequestException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TemplateBytesCacheTest {
+
+    @TempDir
+    Path templatesDir;
+
+    @Test
+    void get_shouldCountMissThenHit() throws Exception {
+        Files.write(templatesDir.resolve("a.pptx"), new byte[]{1, 2, 3});
+        TemplateBytesCache cache = createCache(1024, 0);
+
+        TemplateBytes first = cache.get("a.pptx");
+        TemplateBytes second = cache.get("a.pptx");
+
+        assertSame(first, second);
+        assertEquals(1, cache.getStats().getMisses());
+        assertEquals(1, cache.getStats().getHits());
+    }
+
+    @Test
+    void get_shouldRejectPathOutsideTemplatesDirectory() throws Exception {
+        Path templates = Files.createDirectory(templatesDir.resolve("templates"));
+        Files.write(templates.resolve("a.pptx"), new byte[]{1, 2, 3});
+        Files.write(templatesDir.resolve("secret.pptx"), new byte[]{9});
+        TemplateBytesCache cache = new TemplateBytesCache(new DefaultResourceLoader(), templates.toString(),
+            1024, false, 0);
+
+        assertArrayEquals(new byte[]{1, 2, 3}, cache.get("sub/../a.pptx").toByteArray());
+        assertThrows(InvalidRequestException.class, () -> cache.get("../secret.pptx"));
+        assertThrows(InvalidRequestException.class, () -> cache.get(templatesDir.resolve("secret.pptx").toString()));
+        assertEquals(1, cache.getStats().getEntries());
+    }
+
+    @Test
+    void get_shouldRejectPathOutsideClasspathRoot() {
+        TemplateBytesCache cache = new TemplateBytesCache(new DefaultResourceLoader(), "", 1024, false, 0);
+
+        assertThrows(InvalidRequestException.class, () -> cache.get("../templates/weekly-report.pptx"));
+        assertThrows(InvalidRequestException.class, () -> cache.get("/etc/passwd"));
+    }
+
+    @Test
+    void get_shouldReloadChangedTemplate() throws Exception {
+        Path file = templatesDir.resolve("a.pptx");
+        Files.write(file, new byte[]{1, 2, 3});
+        TemplateBytesCache cache = createCache(1024, 0);
+        List<String> invalidated = new ArrayList<>();
+        cache.addInvalidationListener(invalidated::add);
+
+        TemplateBytes original = cache.get("a.pptx");
+        Files.write(file, new byte[]{4, 5, 6, 7});
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 5000));
+        TemplateBytes reloaded = cache.get("a.pptx");
+
+        assertNotEquals(original.getVersion(), reloaded.getVersion());
+        assertArrayEquals(new byte[]{4, 5, 6, 7}, reloaded.toByteArray());
+        assertEquals(1, cache.getStats().getReloads());
+        assertEquals(List.of("a.pptx"), invalidated);
+    }
+
+    @Test
+    void get_shouldEvictLeastRecentlyUsedWhenOverLimit() throws Exception {
+        Files.write(templatesDir.resolve("a.pptx"), new byte[6]);
+        Files.write(templatesDir.resolve("b.pptx"), new byte[6]);
+        TemplateBytesCache cache = createCache(10, 60_000);
+
+        cache.get("a.pptx");
+        cache.get("b.pptx");
+
+        TemplateCacheStats stats = cache.getStats();
+        assertEquals(1, stats.getEvictions());
+        assertEquals(1, stats.getEntries());
+        assertEquals(6, stats.getTotalBytes());
+    }
+
+    @Test
+    void get_shouldServeOffHeapBytes() throws Exception {
+        Files.write(templatesDir.resolve("a.pptx"), new byte[]{1, 2, 3});
+        TemplateBytesCache cache = new TemplateBytesCache(new DefaultResourceLoader(),
+            templatesDir.toString(), 1024, true, 0);
+
+        TemplateBytes bytes = cache.get("a.pptx");
+
+        assertEquals(3, bytes.size());
+        assertArrayEquals(new byte[]{1, 2, 3}, bytes.openStream().readAllBytes());
+    }
+
+    private TemplateBytesCache createCache(long maxBytes, long checkIntervalMillis) {
+        return new TemplateBytesCache(new DefaultResourceLoader(), templatesDir.toString(),
+            maxBytes, false, checkIntervalMillis);
+    }
+}
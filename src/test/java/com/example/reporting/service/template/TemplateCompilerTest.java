@@ -0,0 +1,107 @@
+package com.example.reporting.service.template;
+
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+import org.apache.poi.xslf.usermodel.XSLFTextBox;
+import org.apache.poi.xslf.usermodel.XSLFTextParagraph;
+import org.apache.poi.xslf.usermodel.XSLFTextRun;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TemplateCompilerTest {
+
+    private final TemplateCompiler compiler = new TemplateCompiler();
+
+    @Test
+    void compile_shouldIndexOnlyRunsWithPlaceholders() throws Exception {
+        byte[] bytes = createTemplate("Статический текст", "Заголовок {{title}}", "Клиент: $clientName");
+
+        CompiledTemplate template = compiler.compile("test.pptx", TemplateBytes.onHeap(bytes, "v1"));
+
+        // Новый text box уже содержит пустой абзац, поэтому текст во втором.
+        // Фигура адресуется позицией в ShapeIndex: по одной фигуре на слайд
+        assertEquals(List.of(
+            new PlaceholderLocation(1, 1, 1, 0, 1),
+            new PlaceholderLocation(2, 2, 1, 0, 1)
+        ), template.getLocations());
+    }
+
+    @Test
+    void resolveSpans_shouldPointToRunsOfOpenedCopy() throws Exception {
+        byte[] bytes = createTemplate("Заголовок {{title}}");
+        CompiledTemplate template = compiler.compile("test.pptx", TemplateBytes.onHeap(bytes, "v1"));
+
+        try (XMLSlideShow presentation = template.open()) {
+            List<RunSpan> spans = template.resolveSpans(presentation);
+
+            assertEquals(1, spans.size());
+            assertEquals("Заголовок {{title}}", spans.get(0).getRuns().get(0).getRawText());
+        }
+    }
+
+    @Test
+    void compile_shouldMergeRunsWithSameFormatting() throws Exception {
+        byte[] bytes = createTemplate(paragraph -> {
+            paragraph.addNewTextRun().setText("Выручка: {{rev");
+            // Отметка проверки орфографии не считается форматированием
+            XSLFTextRun misspelled = paragraph.addNewTextRun();
+            misspelled.setText("enue}}");
+            misspelled.getRPr(true).setErr(true);
+        });
+
+        CompiledTemplate template = compiler.compile("test.pptx", TemplateBytes.onHeap(bytes, "v1"));
+
+        assertEquals(List.of(new PlaceholderLocation(0, 0, 1, 0, 1)), template.getLocations());
+        assertEquals("v1", template.getVersion());
+        try (XMLSlideShow presentation = template.open()) {
+            List<XSLFTextRun> runs = template.resolveSpans(presentation).get(0).getRuns();
+            assertEquals("Выручка: {{revenue}}", runs.get(0).getRawText());
+        }
+    }
+
+    @Test
+    void compile_shouldIndexPlaceholderSplitAcrossDifferentlyFormattedRuns() throws Exception {
+        byte[] bytes = createTemplate(paragraph -> {
+            paragraph.addNewTextRun().setText("Итого: ");
+            XSLFTextRun bold = paragraph.addNewTextRun();
+            bold.setText("{{to");
+            bold.setBold(true);
+            paragraph.addNewTextRun().setText("tal}} руб. и $кл");
+            XSLFTextRun italic = paragraph.addNewTextRun();
+            italic.setText("иент");
+            italic.setItalic(true);
+        });
+
+        CompiledTemplate template = compiler.compile("test.pptx", TemplateBytes.onHeap(bytes, "v1"));
+
+        assertEquals(List.of(new PlaceholderLocation(0, 0, 1, 1, 3)), template.getLocations());
+    }
+
+    private byte[] createTemplate(Consumer<XSLFTextParagraph> paragraphBuilder) throws Exception {
+        try (XMLSlideShow presentation = new XMLSlideShow()) {
+            paragraphBuilder.accept(presentation.createSlide().createTextBox().addNewTextParagraph());
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            presentation.write(outputStream);
+            return outputStream.toByteArray();
+        }
+    }
+
+    private byte[] createTemplate(String... slideTexts) throws Exception {
+        try (XMLSlideShow presentation = new XMLSlideShow()) {
+            for (String text : slideTexts) {
+                XSLFSlide slide = presentation.createSlide();
+                XSLFTextBox textBox = slide.createTextBox();
+                XSLFTextParagraph paragraph = textBox.addNewTextParagraph();
+                paragraph.addNewTextRun().setText(text);
+            }
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            presentation.write(outputStream);
+            return outputStream.toByteArray();
+        }
+    }
+}
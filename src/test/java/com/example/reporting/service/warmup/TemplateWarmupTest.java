@@ -0,0 +1,76 @@
+package com.example.reporting.service.warmup;
+
+import com.example.reporting.model.TemplateData;
+import com.example.reporting.service.PptxModificationService;
+import com.example.reporting.service.PptxReaderService;
+import com.example.reporting.service.RenderedPresentation;
+import com.example.reporting.service.streaming.IncrementalPackageWriter;
+import com.example.reporting.service.template.TemplateBytesCache;
+import com.example.reporting.service.template.TemplateCompiler;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.Status;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TemplateWarmupTest {
+
+    @TempDir
+    Path templatesDir;
+
+    @Test
+    void run_shouldWarmUpEveryTemplateAndReportReadiness() throws Exception {
+        Files.createDirectories(templatesDir.resolve("templates/invoices"));
+        writeTemplate(templatesDir.resolve("templates/report.pptx"), "{{title}}");
+        writeTemplate(templatesDir.resolve("templates/invoices/invoice.pptx"), "Счет {{number}}");
+        Files.write(templatesDir.resolve("templates/broken.pptx"), new byte[]{1, 2, 3});
+        Files.write(templatesDir.resolve("templates/notes.txt"), new byte[]{1});
+
+        TemplateBytesCache cache = new TemplateBytesCache(new DefaultResourceLoader(),
+            templatesDir.toString(), 1 << 20, false, 0);
+        PptxModificationService modificationService = mock(PptxModificationService.class);
+        when(modificationService.render(any())).thenAnswer(invocation -> RenderedPresentation.of(new XMLSlideShow()));
+        when(modificationService.modifyPresentation(any())).thenAnswer(invocation -> new XMLSlideShow());
+
+        TemplateWarmup warmup = new TemplateWarmup(cache, new PptxReaderService(cache, new TemplateCompiler()),
+            modificationService, new IncrementalPackageWriter(false, -1, true), true, "templates/", 2);
+        assertEquals(Status.OUT_OF_SERVICE, warmup.health().getStatus());
+
+        warmup.run(new DefaultApplicationArguments());
+
+        Health health = warmup.health();
+        assertEquals(Status.UP, health.getStatus());
+        assertEquals(3, health.getDetails().get("discovered"));
+        assertEquals(2, health.getDetails().get("warmed"));
+        assertEquals(List.of("templates/broken.pptx"),
+            List.copyOf(((Map<?, ?>) health.getDetails().get("failed")).keySet()));
+
+        ArgumentCaptor<TemplateData> captor = ArgumentCaptor.forClass(TemplateData.class);
+        verify(modificationService, times(2)).render(captor.capture());
+        TemplateData invoice = captor.getAllValues().stream()
+            .filter(data -> data.getTemplateName().equals("templates/invoices/invoice.pptx"))
+            .findFirst().orElseThrow();
+        assertEquals("number", invoice.getPlaceholders().get(0).getKey());
+    }
+
+    private void writeTemplate(Path path, String text) throws Exception {
+        try (XMLSlideShow presentation = new XMLSlideShow();
+             OutputStream outputStream = Files.newOutputStream(path)) {
+            presentation.createSlide().createTextBox().setText(text);
+            presentation.write(outputStream);
+        }
+    }
+}
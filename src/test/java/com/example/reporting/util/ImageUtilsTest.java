@@ -84,4 +84,19 @@ class ImageUtilsTest {
         assertNotNull(imageData);
         assertEquals(0, imageData.getImageBytes().length);
     }
-}
\ No newline at end of file
+
+    @Test
+    void detectPictureType_shouldRecognizeSignatures() {
+        assertEquals(PictureData.PictureType.PNG,
+            ImageUtils.detectPictureType(new byte[]{(byte) 0x89, 'P', 'N', 'G', 13, 10}));
+        assertEquals(PictureData.PictureType.JPEG,
+            ImageUtils.detectPictureType(new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, 0}));
+        assertNull(ImageUtils.detectPictureType(new byte[]{1, 2, 3, 4}));
+    }
+
+    @Test
+    void contentHash_shouldBeStableForEqualBytes() {
+        assertEquals(ImageUtils.contentHash(new byte[]{1, 2, 3}), ImageUtils.contentHash(new byte[]{1, 2, 3}));
+        assertNotEquals(ImageUtils.contentHash(new byte[]{1, 2, 3}), ImageUtils.contentHash(new byte[]{3, 2, 1}));
+    }
+}